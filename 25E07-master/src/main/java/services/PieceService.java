@@ -1,8 +0,0 @@
-package services;
-
-import org.springframework.stereotype.Service;
-
-@Service
-public class PieceService {
-
-}
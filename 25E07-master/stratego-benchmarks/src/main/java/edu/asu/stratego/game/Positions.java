@@ -0,0 +1,171 @@
+package edu.asu.stratego.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.gameRules.GameRules;
+import edu.asu.stratego.game.gameRules.OriginalRulesFactory;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.net.BinaryProtocol;
+import edu.asu.stratego.net.PlayerSeat;
+import edu.asu.stratego.net.SessionChannel;
+
+/**
+ * Reproducible positions for the benchmarks: random setups followed by random
+ * play, from a fixed seed.
+ */
+public final class Positions {
+
+    /** Number of moves played from the setup to reach a mid-game position. */
+    public static final int MID_GAME_PLIES = 120;
+
+    /** A session channel that drops everything sent to the players. */
+    public static final SessionChannel NO_OP_CHANNEL = new SessionChannel() {
+        @Override
+        public void send(PlayerSeat seat, Object message) {
+        }
+
+        @Override
+        public void useProtocol(PlayerSeat seat, int version) {
+        }
+
+        @Override
+        public int getVersion(PlayerSeat seat) {
+            return BinaryProtocol.VERSION;
+        }
+
+        @Override
+        public int connections() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private Positions() {
+        /* Intentionally Empty */ }
+
+    /**
+     * @param color  color of the pieces.
+     * @param random source of the placement.
+     * @return the 40 pieces of a player shuffled over a setup board.
+     */
+    public static SetupBoard randomSetup(PieceColor color, Random random) {
+        List<Piece> pieces = new ArrayList<>();
+        for (PieceType type : PieceType.values())
+            for (int i = 0; i < type.getCount(); ++i)
+                pieces.add(new OriginalPiece(type, color, false));
+        Collections.shuffle(pieces, random);
+
+        SetupBoard setup = new SetupBoard();
+        for (int i = 0; i < pieces.size(); ++i)
+            setup.setPiece(pieces.get(i), i / 10, i % 10);
+        return setup;
+    }
+
+    /**
+     * Places two setups the way ServerGameManager does: the first player's
+     * setup rotated on rows 0-3, the second one's on rows 6-9.
+     */
+    public static void place(GameRules rules, SetupBoard one, SetupBoard two) {
+        for (int row = 0; row < 4; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                rules.setPiece(row, col, one.getPiece(3 - row, 9 - col));
+                rules.setPiece(row + 6, col, two.getPiece(row, col));
+            }
+        }
+    }
+
+    /**
+     * Plays random moves, alternating colors. Bombs and flags never move and
+     * flags are never attacked, so the game stays in progress.
+     * 
+     * @return the color to move next.
+     */
+    public static PieceColor play(GameRules rules, PieceColor turn, int plies, Random random) {
+        List<Move> candidates = new ArrayList<>();
+        int[] buffer = new int[GameRules.MAX_VALID_MOVES];
+
+        for (int ply = 0; ply < plies; ++ply) {
+            candidates.clear();
+            for (int row = 0; row < 10; ++row) {
+                for (int col = 0; col < 10; ++col) {
+                    Piece piece = rules.getPiece(row, col);
+                    if (piece == null || piece.getPieceColor() != turn || piece.getPieceType() == PieceType.BOMB
+                            || piece.getPieceType() == PieceType.FLAG)
+                        continue;
+
+                    int count = rules.computeValidMoves(row, col, turn, buffer);
+                    for (int i = 0; i < count; ++i)
+                        candidates.add(move(turn, row, col, buffer[i] / 10, buffer[i] % 10));
+
+                    // Attacks on neighbouring enemy pieces
+                    int[][] neighbours = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+                    for (int[] n : neighbours) {
+                        int r = row + n[0];
+                        int c = col + n[1];
+                        if (r < 0 || r > 9 || c < 0 || c > 9)
+                            continue;
+                        Piece target = rules.getPiece(r, c);
+                        if (target != null && target.getPieceColor() != turn
+                                && target.getPieceType() != PieceType.FLAG)
+                            candidates.add(move(turn, row, col, r, c));
+                    }
+                }
+            }
+            if (candidates.isEmpty())
+                break;
+
+            rules.processMove(candidates.get(random.nextInt(candidates.size())), new Move(), new Move());
+            turn = (turn == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+        }
+        return turn;
+    }
+
+    /**
+     * @param seed the seed of the setups and of the moves.
+     * @return the pieces of a mid-game position, indexed [row][col].
+     */
+    public static Piece[][] midGame(long seed) {
+        Random random = new Random(seed);
+        GameRules rules = new OriginalRulesFactory().createOriginalRules(new ServerBoard());
+        place(rules, randomSetup(PieceColor.RED, random), randomSetup(PieceColor.BLUE, random));
+        play(rules, PieceColor.RED, MID_GAME_PLIES, random);
+
+        Piece[][] pieces = new Piece[10][10];
+        for (int row = 0; row < 10; ++row)
+            for (int col = 0; col < 10; ++col)
+                pieces[row][col] = rules.getPiece(row, col);
+        return pieces;
+    }
+
+    /**
+     * Copies a position into a fresh instance of the rules.
+     */
+    public static void load(GameRules rules, Piece[][] pieces) {
+        for (int row = 0; row < 10; ++row)
+            for (int col = 0; col < 10; ++col)
+                rules.setPiece(row, col, pieces[row][col]);
+    }
+
+    /**
+     * @return a move of the given color from (rowStart, colStart) to (rowEnd,
+     *         colEnd).
+     */
+    public static Move move(PieceColor color, int rowStart, int colStart, int rowEnd, int colEnd) {
+        Move move = new Move();
+        move.setStart(rowStart, colStart);
+        move.setEnd(rowEnd, colEnd);
+        move.setMoveColor(color);
+        return move;
+    }
+
+}
@@ -0,0 +1,81 @@
+package edu.asu.stratego.game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.net.PlayerSeat;
+import edu.asu.stratego.util.CoordinateUtils;
+
+/**
+ * Per-move work of a game session: the win check and the rotation of the move
+ * for both players.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerGameManagerBenchmark {
+
+    @Param({ "original", "bitboard" })
+    public String engine;
+
+    private ServerGameManager manager;
+
+    private final Move move = Positions.move(PieceColor.RED, 3, 4, 4, 4);
+    private final Move moveToPlayerOne = new Move();
+    private final Move moveToPlayerTwo = new Move();
+    private final Piece piece = new OriginalPiece(PieceType.SCOUT, PieceColor.RED,
+            false);
+
+    @Setup
+    public void setUp() {
+        // Read once when ServerGameManager is loaded; every parameter runs in its own fork
+        System.setProperty("stratego.rules", engine);
+        manager = new ServerGameManager(Positions.NO_OP_CHANNEL, 0);
+
+        // Join and set up through the session's own message handling
+        Player one = new Player();
+        Player two = new Player();
+        one.setNickname("one");
+        two.setNickname("two");
+        manager.onMessage(PlayerSeat.ONE, one);
+        manager.onMessage(PlayerSeat.TWO, two);
+
+        Random random = new Random(1);
+        manager.onMessage(PlayerSeat.ONE, Positions.randomSetup(one.getColor(), random));
+        manager.onMessage(PlayerSeat.TWO, Positions.randomSetup(two.getColor(), random));
+        Positions.play(manager.gameRules, PieceColor.RED, Positions.MID_GAME_PLIES, random);
+    }
+
+    @Benchmark
+    public GameStatus checkWinCondition() {
+        return manager.checkWinCondition();
+    }
+
+    @Benchmark
+    public void rotateMove(Blackhole blackhole) {
+        CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, piece, false, false);
+        blackhole.consume(moveToPlayerOne);
+        blackhole.consume(moveToPlayerTwo);
+    }
+
+}
@@ -0,0 +1,138 @@
+package edu.asu.stratego.game.gameRules;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.Positions;
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Move generation, move processing and win detection of both rules engines on
+ * a mid-game position.
+ *
+ * <p>
+ * Run with {@code -prof gc} to see what each call allocates. The primitive
+ * API must stay at {@code gc.alloc.rate.norm} &asymp; 0 B/op for both engines
+ * ({@link #computeValidMovesBuffer}, {@link #isValidMove},
+ * {@link #hasAvailableMoves}); the list adapter allocates about 9.8 KB per
+ * pass over the board. RulesAllocationTest in stratego-core checks the same
+ * on every build.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({ "original", "bitboard" })
+    public String engine;
+
+    @Param({ "1", "2", "3" })
+    public long seed;
+
+    private GameRules rules;
+    private int[] squares;
+    private PieceColor[] colors;
+    private final int[] buffer = new int[GameRules.MAX_VALID_MOVES];
+
+    private Move forward;
+    private Move back;
+    private final Move moveToPlayerOne = new Move();
+    private final Move moveToPlayerTwo = new Move();
+
+    @Setup
+    public void setUp() {
+        OriginalRulesFactory factory = new OriginalRulesFactory();
+        rules = engine.equals("bitboard") ? factory.createBitboardRules()
+                : factory.createOriginalRules(new ServerBoard());
+        Positions.load(rules, Positions.midGame(seed));
+
+        ArrayList<Integer> occupied = new ArrayList<>();
+        for (int square = 0; square < 100; ++square) {
+            Piece piece = rules.getPiece(square / 10, square % 10);
+            if (piece == null)
+                continue;
+            occupied.add(square);
+
+            // First quiet one-square move of a piece that moves, played there and back
+            if (forward == null && piece.getPieceType() != PieceType.BOMB && piece.getPieceType() != PieceType.FLAG) {
+                int row = square / 10;
+                int col = square % 10;
+                ArrayList<Point> moves = rules.computeValidMoves(row, col, piece.getPieceColor());
+                for (Point end : moves) {
+                    if (Math.abs(end.x - row) + Math.abs(end.y - col) == 1) {
+                        forward = Positions.move(piece.getPieceColor(), row, col, end.x, end.y);
+                        back = Positions.move(piece.getPieceColor(), end.x, end.y, row, col);
+                        break;
+                    }
+                }
+            }
+        }
+
+        squares = new int[occupied.size()];
+        colors = new PieceColor[occupied.size()];
+        for (int i = 0; i < squares.length; ++i) {
+            squares[i] = occupied.get(i);
+            colors[i] = rules.getPiece(squares[i] / 10, squares[i] % 10).getPieceColor();
+        }
+    }
+
+    /** Valid moves of every piece on the board, as lists of points. */
+    @Benchmark
+    public int computeValidMovesList() {
+        int total = 0;
+        for (int i = 0; i < squares.length; ++i)
+            total += rules.computeValidMoves(squares[i] / 10, squares[i] % 10, colors[i]).size();
+        return total;
+    }
+
+    /** Valid moves of every piece on the board, into a reused buffer. */
+    @Benchmark
+    public int computeValidMovesBuffer() {
+        int total = 0;
+        for (int i = 0; i < squares.length; ++i)
+            total += rules.computeValidMoves(squares[i] / 10, squares[i] % 10, colors[i], buffer);
+        return total;
+    }
+
+    /** A quiet move and the move back, including the rotation for player one. */
+    @Benchmark
+    public void processMove(Blackhole blackhole) {
+        rules.processMove(forward, moveToPlayerOne, moveToPlayerTwo);
+        rules.processMove(back, moveToPlayerOne, moveToPlayerTwo);
+        blackhole.consume(moveToPlayerOne);
+    }
+
+    /** The move check ServerGameManager makes for both colors after a move. */
+    @Benchmark
+    public boolean hasAvailableMoves() {
+        return rules.hasAvailableMoves(PieceColor.RED) & rules.hasAvailableMoves(PieceColor.BLUE);
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return rules.isValidMove(forward.getStart(), forward.getEnd(), forward.getMoveColor());
+    }
+
+}
@@ -0,0 +1,36 @@
+package edu.asu.stratego.game.pieces;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Attack resolution between every pair of piece types.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceTypeBenchmark {
+
+    private final PieceType[] types = PieceType.values();
+
+    @Benchmark
+    public void attackAllPairs(Blackhole blackhole) {
+        for (PieceType attacker : types)
+            for (PieceType defender : types)
+                blackhole.consume(attacker.attack(defender));
+    }
+
+}
@@ -0,0 +1,119 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import edu.asu.stratego.game.Player;
+
+/**
+ * Load generator for the server modes: opens a number of games and leaves
+ * them idle right after the player exchange, as players thinking over their
+ * setup would. It shows how many idle games a server holds, and what each one
+ * costs, in each mode.
+ *
+ * <pre>
+ * mvn -Pbenchmarks package
+ * java -Xmx128m -jar stratego-server/target/stratego-server.jar virtual &amp;
+ * java -cp stratego-benchmarks/target/benchmarks.jar edu.asu.stratego.net.IdleGamesLoad 7000 localhost 4212 30 $!
+ * </pre>
+ *
+ * <p>
+ * Arguments: number of games, server host (localhost), server port (4212),
+ * seconds to hold the games open once they are all started (30) and,
+ * optionally, the process id of a server on the same Linux machine. With the
+ * process id the server's thread count and resident memory are printed once
+ * the games are open and again before they are closed.
+ * </p>
+ *
+ * <p>
+ * The clients never send a handshake, so the server does not expect
+ * heartbeats from them. The games end on their own when the setup clock runs
+ * out ({@code -Dstratego.clock.setup}, 330 s by default).
+ * </p>
+ */
+public class IdleGamesLoad {
+
+    // Juegos abiertos a la vez antes de esperar a que los empareje el servidor
+    private static final int BATCH = 100;
+
+    /**
+     * Prevents an instance of this class from being instantiated.
+     */
+    private IdleGamesLoad() {
+        /* Intentionally Empty */ }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: IdleGamesLoad <games> [host] [port] [holdSeconds] [serverPid]");
+            System.exit(2);
+        }
+        int games = Integer.parseInt(args[0]);
+        String host = (args.length > 1) ? args[1] : "localhost";
+        int port = (args.length > 2) ? Integer.parseInt(args[2]) : 4212;
+        long holdSeconds = (args.length > 3) ? Long.parseLong(args[3]) : 30;
+        String serverPid = (args.length > 4) ? args[4] : null;
+
+        List<Socket> sockets = new ArrayList<>(2 * games);
+        long begin = System.nanoTime();
+        try {
+            for (int first = 0; first < games; first += BATCH) {
+                int last = Math.min(games, first + BATCH);
+                List<Socket> batch = new ArrayList<>();
+                for (int game = first; game < last; ++game) {
+                    for (int seat = 0; seat < 2; ++seat) {
+                        Socket socket = new Socket(host, port);
+                        batch.add(socket);
+                        Player player = new Player();
+                        player.setNickname("idle" + game + "-" + seat);
+                        player.setEmail("idle" + game + "-" + seat + "@load.test");
+                        new FrameOutputStream(socket.getOutputStream()).writeObject(player);
+                    }
+                }
+                // Each connection gets its opponent once the server pairs it
+                for (Socket socket : batch)
+                    new FrameInputStream(socket.getInputStream()).readObject();
+                sockets.addAll(batch);
+            }
+            System.out.println(games + " idle games started in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + " ms");
+            printServer(serverPid);
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(holdSeconds));
+            printServer(serverPid);
+        } finally {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Nada que hacer, el proceso termina
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the thread count and resident memory of the server process, read
+     * from /proc.
+     */
+    private static void printServer(String pid) throws IOException {
+        if (pid == null)
+            return;
+        Path process = Path.of("/proc", pid);
+        long threads;
+        try (Stream<Path> tasks = Files.list(process.resolve("task"))) {
+            threads = tasks.count();
+        }
+        String rss = Files.readAllLines(process.resolve("status")).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> line.substring("VmRSS:".length()).trim())
+                .findFirst().orElse("unknown");
+        System.out.println("Server " + pid + ": " + threads + " threads, " + rss + " resident");
+    }
+
+}
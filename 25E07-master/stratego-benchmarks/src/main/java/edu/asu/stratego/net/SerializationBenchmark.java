@@ -0,0 +1,64 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.Positions;
+import edu.asu.stratego.game.SetupBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Encoding and decoding round trips of the messages exchanged during a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private Move move;
+    private SetupBoard setup;
+
+    @Setup
+    public void setUp() {
+        move = Positions.move(PieceColor.BLUE, 6, 1, 5, 1);
+        move.setStartPiece(null);
+        move.setEndPiece(new OriginalPiece(PieceType.MINER, PieceColor.BLUE, false));
+        move.setAttackMove(true);
+        move.setAttackWin(true);
+        setup = Positions.randomSetup(PieceColor.RED, new Random(1));
+    }
+
+    @Benchmark
+    public Object moveSerialized() throws IOException, ClassNotFoundException {
+        return Frames.deserialize(Frames.serialize(move));
+    }
+
+    @Benchmark
+    public Object moveBinary() throws IOException {
+        return BinaryProtocol.decode(BinaryProtocol.encode(move));
+    }
+
+    @Benchmark
+    public Object setupBoardSerialized() throws IOException, ClassNotFoundException {
+        return Frames.deserialize(Frames.serialize(setup));
+    }
+
+}
@@ -1,14 +1,18 @@
 package edu.asu.stratego.game;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import edu.asu.stratego.game.pieces.Piece;
 
+import edu.asu.stratego.game.board.ByteBoard;
 import edu.asu.stratego.game.board.ClientSquare;
+import edu.asu.stratego.game.pieces.OriginalPiece;
 import edu.asu.stratego.game.pieces.PieceColor;
 import edu.asu.stratego.game.pieces.PieceType;
 import edu.asu.stratego.gui.BoardScene;
@@ -19,9 +23,15 @@ import edu.asu.stratego.gui.ExitScene;
 import edu.asu.stratego.gui.HistoryScene;
 import edu.asu.stratego.gui.MainMenuScene;
 import edu.asu.stratego.gui.ProfileScene;
+import edu.asu.stratego.gui.board.BoardSquareEventPane;
 import edu.asu.stratego.gui.board.BoardTurnIndicator;
 import edu.asu.stratego.media.ImageConstants;
 import edu.asu.stratego.media.PlaySound;
+import edu.asu.stratego.net.BinaryProtocol;
+import edu.asu.stratego.net.FrameInputStream;
+import edu.asu.stratego.net.FrameOutputStream;
+import edu.asu.stratego.net.ProtocolHello;
+import edu.asu.stratego.net.ResumeToken;
 import edu.asu.stratego.util.AlertUtils;
 import edu.asu.stratego.util.HashTables;
 import edu.asu.stratego.util.HashTables.SoundType;
@@ -34,10 +44,7 @@ import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
-import models.GamePlayer;
-import services.GamePlayerService;
-import services.GameService;
-import services.PlayerService;
+import services.PlayerCache;
 
 import java.awt.Point;
 
@@ -54,8 +61,25 @@ public class ClientGameManager implements Runnable {
     private static Object waitFade = new Object();
     private static Object waitVisible = new Object();
 
-    private ObjectOutputStream toServer;
-    private ObjectInputStream fromServer;
+    private static final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "stratego-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> heartbeat;
+
+    private static final int RESUME_ATTEMPTS = 10;
+    private static final long RESUME_DELAY_MILLIS = 3000;
+
+    // Given by the server when the game starts, to get back to it
+    private ResumeToken resumeToken;
+    // Turn read from the position the server sent on resuming
+    private PieceColor resumedTurn;
+    // Version agreed with the server, 0 without a handshake
+    private int protocolVersion;
+
+    private FrameOutputStream toServer;
+    private FrameInputStream fromServer;
 
     private ClientStage stage;
 
@@ -123,6 +147,7 @@ public class ClientGameManager implements Runnable {
     }
 
     private void closeExistingConnection() {
+        stopHeartbeat();
         try {
             if (fromServer != null) {
                 fromServer.close();
@@ -157,6 +182,7 @@ public class ClientGameManager implements Runnable {
             stage.setWaitingScene();
         });
 
+        stopHeartbeat();
         try {
             if (ClientSocket.getInstance() != null && !ClientSocket.getInstance().isClosed()) {
                 ClientSocket.getInstance().close();
@@ -165,8 +191,9 @@ public class ClientGameManager implements Runnable {
             ClientSocket.connect(Game.getPlayer().getServerIP(), 4212);
 
             // I/O Streams
-            toServer = new ObjectOutputStream(ClientSocket.getInstance().getOutputStream());
-            fromServer = new ObjectInputStream(ClientSocket.getInstance().getInputStream());
+            toServer = new FrameOutputStream(ClientSocket.getInstance().getOutputStream());
+            fromServer = new FrameInputStream(ClientSocket.getInstance().getInputStream());
+            negotiateProtocol();
 
             Game.getPlayer().setColor(null);
             Game.setOpponent(null);
@@ -201,6 +228,53 @@ public class ClientGameManager implements Runnable {
         }
     }
 
+    /**
+     * Offers the binary protocol to the server and switches to it if the
+     * server accepts. Starting the client with
+     * {@code -Dstratego.protocol=serialized} skips the handshake, and every
+     * message is then sent with Java serialization. A server that no longer
+     * serves this version answers with a status and hangs up.
+     */
+    private void negotiateProtocol() throws IOException, ClassNotFoundException {
+        protocolVersion = 0;
+        if ("serialized".equals(System.getProperty("stratego.protocol")))
+            return;
+
+        toServer.writeObject(new ProtocolHello(BinaryProtocol.VERSION));
+        Object reply = fromServer.readObject();
+        if (reply instanceof GameStatus)
+            throw new IOException("The server turned down protocol version " + BinaryProtocol.VERSION);
+        int version = (reply instanceof ProtocolHello) ? ((ProtocolHello) reply).getVersion() : 0;
+        protocolVersion = version;
+        toServer.setBinaryProtocol(version >= 1);
+        logger.info("Binary protocol " + (version >= 1 ? "enabled" : "not supported by the server"));
+        if (version >= BinaryProtocol.HEARTBEAT_VERSION)
+            startHeartbeat(toServer);
+    }
+
+    /**
+     * Lets the server know this client is alive while the player thinks. The
+     * server reaps the sessions of clients that stop sending heartbeats.
+     */
+    private void startHeartbeat(FrameOutputStream out) {
+        stopHeartbeat();
+        heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            try {
+                out.writeHeartbeat();
+            } catch (IOException e) {
+                // El hilo de la partida se entera al leer del servidor
+                logger.log(Level.FINE, "Could not send a heartbeat", e);
+            }
+        }, BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS, BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+
     /**
      * Displays the main menu scene on the JavaFX application thread.
      * The menu provides options for starting a new game, viewing match
@@ -296,12 +370,16 @@ public class ClientGameManager implements Runnable {
                 Game.setStatus(GameStatus.WAITING_OPP);
 
                 // Send initial piece positions to server.
-                SetupBoard initial = new SetupBoard();
-                initial.getPiecePositions();
-                toServer.writeObject(initial);
+                toServer.writeObject(readSetupBoard());
 
-                // Receive opponent's initial piece positions from server.
-                final SetupBoard opponentInitial = (SetupBoard) fromServer.readObject();
+                // Receive opponent's initial piece positions from server, or
+                // the end of the game if the opponent ran out of time.
+                Object received = fromServer.readObject();
+                if (received instanceof GameStatus) {
+                    Game.setStatus((GameStatus) received);
+                    return;
+                }
+                final SetupBoard opponentInitial = (SetupBoard) received;
 
                 // Place the opponent's pieces on the board.
                 Platform.runLater(() -> {
@@ -331,7 +409,23 @@ public class ClientGameManager implements Runnable {
         }
     }
 
+    /**
+     * Store the player's initial piece positions in a SetupBoard.
+     */
+    private static SetupBoard readSetupBoard() {
+        SetupBoard setup = new SetupBoard();
+        for (int row = 6; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col)
+                setup.setPiece(Game.getBoard().getSquare(row, col).getPiece(), row - 6, col);
+        }
+        return setup;
+    }
+
     private void playGame() {
+        if (isTimedOut(Game.getStatus())) {
+            handleGameEnd();
+            return;
+        }
         initializeGameBoard();
         addAbandonButton(); // Añadir el botón de abandono
         Game.setStartTime(LocalDateTime.now());
@@ -354,9 +448,14 @@ public class ClientGameManager implements Runnable {
                     handleGameEnd();
                     return;
                 }
+                // El servidor terminó la partida por tiempo
+                if (Game.getStatus() != GameStatus.IN_PROGRESS)
+                    break;
                 processAttackMove();
                 updateBoardAndGUI();
             } catch (ClassNotFoundException | IOException | InterruptedException e) {
+                if (e instanceof IOException && resumeGame())
+                    continue;
                 logger.log(Level.SEVERE, "Error occurred during the game", e);
                 // Show the error message in the interface
                 Platform.runLater(() -> {
@@ -371,32 +470,40 @@ public class ClientGameManager implements Runnable {
         }
 
         logger.info("Game ended with status: " + Game.getStatus());
-        revealAll();
+        resumeToken = null;
+        revealAll(readFinalPosition());
         handleGameEnd();
     }
 
     private void handleGameEnd() {
+        // El servidor actualiza los puntos: descartar las copias en caché
+        PlayerCache.getInstance().invalidateEmail(Game.getPlayer().getEmail());
+        PlayerCache.getInstance().invalidateEmail(Game.getOpponent().getEmail());
+
         Platform.runLater(() -> {
             String message = "";
-            boolean isWinner = false;
 
             if (Game.getStatus() == GameStatus.RED_CAPTURED ||
                     Game.getStatus() == GameStatus.RED_NO_MOVES) {
                 message = (Game.getPlayer().getColor() == PieceColor.BLUE) ? "¡Has ganado!" : "Has perdido";
-                isWinner = Game.getPlayer().getColor() == PieceColor.BLUE;
             } else if (Game.getStatus() == GameStatus.BLUE_CAPTURED ||
                     Game.getStatus() == GameStatus.BLUE_NO_MOVES) {
                 message = (Game.getPlayer().getColor() == PieceColor.RED) ? "¡Has ganado!" : "Has perdido";
-                isWinner = Game.getPlayer().getColor() == PieceColor.RED;
             } else if (Game.getStatus() == GameStatus.RED_DISCONNECTED ||
                     Game.getStatus() == GameStatus.BLUE_DISCONNECTED) {
                 message = "El oponente ha abandonado la partida";
                 clearLocalBoard();
+            } else if (Game.getStatus() == GameStatus.DISCONNECTED) {
+                message = "Se perdió la conexión con la partida";
+            } else if (Game.getStatus() == GameStatus.RED_TIMED_OUT) {
+                message = (Game.getPlayer().getColor() == PieceColor.BLUE) ? "¡Has ganado! Al oponente se le acabó el tiempo"
+                        : "Se te acabó el tiempo";
+            } else if (Game.getStatus() == GameStatus.BLUE_TIMED_OUT) {
+                message = (Game.getPlayer().getColor() == PieceColor.RED) ? "¡Has ganado! Al oponente se le acabó el tiempo"
+                        : "Se te acabó el tiempo";
             }
 
-            // Guardar la partida en la base de datos
-            saveGameToDatabase(isWinner, Game.getStatus() == GameStatus.RED_DISCONNECTED
-                    || Game.getStatus() == GameStatus.BLUE_DISCONNECTED);
+            // La partida y los puntos los guarda el servidor
 
             AlertUtils.showGameEndAlert(
                     "Fin de la partida",
@@ -414,52 +521,6 @@ public class ClientGameManager implements Runnable {
         });
     }
 
-    // ★ Método nuevo que debes agregar a ClientGameManager ★
-    private void saveGameToDatabase(boolean isWinner, boolean wasAbandoned) {
-        try {
-            GameService gameService = new GameService();
-            PlayerService playerService = new PlayerService();
-            GamePlayerService gamePlayerService = new GamePlayerService();
-
-            // 1. Buscar a los jugadores en la base de datos por su nickname
-            models.Player currentPlayer = playerService.findByNickname(Game.getPlayer().getNickname());
-            models.Player opponentPlayer = playerService.findByNickname(Game.getOpponent().getNickname());
-
-            if (currentPlayer == null || opponentPlayer == null) {
-                logger.warning("No se pudo encontrar uno o ambos jugadores en la BD");
-                return;
-            }
-
-            // 2. Crear y configurar la nueva partida
-            models.Game game = new models.Game();
-            game.setFinished(true);
-            game.setStartTime(Game.getStartTime());
-            game.setEndTime(LocalDateTime.now());
-            game.setWinner(isWinner ? currentPlayer : opponentPlayer);
-            game.setWasAbandoned(wasAbandoned);
-
-            // 3. Guardar la partida
-            gameService.saveGame(game);
-
-            // 4. Crear relaciones entre jugadores y partida
-            GamePlayer currentGP = new GamePlayer();
-            currentGP.setGame(game);
-            currentGP.setPlayer(currentPlayer);
-            currentGP.setRedTeam(Game.getPlayer().getColor() == PieceColor.RED);
-
-            GamePlayer opponentGP = new GamePlayer();
-            opponentGP.setGame(game);
-            opponentGP.setPlayer(opponentPlayer);
-            opponentGP.setRedTeam(Game.getOpponent().getColor() == PieceColor.RED);
-
-            gamePlayerService.saveGamePlayer(currentGP);
-            gamePlayerService.saveGamePlayer(opponentGP);
-
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error al guardar partida en BD", e);
-        }
-    }
-
     /**
      * Limpia visualmente y en memoria el tablero del jugador local.
      */
@@ -529,9 +590,15 @@ public class ClientGameManager implements Runnable {
             BoardScene.getRootPane().getChildren().remove(BoardScene.getSetupPanel());
         });
 
-        // Get game status from the server
+        // Get game status from the server, after the token to resume the
+        // game if the server gives one
         try {
-            Game.setStatus((GameStatus) fromServer.readObject());
+            Object received = fromServer.readObject();
+            if (received instanceof ResumeToken) {
+                resumeToken = (ResumeToken) received;
+                received = fromServer.readObject();
+            }
+            Game.setStatus((GameStatus) received);
         } catch (ClassNotFoundException | IOException e1) {
             logger.log(Level.SEVERE, "Error retrieving game status", e1);
             // Show the error message in the interface
@@ -547,16 +614,14 @@ public class ClientGameManager implements Runnable {
     }
 
     private void handleTurn() throws InterruptedException, ClassNotFoundException, IOException {
-        // Get message from server
-        Object received = fromServer.readObject();
+        // Get message from server, unless the turn came with the position
+        Object received = (resumedTurn != null) ? resumedTurn : fromServer.readObject();
+        resumedTurn = null;
 
-        // Check if it's a game status (like abandon)
+        // Check if it's a game status (abandon or time out)
         if (received instanceof GameStatus) {
-            GameStatus status = (GameStatus) received;
-            if (status == GameStatus.RED_DISCONNECTED || status == GameStatus.BLUE_DISCONNECTED) {
-                Game.setStatus(status);
-                return;
-            }
+            Game.setStatus((GameStatus) received);
+            return;
         }
 
         // Otherwise it should be the turn color
@@ -564,6 +629,7 @@ public class ClientGameManager implements Runnable {
 
         // If the turn is the client's, set move status to none selected
         if (Game.getPlayer().getColor() == Game.getTurn()) {
+            BoardSquareEventPane.computeLegalMoves();
             Game.setMoveStatus(MoveStatus.NONE_SELECTED);
         } else {
             Game.setMoveStatus(MoveStatus.OPP_TURN);
@@ -576,15 +642,18 @@ public class ClientGameManager implements Runnable {
 
         // Send move to the server if it's our turn
         if (Game.getPlayer().getColor() == Game.getTurn() && Game.getMoveStatus() != MoveStatus.SERVER_VALIDATION) {
-            synchronized (sendMove) {
-                sendMove.wait();
-                toServer.writeObject(Game.getMove());
-                Game.setMoveStatus(MoveStatus.SERVER_VALIDATION);
-            }
+            sendSelectedMove();
         }
 
-        // Receive move from the server
+        // Receive move from the server. A rejected move leaves the turn with
+        // us, so the player picks another one.
         received = fromServer.readObject();
+        while (received instanceof MoveRejection) {
+            logger.warning("Move rejected by the server: " + received);
+            Game.setMoveStatus(MoveStatus.NONE_SELECTED);
+            sendSelectedMove();
+            received = fromServer.readObject();
+        }
         if (received instanceof Move) {
             Game.setMove((Move) received);
         } else if (received instanceof GameStatus) {
@@ -592,11 +661,127 @@ public class ClientGameManager implements Runnable {
         }
     }
 
+    /**
+     * Reconnects after losing the connection in the middle of a game and
+     * takes the player's seat back with the resume token. The server answers
+     * with the position, which replaces the board, or with the end of the
+     * game if it did not wait for us.
+     *
+     * @return true if there is a game to go on with, or its end to show.
+     */
+    private boolean resumeGame() {
+        if (resumeToken == null)
+            return false;
+
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS; ++attempt) {
+            try {
+                Thread.sleep(RESUME_DELAY_MILLIS);
+                closeExistingConnection();
+                ClientSocket.connect(Game.getPlayer().getServerIP(), 4212);
+                toServer = new FrameOutputStream(ClientSocket.getInstance().getOutputStream());
+                fromServer = new FrameInputStream(ClientSocket.getInstance().getInputStream());
+                negotiateProtocol();
+                toServer.writeObject(resumeToken);
+
+                Object reply = fromServer.readObject();
+                if (reply instanceof GameStatus) {
+                    Game.setStatus((GameStatus) reply);
+                    return true;
+                }
+                restorePosition((ResumeState) reply);
+                return true;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                logger.log(Level.WARNING, "Could not get back to the game (attempt " + attempt + ")", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the board with the position the server sent on resuming. The
+     * opponent's pieces the player has not seen come without a type.
+     */
+    private void restorePosition(ResumeState state) {
+        ByteBoard position = state.toBoard();
+        PieceColor color = Game.getPlayer().getColor();
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                int square = ByteBoard.square(row, col);
+                Piece piece = null;
+                if (!position.isEmpty(square)) {
+                    PieceColor owner = position.colorAt(square);
+                    piece = new OriginalPiece(position.typeAt(square), owner, owner != color);
+                }
+                Game.getBoard().getSquare(row, col).setPiece(piece);
+            }
+        }
+
+        Platform.runLater(() -> {
+            for (int row = 0; row < 10; ++row) {
+                for (int col = 0; col < 10; ++col) {
+                    ClientSquare square = Game.getBoard().getSquare(row, col);
+                    Piece piece = square.getPiece();
+                    if (piece == null)
+                        square.getPiecePane().setPiece(null);
+                    else if (piece.getPieceColor() == color)
+                        square.getPiecePane().setPiece(HashTables.PIECE_MAP.get(piece.getPieceSpriteKey()));
+                    else if (piece.getPieceColor() == PieceColor.BLUE)
+                        square.getPiecePane().setPiece(ImageConstants.BLUE_BACK);
+                    else
+                        square.getPiecePane().setPiece(ImageConstants.RED_BACK);
+                }
+            }
+        });
+
+        Game.setMove(new Move());
+        resumedTurn = state.getTurn();
+        logger.info("Back in the game after " + state.getMoves() + " moves, " + state.getClockMillis()
+                + " ms left on our clock and " + state.getOpponentClockMillis() + " ms on the opponent's");
+    }
+
+    /**
+     * Waits for the player to pick a move on the board and sends it. Stops
+     * waiting if the server sends something first, which can only be the end
+     * of the game because the player ran out of time.
+     */
+    private void sendSelectedMove() throws InterruptedException, IOException {
+        synchronized (sendMove) {
+            while (Game.getMoveStatus() != MoveStatus.END_SELECTED) {
+                if (fromServer.hasMessage())
+                    return;
+                sendMove.wait(250);
+            }
+            toServer.writeObject(Game.getMove());
+            Game.setMoveStatus(MoveStatus.SERVER_VALIDATION);
+        }
+    }
+
+    private static boolean isTimedOut(GameStatus status) {
+        return status == GameStatus.RED_TIMED_OUT || status == GameStatus.BLUE_TIMED_OUT;
+    }
+
     private void processAttackMove() throws InterruptedException, ClassNotFoundException, IOException {
         Piece startPiece = Game.getMove().getStartPiece();
         Piece endPiece = Game.getMove().getEndPiece();
 
         if (Game.getMove().isAttackMove() == true) {
+            // From protocol version 5 an attack carries both pieces, as the
+            // opponent's setup no longer tells their types; older servers send
+            // only the piece left on the end square
+            if (startPiece != null) {
+                Game.getBoard().getSquare(Game.getMove().getStart().x, Game.getMove().getStart().y)
+                        .setPiece(startPiece);
+                Game.getBoard().getSquare(Game.getMove().getEnd().x, Game.getMove().getEnd().y).setPiece(endPiece);
+                if (Game.getMove().isAttackWin())
+                    endPiece = startPiece;
+                else if (!Game.getMove().isDefendWin())
+                    endPiece = null;
+                startPiece = null;
+            }
+
             Piece attackingPiece = Game.getBoard().getSquare(Game.getMove().getStart().x, Game.getMove().getStart().y)
                     .getPiece();
             if (attackingPiece.getPieceType() == PieceType.SCOUT) {
@@ -817,9 +1002,54 @@ public class ClientGameManager implements Runnable {
         return receiveMove;
     }
 
-    private void revealAll() {
+    /**
+     * Reads the whole board, which the server sends after the final status
+     * from protocol version 5 on. There is none if the game was abandoned.
+     *
+     * @return the final position, or null if the server sent none.
+     */
+    private ResumeState readFinalPosition() {
+        if (protocolVersion < BinaryProtocol.FOG_VERSION)
+            return null;
+        try {
+            Object message = fromServer.readObject();
+            if (message instanceof ResumeState)
+                return (ResumeState) message;
+            logger.warning("Expected the final board, got " + message);
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.FINE, "The server sent no final board", e);
+        }
+        return null;
+    }
+
+    private void revealAll(ResumeState finalPosition) {
         // End game, reveal all pieces
         PlaySound.playEffect(SoundType.WIN, 100);
+        if (finalPosition != null) {
+            // The last move has not been drawn: take every square from the server
+            ByteBoard position = finalPosition.toBoard();
+            for (int row = 0; row < 10; ++row) {
+                for (int col = 0; col < 10; ++col) {
+                    int square = ByteBoard.square(row, col);
+                    Piece piece = null;
+                    if (!position.isEmpty(square))
+                        piece = new OriginalPiece(position.typeAt(square), position.colorAt(square),
+                                position.isHidden(square));
+                    Game.getBoard().getSquare(row, col).setPiece(piece);
+                }
+            }
+            Platform.runLater(() -> {
+                for (int row = 0; row < 10; ++row) {
+                    for (int col = 0; col < 10; ++col) {
+                        ClientSquare square = Game.getBoard().getSquare(row, col);
+                        Piece piece = square.getPiece();
+                        square.getPiecePane().setPiece(
+                                (piece == null) ? null : HashTables.PIECE_MAP.get(piece.getPieceSpriteKey()));
+                    }
+                }
+            });
+            return;
+        }
         Platform.runLater(() -> {
             for (int row = 0; row < 10; row++) {
                 for (int col = 0; col < 10; col++) {
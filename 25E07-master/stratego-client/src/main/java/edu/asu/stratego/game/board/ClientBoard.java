@@ -46,6 +46,19 @@ public class ClientBoard {
         return squares[row][col];
     }
 
+    /**
+     * Copies the pieces into a compact board for the rules kernel.
+     * 
+     * @param position the board to overwrite
+     */
+    public void copyTo(ByteBoard position) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                position.set(ByteBoard.square(row, col), squares[row][col].getPiece());
+            }
+        }
+    }
+
     /**
      * @return the BoardPane.
      */
@@ -5,6 +5,7 @@ import java.io.IOException;
 import edu.asu.stratego.game.ClientSocket;
 import edu.asu.stratego.game.Game;
 import edu.asu.stratego.media.ImageConstants;
+import edu.asu.stratego.util.DataService;
 import javafx.application.Platform;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
@@ -143,18 +144,31 @@ public class ConnectionScene {
             if (serverIP.equals(""))
                 serverIP = "localhost";
 
-            // Authenticate user
-            PlayerService service = new PlayerService();
-            models.Player player = service.findByEmailAndPassword(email, password);
-            if (player != null) {
-                Game.getPlayer().setNickname(player.getNickname());
-                Game.getPlayer().setEmail(player.getEmail());
-                statusLabel.setText("Welcome " + player.getNickname() + "!");
-            } else {
-                statusLabel.setText("Invalid credentials");
-                return;
-            }
+            // Authenticate user without blocking the interface
+            loginButton.setDisable(true);
+            String login = email;
+            String secret = password;
+            DataService.load(() -> new PlayerService().findByEmailAndPassword(login, secret), player -> {
+                if (player != null) {
+                    Game.getPlayer().setNickname(player.getNickname());
+                    Game.getPlayer().setEmail(player.getEmail());
+                    Game.getPlayer().setPoints(player.getPoints());
+                    statusLabel.setText("Welcome " + player.getNickname() + "!");
+                    connect();
+                } else {
+                    statusLabel.setText("Invalid credentials");
+                    loginButton.setDisable(false);
+                }
+            }, e -> {
+                statusLabel.setText("Database unavailable. Please try again.");
+                loginButton.setDisable(false);
+            });
+        }
 
+        /**
+         * Hands the login over to the connection thread and waits for it.
+         */
+        private void connect() {
             // Disable inputs during connection
             emailField.setEditable(false);
             passwordField.setEditable(false);
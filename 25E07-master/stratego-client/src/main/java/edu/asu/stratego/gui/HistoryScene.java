@@ -5,7 +5,7 @@ import edu.asu.stratego.game.ResourceBundleManager;
 import edu.asu.stratego.languages.LanguageObservable;
 import edu.asu.stratego.languages.LanguageObserver;
 import edu.asu.stratego.media.ImageConstants;
-import javafx.application.Platform;
+import edu.asu.stratego.util.DataService;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -17,14 +17,18 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import models.Player;
+import services.GameHistoryEntry;
 import services.GameService;
 import services.PlayerService;
 
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HistoryScene implements LanguageObserver {
 
@@ -38,7 +42,15 @@ public class HistoryScene implements LanguageObserver {
 
     private static final int SIDE = ClientStage.getSide();
 
-    private List<models.Game> games;
+    private final GameService gameService = new GameService();
+    private Long playerId;
+    private List<GameHistoryEntry> games = List.of();
+    // Last entry of the page before each page; the first page starts at null
+    private final List<GameHistoryEntry> pageStarts = new ArrayList<>();
+    // Pages requested so far, including the prefetched next page
+    private final Map<Integer, CompletableFuture<List<GameHistoryEntry>>> pages = new ConcurrentHashMap<>();
+    private CompletableFuture<Void> pending;
+    private boolean hasNextPage;
     private int currentPage = 0;
     private static final int PAGE_SIZE = 4;
 
@@ -74,19 +86,20 @@ public class HistoryScene implements LanguageObserver {
         root.setMaxSize(SIDE, SIDE);
         this.scene = new Scene(root, SIDE, SIDE);
 
-        backButton.setOnAction(e -> onBack.run());
+        backButton.setOnAction(e -> {
+            cancelLoading();
+            onBack.run();
+        });
 
         prevButton.setOnAction(e -> {
             if (currentPage > 0) {
-                currentPage--;
-                showPage(currentPage);
+                showPage(currentPage - 1);
             }
         });
 
         nextButton.setOnAction(e -> {
-            if ((currentPage + 1) * PAGE_SIZE < games.size()) {
-                currentPage++;
-                showPage(currentPage);
+            if (hasNextPage) {
+                showPage(currentPage + 1);
             }
         });
 
@@ -111,50 +124,90 @@ public class HistoryScene implements LanguageObserver {
     }
 
     private void loadGamesHistory() {
-        PlayerService playerService = new PlayerService();
-        GameService gameService = new GameService();
+        prevButton.setDisable(true);
+        nextButton.setDisable(true);
 
         String nickname = Game.getPlayer().getNickname();
-        Player dbPlayer = playerService.findByNickname(nickname);
+        pending = DataService.load(() -> new PlayerService().findByNickname(nickname), dbPlayer -> {
+            if (dbPlayer == null)
+                return;
+
+            playerId = dbPlayer.getId();
+            pageStarts.clear();
+            pageStarts.add(null);
+            showPage(0);
+        });
+    }
 
-        if (dbPlayer == null)
-            return;
+    /**
+     * Reads one page of the history in the background, unless it was already
+     * requested. One extra entry is asked for to know whether there is a
+     * next page.
+     */
+    private CompletableFuture<List<GameHistoryEntry>> loadPage(int page) {
+        GameHistoryEntry after = pageStarts.get(page);
+        return pages.computeIfAbsent(page, p -> {
+            CompletableFuture<List<GameHistoryEntry>> entries = DataService
+                    .supply(() -> gameService.findHistory(playerId, after, PAGE_SIZE + 1));
+            // A failed page is asked again next time
+            entries.whenComplete((result, e) -> {
+                if (e != null) {
+                    pages.remove(p, entries);
+                }
+            });
+            return entries;
+        });
+    }
 
-        games = gameService.findGamesByPlayerNickname(nickname);
+    private void showPage(int page) {
+        prevButton.setDisable(true);
+        nextButton.setDisable(true);
 
-        currentPage = 0;
+        pending = DataService.onFxThread(loadPage(page), entries -> {
+            currentPage = page;
+            hasNextPage = entries.size() > PAGE_SIZE;
+            games = hasNextPage ? entries.subList(0, PAGE_SIZE) : entries;
 
-        Platform.runLater(() -> {
+            gamesContainer.getChildren().clear();
             if (games.isEmpty()) {
-                gamesContainer.getChildren().clear();
                 Label noGamesLabel = new Label(ResourceBundleManager.get("history.nogames"));
                 noGamesLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: white;");
                 gamesContainer.getChildren().add(noGamesLabel);
-                prevButton.setDisable(true);
-                nextButton.setDisable(true);
-            } else {
-                showPage(currentPage);
             }
-        });
-    }
-
-    private void showPage(int page) {
-        gamesContainer.getChildren().clear();
+            for (GameHistoryEntry game : games) {
+                gamesContainer.getChildren().add(createGameCard(game));
+            }
 
-        int start = page * PAGE_SIZE;
-        int end = Math.min(start + PAGE_SIZE, games.size());
+            prevButton.setDisable(page == 0);
+            nextButton.setDisable(!hasNextPage);
 
-        Player dbPlayer = new PlayerService().findByNickname(Game.getPlayer().getNickname());
+            // Prefetch the next page while this one is being read
+            if (hasNextPage) {
+                if (pageStarts.size() == page + 1) {
+                    pageStarts.add(games.get(games.size() - 1));
+                }
+                loadPage(page + 1);
+            }
+        }, e -> {
+            prevButton.setDisable(currentPage == 0);
+            nextButton.setDisable(!hasNextPage);
+        });
+    }
 
-        for (int i = start; i < end; i++) {
-            gamesContainer.getChildren().add(createGameCard(games.get(i), dbPlayer));
+    /**
+     * Drops the pages still loading when the user leaves the history.
+     */
+    private void cancelLoading() {
+        if (pending != null) {
+            pending.cancel(false);
         }
-
-        prevButton.setDisable(page == 0);
-        nextButton.setDisable(end >= games.size());
+        for (CompletableFuture<List<GameHistoryEntry>> page : pages.values()) {
+            page.cancel(false);
+        }
+        pages.clear();
     }
 
-    private HBox createGameCard(models.Game game, Player player) {
+    private HBox createGameCard(GameHistoryEntry game) {
         HBox card = new HBox(20);
         card.setStyle("-fx-background-color: rgba(0, 0, 0, 0.5); -fx-padding: 15; -fx-background-radius: 10;");
         card.setAlignment(Pos.CENTER_LEFT);
@@ -167,13 +220,13 @@ public class HistoryScene implements LanguageObserver {
 
         Label resultLabel = new Label();
         resultLabel.setFont(Font.font(16));
-        if (game.isWasAbandoned()) {
+        if (game.isAbandoned()) {
             resultLabel.setText(ResourceBundleManager.get("history.abandoned"));
             resultLabel.setTextFill(Color.GOLD);
-        } else if (game.getWinner() == null) {
+        } else if (game.getResult() == GameHistoryEntry.Result.FINISHED) {
             resultLabel.setText(ResourceBundleManager.get("history.finished"));
             resultLabel.setTextFill(Color.LIGHTGRAY);
-        } else if (game.getWinner().getId().equals(player.getId())) {
+        } else if (game.getResult() == GameHistoryEntry.Result.WON) {
             resultLabel.setText(ResourceBundleManager.get("history.won"));
             resultLabel.setTextFill(Color.LIGHTGREEN);
         } else {
@@ -181,7 +234,7 @@ public class HistoryScene implements LanguageObserver {
             resultLabel.setTextFill(Color.INDIANRED);
         }
 
-        Duration duration = Duration.between(game.getStartTime(), game.getEndTime());
+        Duration duration = game.getDuration();
         long minutes = duration.toMinutes();
         long seconds = duration.minusMinutes(minutes).getSeconds();
 
@@ -199,6 +252,13 @@ public class HistoryScene implements LanguageObserver {
         durationLabel.setTextFill(Color.LIGHTGRAY);
 
         card.getChildren().addAll(dateLabel, resultLabel, durationLabel);
+
+        if (game.getOpponentNickname() != null) {
+            Label opponentLabel = new Label("vs. " + game.getOpponentNickname());
+            opponentLabel.setFont(Font.font(14));
+            opponentLabel.setTextFill(Color.WHITE);
+            card.getChildren().add(opponentLabel);
+        }
         return card;
     }
 }
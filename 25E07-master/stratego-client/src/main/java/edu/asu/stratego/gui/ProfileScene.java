@@ -5,6 +5,7 @@ import edu.asu.stratego.game.ResourceBundleManager;
 import edu.asu.stratego.languages.LanguageObservable;
 import edu.asu.stratego.languages.LanguageObserver;
 import edu.asu.stratego.media.ImageConstants;
+import edu.asu.stratego.util.DataService;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -12,8 +13,11 @@ import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import services.LeaderboardService;
 import services.PlayerService;
 
+import java.util.concurrent.CompletableFuture;
+
 public class ProfileScene implements LanguageObserver {
 
     private final Scene scene;
@@ -21,7 +25,12 @@ public class ProfileScene implements LanguageObserver {
     private final Label nicknameLabel = new Label();
     private final Label emailLabel = new Label();
     private final Label pointsLabel = new Label();
+    private final Label positionLabel = new Label();
     private final Label titleLabel = new Label();
+    private CompletableFuture<Void> refresh;
+    private CompletableFuture<Void> position;
+    // Posición en el último ranking guardado por el servidor, 0 si no aparece
+    private int rank;
 
     private static final int SIDE = ClientStage.getSide();
 
@@ -33,14 +42,19 @@ public class ProfileScene implements LanguageObserver {
         nicknameLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: white;");
         emailLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: white;");
         pointsLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: white;");
+        positionLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: white;");
         backButton.setStyle("-fx-font-size: 16px;");
         backButton.setPrefWidth(180);
         backButton.setPrefHeight(40);
-        backButton.setOnAction(e -> onBackAction.run());
+        backButton.setOnAction(e -> {
+            refresh.cancel(false);
+            position.cancel(false);
+            onBackAction.run();
+        });
 
         updateTexts();
 
-        VBox content = new VBox(15, titleLabel, nicknameLabel, emailLabel, pointsLabel, backButton);
+        VBox content = new VBox(15, titleLabel, nicknameLabel, emailLabel, pointsLabel, positionLabel, backButton);
         content.setAlignment(Pos.CENTER);
 
         ImageView background = new ImageView(ImageConstants.MAIN_MENU);
@@ -50,6 +64,25 @@ public class ProfileScene implements LanguageObserver {
 
         StackPane root = new StackPane(background, content);
         scene = new Scene(root, SIDE, SIDE);
+
+        // 🔄 Recargar los datos desde la base de datos para asegurar que están
+        // actualizados, sin bloquear la interfaz
+        String email = Game.getPlayer().getEmail();
+        refresh = DataService.load(() -> new PlayerService().findByEmail(email), updatedPlayer -> {
+            if (updatedPlayer != null) {
+                // Convert models.Player to edu.asu.stratego.game.Player
+                edu.asu.stratego.game.Player convertedPlayer = new edu.asu.stratego.game.Player();
+                convertedPlayer.setNickname(updatedPlayer.getNickname());
+                convertedPlayer.setEmail(updatedPlayer.getEmail());
+                convertedPlayer.setPoints(updatedPlayer.getPoints());
+                Game.setPlayer(convertedPlayer); // 👈 Actualizamos el objeto en memoria
+                updateTexts();
+            }
+        });
+        position = DataService.load(() -> new LeaderboardService().findPosition(email), found -> {
+            rank = found;
+            updateTexts();
+        });
     }
 
     @Override
@@ -58,18 +91,6 @@ public class ProfileScene implements LanguageObserver {
     }
 
     private void updateTexts() {
-        // 🔄 Recargar los datos desde la base de datos para asegurar que están
-        // actualizados
-        PlayerService service = new PlayerService();
-        models.Player updatedPlayer = service.findByEmail(Game.getPlayer().getEmail());
-        if (updatedPlayer != null) {
-            // Convert models.Player to edu.asu.stratego.game.Player
-            edu.asu.stratego.game.Player convertedPlayer = new edu.asu.stratego.game.Player();
-            convertedPlayer.setNickname(updatedPlayer.getNickname());
-            convertedPlayer.setEmail(updatedPlayer.getEmail());
-            convertedPlayer.setPoints(updatedPlayer.getPoints());
-            Game.setPlayer(convertedPlayer); // 👈 Actualizamos el objeto en memoria
-        }
         String nickname = Game.getPlayer().getNickname();
         String email = Game.getPlayer().getEmail();
         Integer points = Game.getPlayer().getPoints();
@@ -78,6 +99,8 @@ public class ProfileScene implements LanguageObserver {
         nicknameLabel.setText(ResourceBundleManager.get("profile.nickname") + ": " + nickname);
         emailLabel.setText(ResourceBundleManager.get("profile.email") + ": " + email);
         pointsLabel.setText(ResourceBundleManager.get("profile.points") + ": " + points);
+        positionLabel.setText(ResourceBundleManager.get("profile.position") + ": "
+                + ((rank > 0) ? "#" + rank : ResourceBundleManager.get("profile.unranked")));
         backButton.setText(ResourceBundleManager.get("menu.back"));
     }
 
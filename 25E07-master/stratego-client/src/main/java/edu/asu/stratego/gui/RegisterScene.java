@@ -1,6 +1,7 @@
 package edu.asu.stratego.gui;
 
 import edu.asu.stratego.media.ImageConstants;
+import edu.asu.stratego.util.DataService;
 import javafx.application.Platform;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
@@ -109,49 +110,30 @@ public class RegisterScene {
 
         // Register button action
         registerBtn.setOnAction(e -> {
-            PlayerService service = new PlayerService();
-
             String nick = nicknameField.getText();
             String mail = emailField.getText();
             String pass = passwordField.getText();
 
-            // Input validation
-            if (nick.isBlank()) {
-                statusLabel.setText("The nickname cannot be empty");
-                return;
-            }
-            if (service.findByNickname(nick) != null) {
-                statusLabel.setText("The nickname is already in use");
-                return;
-            }
-            if (pass.length() <= 5) {
-                statusLabel.setText("Password must be more than 5 characters long");
-                return;
-            }
-            if (service.findByEmail(mail) != null) {
-                statusLabel.setText("The email is already in use");
-                return;
-            }
-            if (!mail.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.(com|es|edu|org)$")) {
-                statusLabel.setText("The email is not in a valid format");
-                return;
-            }
-
-            // Create and persist new player
-            models.Player p = new models.Player();
-
-            p.setNickname(nick);
-            p.setEmail(mail);
-            p.setPassword(pass);
-
-            service.savePlayer(p);
-            statusLabel.setText("Successfully registered user");
-
-            // After a short delay, redirect to login screen
-            Platform.runLater(() -> {
-                ConnectionScene connectionScene = new ConnectionScene();
-                Stage stage = (Stage) loginBtn.getScene().getWindow();
-                stage.setScene(connectionScene.getScene());
+            // The checks and the insert hit the database: run them in the
+            // background and show the outcome when they are done
+            registerBtn.setDisable(true);
+            DataService.load(() -> register(nick, mail, pass), error -> {
+                registerBtn.setDisable(false);
+                if (error != null) {
+                    statusLabel.setText(error);
+                    return;
+                }
+                statusLabel.setText("Successfully registered user");
+
+                // After a short delay, redirect to login screen
+                Platform.runLater(() -> {
+                    ConnectionScene connectionScene = new ConnectionScene();
+                    Stage stage = (Stage) loginBtn.getScene().getWindow();
+                    stage.setScene(connectionScene.getScene());
+                });
+            }, ex -> {
+                registerBtn.setDisable(false);
+                statusLabel.setText("Database unavailable. Please try again.");
             });
         });
 
@@ -163,6 +145,43 @@ public class RegisterScene {
         });
     }
 
+    /**
+     * Validates the new player and saves it.
+     * 
+     * @return the message to show if the player cannot be registered, or null
+     *         if it was saved.
+     */
+    private static String register(String nick, String mail, String pass) {
+        PlayerService service = new PlayerService();
+
+        // Input validation
+        if (nick.isBlank()) {
+            return "The nickname cannot be empty";
+        }
+        if (service.findByNickname(nick) != null) {
+            return "The nickname is already in use";
+        }
+        if (pass.length() <= 5) {
+            return "Password must be more than 5 characters long";
+        }
+        if (service.findByEmail(mail) != null) {
+            return "The email is already in use";
+        }
+        if (!mail.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.(com|es|edu|org)$")) {
+            return "The email is not in a valid format";
+        }
+
+        // Create and persist new player
+        models.Player p = new models.Player();
+
+        p.setNickname(nick);
+        p.setEmail(mail);
+        p.setPassword(pass);
+
+        service.savePlayer(p);
+        return null;
+    }
+
     /**
      * Returns the JavaFX scene for the registration screen.
      * 
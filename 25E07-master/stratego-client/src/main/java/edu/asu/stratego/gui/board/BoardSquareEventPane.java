@@ -1,12 +1,10 @@
 package edu.asu.stratego.gui.board;
 
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 import javafx.event.EventHandler;
 import javafx.scene.Node;
-import javafx.scene.effect.Glow;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
@@ -15,6 +13,9 @@ import edu.asu.stratego.game.ClientGameManager;
 import edu.asu.stratego.game.Game;
 import edu.asu.stratego.game.GameStatus;
 import edu.asu.stratego.game.MoveStatus;
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.gameRules.LegalMoves;
+import edu.asu.stratego.game.gameRules.RulesKernel;
 import edu.asu.stratego.game.pieces.OriginalPieceFactory;
 import edu.asu.stratego.game.pieces.Piece;
 import edu.asu.stratego.game.board.ClientSquare;
@@ -30,13 +31,20 @@ import edu.asu.stratego.game.pieces.PieceFactory;
  */
 public class BoardSquareEventPane extends GridPane {
 
-    private static ArrayList<Point> validMoves;
+    // Moves of the player for the current turn, replaced as a whole by the
+    // game thread so the FX thread never sees a half-built table
+    private static volatile LegalMoves legalMoves = new LegalMoves();
+    private static final ByteBoard position = new ByteBoard();
+
+    // Square of the selected piece, or -1
+    private static int selected = -1;
+
+    private static final MoveHighlighter highlights = new MoveHighlighter();
+
     private ImageView hover;
 
-    // Constants for board size and move limits
+    // Constants for board size
     private static final int BOARD_SIZE = 10;
-    private static final int SCOUT_MOVE_RANGE = 8;
-    private static final int REGULAR_MOVE_RANGE = 1;
 
     private SetupPanel setupPanel;
 
@@ -96,8 +104,11 @@ public class BoardSquareEventPane extends GridPane {
         @Override
         public void handle(MouseEvent e) {
             ImageView hover = (ImageView) e.getSource();
-            // Reset hover image to none regardless of game state
-            hover.setImage(ImageConstants.HIGHLIGHT_NONE);
+            int row = GridPane.getRowIndex(hover);
+            int col = GridPane.getColumnIndex(hover);
+
+            // Put back whatever the selection highlights on this square
+            hover.setImage(highlights.restingImage(ByteBoard.square(row, col)));
         }
     }
 
@@ -212,12 +223,12 @@ public class BoardSquareEventPane extends GridPane {
             // Update the movestatus to reflect a start has been selected
             Game.setMoveStatus(MoveStatus.START_SELECTED);
 
-            // Calculate and display the valid moves upon selecting the piece
-            validMoves = computeValidMoves(row, col);
+            // Display the valid moves upon selecting the piece
+            selected = ByteBoard.square(row, col);
             displayValidMoves(row, col);
         }
         // If a start piece has already been selected, but user is changing start piece
-        else if (moveStatus == MoveStatus.START_SELECTED && !isNullPiece(row, col)) {
+        else if (moveStatus == MoveStatus.START_SELECTED && legalMoves.hasMoves(ByteBoard.square(row, col))) {
             Piece highlightPiece = Game.getBoard().getSquare(row, col).getPiece();
             if (highlightPiece.getPieceColor() == playerColor) {
                 Game.getMove().setStart(row, col);
@@ -225,15 +236,15 @@ public class BoardSquareEventPane extends GridPane {
                 // Backup opacity check to fix rare race condition
                 Game.getBoard().getSquare(row, col).getPiecePane().getPiece().setOpacity(1.0);
 
-                // Calculate and display the valid moves upon selecting the piece
-                validMoves = computeValidMoves(row, col);
+                // Display the valid moves upon selecting the piece
+                selected = ByteBoard.square(row, col);
                 displayValidMoves(row, col);
             }
         }
 
         // If a valid move is selected as the endpoint
         if (moveStatus == MoveStatus.START_SELECTED && isValidMove(row, col)) {
-            clearAllHighlights();
+            highlights.clear();
 
             // Set the end location and color in the move
             Game.getMove().setEnd(row, col);
@@ -249,155 +260,31 @@ public class BoardSquareEventPane extends GridPane {
     }
 
     /**
-     * Clear all highlights from the board
+     * Lists the player's legal moves for the turn that is starting, with the
+     * shared {@link RulesKernel}. Called by the game thread before the player
+     * can select a piece; selecting a piece and picking its destination then
+     * only read the table.
      */
-    private void clearAllHighlights() {
-        for (int rowClear = 0; rowClear < BOARD_SIZE; ++rowClear) {
-            for (int colClear = 0; colClear < BOARD_SIZE; ++colClear) {
-                Game.getBoard().getSquare(rowClear, colClear).getEventPane().getHover()
-                        .setImage(ImageConstants.HIGHLIGHT_NONE);
-                Game.getBoard().getSquare(rowClear, colClear).getEventPane().getHover().setOpacity(1.0);
-            }
-        }
+    public static void computeLegalMoves() {
+        Game.getBoard().copyTo(position);
+        LegalMoves moves = new LegalMoves();
+        moves.compute(position, Game.getPlayer().getColor());
+        legalMoves = moves;
     }
 
     /**
-     * Checks if a square is a valid move destination
+     * Checks if a square is a valid move destination for the selected piece
      */
     public boolean isValidMove(int row, int col) {
-        // Iterate through validMoves arraylist and check if a square is a valid move
-        if (validMoves != null && !validMoves.isEmpty()) {
-            for (Point validPoint : validMoves) {
-                if (row == validPoint.getX() && col == validPoint.getY())
-                    return true;
-            }
-        }
-        return false;
+        return selected >= 0 && legalMoves.contains(selected, ByteBoard.square(row, col));
     }
 
     /**
-     * Highlights the selected piece and its valid moves
+     * Highlights the selected piece and its valid moves, repainting only the
+     * squares that differ from the previous selection.
      */
     private void displayValidMoves(int pieceRow, int pieceCol) {
-        // Iterate through and unhighlight/unglow all squares/pieces
-        clearAllHighlightsAndEffects();
-
-        // Glow and set a white highlight around the selected piece
-        Game.getBoard().getSquare(pieceRow, pieceCol).getPiecePane().getPiece().setEffect(new Glow(0.75));
-        Game.getBoard().getSquare(pieceRow, pieceCol).getEventPane().getHover()
-                .setImage(ImageConstants.HIGHLIGHT_WHITE);
-
-        // Iterate through all valid moves and highlight respective squares
-        for (Point validMove : validMoves) {
-            int x = (int) validMove.getX();
-            int y = (int) validMove.getY();
-            Game.getBoard().getSquare(x, y).getEventPane().getHover().setImage(ImageConstants.HIGHLIGHT_VALID);
-            Game.getBoard().getSquare(x, y).getEventPane().getHover().setOpacity(0.5);
-        }
-    }
-
-    /**
-     * Clears all highlights and glow effects from the board
-     */
-    private void clearAllHighlightsAndEffects() {
-        for (int row = 0; row < BOARD_SIZE; ++row) {
-            for (int col = 0; col < BOARD_SIZE; ++col) {
-                Game.getBoard().getSquare(row, col).getEventPane().getHover().setImage(ImageConstants.HIGHLIGHT_NONE);
-                Game.getBoard().getSquare(row, col).getEventPane().getHover().setOpacity(1.0);
-                Game.getBoard().getSquare(row, col).getPiecePane().getPiece().setEffect(new Glow(0.0));
-            }
-        }
-    }
-
-    /**
-     * Computes all valid moves for a piece at the given position
-     */
-    private ArrayList<Point> computeValidMoves(int row, int col) {
-        Piece piece = Game.getBoard().getSquare(row, col).getPiece();
-        PieceType pieceType = piece.getPieceType();
-
-        // Return empty list for immobile pieces
-        if (pieceType == PieceType.BOMB || pieceType == PieceType.FLAG) {
-            return new ArrayList<>();
-        }
-
-        // Set the max distance based on piece type
-        int max = (pieceType == PieceType.SCOUT) ? SCOUT_MOVE_RANGE : REGULAR_MOVE_RANGE;
-
-        ArrayList<Point> validMoves = new ArrayList<>();
-
-        // Check in all four directions
-        checkDirection(row, col, -1, 0, max, validMoves); // UP
-        checkDirection(row, col, 0, 1, max, validMoves); // RIGHT
-        checkDirection(row, col, 1, 0, max, validMoves); // DOWN
-        checkDirection(row, col, 0, -1, max, validMoves); // LEFT
-
-        return validMoves;
-    }
-
-    /**
-     * Helper method to check for valid moves in a specific direction
-     */
-    private void checkDirection(int startRow, int startCol, int rowDelta, int colDelta, int maxDistance,
-            ArrayList<Point> validMoves) {
-        for (int i = 1; i <= maxDistance; i++) {
-            int newRow = startRow + (i * rowDelta);
-            int newCol = startCol + (i * colDelta);
-
-            // Check if position is in bounds
-            if (!isInBounds(newRow, newCol)) {
-                break;
-            }
-
-            // Check if the square is a lake
-            if (isLake(newRow, newCol)) {
-                break;
-            }
-
-            // Check if square has a friendly piece (blocking movement)
-            if (!isNullPiece(newRow, newCol) && !isOpponentPiece(newRow, newCol)) {
-                break;
-            }
-
-            // Valid empty square or opponent piece
-            validMoves.add(new Point(newRow, newCol));
-
-            // Stop after capturing a piece
-            if (!isNullPiece(newRow, newCol) && isOpponentPiece(newRow, newCol)) {
-                break;
-            }
-        }
-    }
-
-    /**
-     * Returns true if the given square is a lake
-     */
-    private static boolean isLake(int row, int col) {
-        if ((col == 2 || col == 3 || col == 6 || col == 7) && (row == 4 || row == 5)) {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Returns false if the given square is outside of the board
-     */
-    private static boolean isInBounds(int row, int col) {
-        return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
-    }
-
-    /**
-     * Returns true if the piece is the opponent (from the client's perspective)
-     */
-    private static boolean isOpponentPiece(int row, int col) {
-        return Game.getBoard().getSquare(row, col).getPiece().getPieceColor() != Game.getPlayer().getColor();
-    }
-
-    /**
-     * Returns true if the piece is null
-     */
-    private static boolean isNullPiece(int row, int col) {
-        return Game.getBoard().getSquare(row, col).getPiece() == null;
+        highlights.show(legalMoves, ByteBoard.square(pieceRow, pieceCol));
     }
 
     /**
@@ -463,12 +350,11 @@ public class BoardSquareEventPane extends GridPane {
      * @return true if the square is valid, false otherwise
      */
     private boolean isHoverValid(int row, int col) {
-        PieceColor playerColor = Game.getPlayer().getColor();
         GameStatus gameStatus = Game.getStatus();
         MoveStatus moveStatus = Game.getMoveStatus();
 
         // Lakes are always invalid.
-        if (isLake(row, col)) {
+        if (RulesKernel.isLake(row, col)) {
             return false;
         }
 
@@ -487,9 +373,8 @@ public class BoardSquareEventPane extends GridPane {
 
             // Player is selecting first piece to move
             if (moveStatus == MoveStatus.NONE_SELECTED) {
-                // Must select a non-null piece of player's color
-                Piece piece = Game.getBoard().getSquare(row, col).getPiece();
-                return piece != null && piece.getPieceColor() == playerColor;
+                // Must select one of the player's pieces that can move
+                return legalMoves.hasMoves(ByteBoard.square(row, col));
             }
         }
 
@@ -0,0 +1,117 @@
+package edu.asu.stratego.gui.board;
+
+import javafx.scene.effect.Glow;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import edu.asu.stratego.game.Game;
+import edu.asu.stratego.game.board.ClientBoard;
+import edu.asu.stratego.game.board.ClientSquare;
+import edu.asu.stratego.game.gameRules.LegalMoves;
+import edu.asu.stratego.media.ImageConstants;
+
+/**
+ * Draws the selected piece and its destinations on the board.
+ *
+ * <p>
+ * The highlighter remembers what it drew, the destinations as a 100 bit mask
+ * and the glowing piece, and when the selection changes it only repaints the
+ * squares whose highlight is different. Used from the FX thread only.
+ * </p>
+ */
+final class MoveHighlighter {
+
+    private static final int BOARD_SIZE = 10;
+
+    private static final Glow SELECTED_GLOW = new Glow(0.75);
+
+    // Highlighted destinations, squares 0-63 in lo and 64-99 in hi
+    private long shownLo;
+    private long shownHi;
+
+    // Square of the glowing piece, or -1
+    private int glowing = -1;
+
+    // Board the state above belongs to; a new game brings a new board
+    private ClientBoard board;
+
+    /**
+     * Highlights a piece and the squares it can move to.
+     *
+     * @param moves the player's moves for this turn.
+     * @param from  square of the selected piece, as {@code row * 10 + col}.
+     */
+    void show(LegalMoves moves, int from) {
+        forgetStaleBoard();
+        if (glowing != from) {
+            unglow();
+            ClientSquare square = square(from);
+            square.getPiecePane().getPiece().setEffect(SELECTED_GLOW);
+            square.getEventPane().getHover().setImage(ImageConstants.HIGHLIGHT_WHITE);
+            glowing = from;
+        }
+        repaint(moves.getTargetsLo(from), moves.getTargetsHi(from));
+    }
+
+    /**
+     * Removes every highlight and the glow.
+     */
+    void clear() {
+        forgetStaleBoard();
+        unglow();
+        repaint(0, 0);
+    }
+
+    /**
+     * @param square a board square, as {@code row * 10 + col}.
+     * @return the image the square shows when the cursor is not on it.
+     */
+    Image restingImage(int square) {
+        if (board != Game.getBoard())
+            return ImageConstants.HIGHLIGHT_NONE;
+        if (square == glowing)
+            return ImageConstants.HIGHLIGHT_WHITE;
+        return isShown(square) ? ImageConstants.HIGHLIGHT_VALID : ImageConstants.HIGHLIGHT_NONE;
+    }
+
+    private void unglow() {
+        if (glowing < 0)
+            return;
+        ClientSquare square = square(glowing);
+        square.getPiecePane().getPiece().setEffect(null);
+        square.getEventPane().getHover().setImage(ImageConstants.HIGHLIGHT_NONE);
+        glowing = -1;
+    }
+
+    private void repaint(long lo, long hi) {
+        for (long changed = shownLo ^ lo; changed != 0; changed &= changed - 1)
+            paint(Long.numberOfTrailingZeros(changed), (lo & Long.lowestOneBit(changed)) != 0);
+        for (long changed = shownHi ^ hi; changed != 0; changed &= changed - 1)
+            paint(64 + Long.numberOfTrailingZeros(changed), (hi & Long.lowestOneBit(changed)) != 0);
+        shownLo = lo;
+        shownHi = hi;
+    }
+
+    private void paint(int square, boolean valid) {
+        ImageView hover = square(square).getEventPane().getHover();
+        hover.setImage(valid ? ImageConstants.HIGHLIGHT_VALID : ImageConstants.HIGHLIGHT_NONE);
+        hover.setOpacity(valid ? 0.5 : 1.0);
+    }
+
+    private boolean isShown(int square) {
+        return (square < 64) ? (shownLo & (1L << square)) != 0 : (shownHi & (1L << (square - 64))) != 0;
+    }
+
+    private void forgetStaleBoard() {
+        if (board != Game.getBoard()) {
+            board = Game.getBoard();
+            shownLo = 0;
+            shownHi = 0;
+            glowing = -1;
+        }
+    }
+
+    private ClientSquare square(int square) {
+        return board.getSquare(square / BOARD_SIZE, square % BOARD_SIZE);
+    }
+}
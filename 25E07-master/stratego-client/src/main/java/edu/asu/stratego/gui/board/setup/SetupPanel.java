@@ -11,6 +11,7 @@ import edu.asu.stratego.gui.ClientStage;
 import edu.asu.stratego.gui.board.BoardSquareEventPane;
 import edu.asu.stratego.languages.LanguageObserver;
 import edu.asu.stratego.media.ImageConstants;
+import edu.asu.stratego.util.DataService;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -85,21 +86,22 @@ public class SetupPanel implements LanguageObserver {
         headerText.getRowConstraints().add(new RowConstraints(UNIT * 0.6));
         GridPane.setMargin(headerText, new Insets(UNIT * 0.2, 0, 0, UNIT * 0.2));
 
-        services.PlayerService service = new services.PlayerService();
-        models.Player localPlayer = service.findByEmail(Game.getPlayer().getEmail());
-        models.Player remotePlayer = service.findByEmail(Game.getOpponent().getEmail());
-
-        String localName = (localPlayer != null) ? localPlayer.getNickname() : Game.getPlayer().getNickname();
-        String remoteName = (remotePlayer != null) ? remotePlayer.getNickname() : Game.getOpponent().getNickname();
-
-        String titleContent = localName + " vs. " + remoteName;
-
-        double fontScale = 1.0 / ((titleContent.length() - 7) / 8 + 2);
-
-        Label nameDisplay = new Label(titleContent);
-        nameDisplay.setFont(Font.font("Century Gothic", FontWeight.BOLD, UNIT * fontScale));
+        Label nameDisplay = new Label();
         nameDisplay.setTextFill(new Color(1.0, 0.7, 0.0, 1.0));
         nameDisplay.setAlignment(Pos.BOTTOM_LEFT);
+        setNames(nameDisplay, Game.getPlayer().getNickname(), Game.getOpponent().getNickname());
+
+        // Los nicknames guardados en la base de datos se cargan en segundo plano
+        String localEmail = Game.getPlayer().getEmail();
+        String remoteEmail = Game.getOpponent().getEmail();
+        DataService.load(() -> {
+            services.PlayerService service = new services.PlayerService();
+            return new models.Player[] { service.findByEmail(localEmail), service.findByEmail(remoteEmail) };
+        }, players -> {
+            String localName = (players[0] != null) ? players[0].getNickname() : Game.getPlayer().getNickname();
+            String remoteName = (players[1] != null) ? players[1].getNickname() : Game.getOpponent().getNickname();
+            setNames(nameDisplay, localName, remoteName);
+        });
         headerText.add(nameDisplay, 0, 0);
 
         // Setup Timer.
@@ -487,4 +489,14 @@ public class SetupPanel implements LanguageObserver {
         readyLabel.setText(ResourceBundleManager.get("waiting.message"));
     }
 
+    private static void setNames(Label nameDisplay, String localName, String remoteName) {
+        final double UNIT = ClientStage.getUnit();
+
+        String titleContent = localName + " vs. " + remoteName;
+
+        double fontScale = 1.0 / ((titleContent.length() - 7) / 8 + 2);
+
+        nameDisplay.setText(titleContent);
+        nameDisplay.setFont(Font.font("Century Gothic", FontWeight.BOLD, UNIT * fontScale));
+    }
 }
\ No newline at end of file
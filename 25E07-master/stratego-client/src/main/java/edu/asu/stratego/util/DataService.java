@@ -0,0 +1,106 @@
+package edu.asu.stratego.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javafx.application.Platform;
+
+/**
+ * Runs database work for the scenes off the JavaFX application thread.
+ *
+ * <p>
+ * Queries run on a small pool of daemon threads; their results are handed
+ * back to the JavaFX thread with {@link Platform#runLater(Runnable)}. The
+ * future returned by {@link #load} can be cancelled when the user leaves
+ * the scene: a query that has not started yet is skipped, and the result of
+ * one already running is dropped instead of being shown.
+ * </p>
+ */
+public final class DataService {
+
+    private static final Logger logger = Logger.getLogger(DataService.class.getName());
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2, task -> {
+        Thread thread = new Thread(task, "data-service-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DataService() {
+    }
+
+    /**
+     * Starts a query in the background.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    /**
+     * Runs a query in the background and passes its result to
+     * {@code onLoaded} on the JavaFX thread. Failures are logged.
+     */
+    public static <T> CompletableFuture<Void> load(Supplier<T> query, Consumer<T> onLoaded) {
+        return load(query, onLoaded, null);
+    }
+
+    /**
+     * Same as {@link #load(Supplier, Consumer)}, with {@code onError} called
+     * on the JavaFX thread if the query fails.
+     */
+    public static <T> CompletableFuture<Void> load(Supplier<T> query, Consumer<T> onLoaded,
+            Consumer<Throwable> onError) {
+        CompletableFuture<T> source = supply(query);
+        CompletableFuture<Void> result = onFxThread(source, onLoaded, onError);
+        // Cancelling the caller's handle also skips a query still queued
+        result.whenComplete((ignored, e) -> {
+            if (result.isCancelled()) {
+                source.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Passes the result of {@code source} to {@code onLoaded} on the JavaFX
+     * thread, unless the returned future has been cancelled by then.
+     */
+    public static <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> source, Consumer<T> onLoaded,
+            Consumer<Throwable> onError) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        source.whenComplete((value, e) -> Platform.runLater(() -> {
+            if (result.isDone()) {
+                return; // cancelled while loading
+            }
+            if (e == null) {
+                try {
+                    onLoaded.accept(value);
+                    result.complete(null);
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                    throw ex;
+                }
+                return;
+            }
+            Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+            if (!(cause instanceof CancellationException)) {
+                logger.log(Level.SEVERE, "Error loading data", cause);
+                if (onError != null) {
+                    onError.accept(cause);
+                }
+            }
+            result.completeExceptionally(cause);
+        }));
+        return result;
+    }
+}
@@ -15,5 +15,7 @@ public enum GameStatus {
     BLUE_DISCONNECTED,
     RED_FLAG_UNREACHABLE,
     BLUE_FLAG_UNREACHABLE,
-    DISCONNECTED;
+    DISCONNECTED,
+    RED_TIMED_OUT,
+    BLUE_TIMED_OUT;
 }
\ No newline at end of file
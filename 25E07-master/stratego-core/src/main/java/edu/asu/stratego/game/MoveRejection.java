@@ -0,0 +1,17 @@
+package edu.asu.stratego.game;
+
+/**
+ * Sent by the server, only to the player in turn, instead of the outcome of a
+ * move that breaks the rules. The board and the turn do not change: the
+ * player is expected to send another move.
+ */
+public enum MoveRejection {
+    /** A square is missing or off the board. */
+    MALFORMED,
+    /** The move is not marked with the color in turn. */
+    WRONG_COLOR,
+    /** The start square does not hold one of the player's pieces. */
+    NOT_YOUR_PIECE,
+    /** The piece cannot move or attack there. */
+    ILLEGAL_MOVE;
+}
@@ -0,0 +1,94 @@
+package edu.asu.stratego.game;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.PieceColor;
+
+/**
+ * The position of a game, as one player is allowed to see it, sent to a
+ * player who comes back after losing the connection. It replaces everything
+ * the player missed, so nothing has to be replayed.
+ *
+ * <p>
+ * The squares are in the player's own orientation (their pieces on rows 6 to
+ * 9), one {@link ByteBoard} code each. The opponent's pieces that have not
+ * been revealed in an attack are {@link ByteBoard#hidden(PieceColor)}.
+ * </p>
+ *
+ * <p>
+ * A spectator's position has no color. It is in the orientation of the
+ * server's board, every piece not revealed in an attack is hidden, and the
+ * clocks are RED's and BLUE's, in that order.
+ * </p>
+ */
+public final class ResumeState {
+
+    private final PieceColor color;
+    private final PieceColor turn;
+    private final int moves;
+    private final long clockMillis;
+    private final long opponentClockMillis;
+    private final byte[] squares;
+
+    /**
+     * Creates a new instance of ResumeState.
+     *
+     * @param color               the color of the player it is sent to, or
+     *                            null for a spectator.
+     * @param turn                the color that moves next.
+     * @param moves               the number of moves played.
+     * @param clockMillis         the player's time left, or 0 if the game
+     *                            has no clock.
+     * @param opponentClockMillis the opponent's time left.
+     * @param squares             the {@link ByteBoard#SQUARES} piece codes.
+     */
+    public ResumeState(PieceColor color, PieceColor turn, int moves, long clockMillis, long opponentClockMillis,
+            byte[] squares) {
+        if (squares.length != ByteBoard.SQUARES)
+            throw new IllegalArgumentException("A position has " + ByteBoard.SQUARES + " squares");
+        this.color = color;
+        this.turn = turn;
+        this.moves = moves;
+        this.clockMillis = clockMillis;
+        this.opponentClockMillis = opponentClockMillis;
+        this.squares = squares.clone();
+    }
+
+    public PieceColor getColor() {
+        return color;
+    }
+
+    public PieceColor getTurn() {
+        return turn;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public long getClockMillis() {
+        return clockMillis;
+    }
+
+    public long getOpponentClockMillis() {
+        return opponentClockMillis;
+    }
+
+    /**
+     * @param square a board square, as {@code row * 10 + col}.
+     * @return the piece code on the square, or {@link ByteBoard#EMPTY}.
+     */
+    public byte getSquare(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return the position as a board.
+     */
+    public ByteBoard toBoard() {
+        ByteBoard board = new ByteBoard();
+        for (int square = 0; square < ByteBoard.SQUARES; ++square)
+            board.set(square, squares[square]);
+        return board;
+    }
+
+}
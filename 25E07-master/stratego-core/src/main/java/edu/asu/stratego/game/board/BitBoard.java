@@ -0,0 +1,232 @@
+package edu.asu.stratego.game.board;
+
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Representation of a Stratego board as occupancy bitsets.
+ * 
+ * <p>
+ * Square {@code row * 10 + col} is bit {@code square} of a 128 bit set stored
+ * in two longs: {@code lo} holds squares 0-63 and {@code hi} squares 64-99.
+ * There is one set per color and piece type, and one per color for all of the
+ * color's pieces. Neighbour and path queries are a few shifts and masks
+ * instead of walks over square objects.
+ * </p>
+ */
+public class BitBoard {
+
+    public static final int SIZE = 10;
+
+    private static final PieceType[] TYPE_VALUES = PieceType.values();
+    private static final int TYPES = TYPE_VALUES.length;
+    private static final long HI_MASK = (1L << (SIZE * SIZE - 64)) - 1;
+
+    private static final long LAKE_LO;
+    private static final long LAKE_HI;
+    private static final long[] COLUMN_LO = new long[SIZE];
+    private static final long[] COLUMN_HI = new long[SIZE];
+
+    static {
+        long lakeLo = 0, lakeHi = 0;
+        for (int row = 0; row < SIZE; ++row) {
+            for (int col = 0; col < SIZE; ++col) {
+                int square = square(row, col);
+                if (square < 64)
+                    COLUMN_LO[col] |= 1L << square;
+                else
+                    COLUMN_HI[col] |= 1L << (square - 64);
+
+                if ((col == 2 || col == 3 || col == 6 || col == 7) && (row == 4 || row == 5)) {
+                    if (square < 64)
+                        lakeLo |= 1L << square;
+                    else
+                        lakeHi |= 1L << (square - 64);
+                }
+            }
+        }
+        LAKE_LO = lakeLo;
+        LAKE_HI = lakeHi;
+    }
+
+    private final long[] typeLo = new long[2 * TYPES];
+    private final long[] typeHi = new long[2 * TYPES];
+    private final long[] colorLo = new long[2];
+    private final long[] colorHi = new long[2];
+
+    /**
+     * @param row board square row
+     * @param col board square column
+     * @return the index of the square
+     */
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * Places a piece on an empty square.
+     * 
+     * @param square the destination square
+     * @param color  color of the piece
+     * @param type   type of the piece
+     */
+    public void put(int square, PieceColor color, PieceType type) {
+        int index = color.ordinal() * TYPES + type.ordinal();
+        if (square < 64) {
+            long bit = 1L << square;
+            typeLo[index] |= bit;
+            colorLo[color.ordinal()] |= bit;
+        } else {
+            long bit = 1L << (square - 64);
+            typeHi[index] |= bit;
+            colorHi[color.ordinal()] |= bit;
+        }
+    }
+
+    /**
+     * Removes whatever piece is on the square.
+     * 
+     * @param square the square to empty
+     */
+    public void remove(int square) {
+        if (square < 64) {
+            long keep = ~(1L << square);
+            for (int i = 0; i < typeLo.length; ++i)
+                typeLo[i] &= keep;
+            colorLo[0] &= keep;
+            colorLo[1] &= keep;
+        } else {
+            long keep = ~(1L << (square - 64));
+            for (int i = 0; i < typeHi.length; ++i)
+                typeHi[i] &= keep;
+            colorHi[0] &= keep;
+            colorHi[1] &= keep;
+        }
+    }
+
+    /**
+     * Moves the piece on one square to another, empty square.
+     * 
+     * @param from square holding the piece
+     * @param to   empty destination square
+     */
+    public void move(int from, int to) {
+        PieceColor color = colorAt(from);
+        PieceType type = typeAt(from);
+        remove(from);
+        put(to, color, type);
+    }
+
+    /**
+     * @param square a board square
+     * @return the color of the piece on the square, or null if it is empty
+     */
+    public PieceColor colorAt(int square) {
+        if (test(colorLo[0], colorHi[0], square))
+            return PieceColor.RED;
+        if (test(colorLo[1], colorHi[1], square))
+            return PieceColor.BLUE;
+        return null;
+    }
+
+    /**
+     * @param square a board square
+     * @return the type of the piece on the square, or null if it is empty
+     */
+    public PieceType typeAt(int square) {
+        PieceColor color = colorAt(square);
+        if (color == null)
+            return null;
+
+        int base = color.ordinal() * TYPES;
+        for (PieceType type : TYPE_VALUES) {
+            if (test(typeLo[base + type.ordinal()], typeHi[base + type.ordinal()], square))
+                return type;
+        }
+        return null;
+    }
+
+    /**
+     * @param square a board square
+     * @return true if a piece could move onto the square: it is neither a lake
+     *         nor occupied
+     */
+    public boolean isFree(int square) {
+        return !test(colorLo[0] | colorLo[1] | LAKE_LO, colorHi[0] | colorHi[1] | LAKE_HI, square);
+    }
+
+    /**
+     * Checks the squares strictly between two squares on the same row or
+     * column.
+     * 
+     * @param from one end of the path
+     * @param to   the other end of the path
+     * @return true if no piece or lake lies between them
+     */
+    public boolean isPathClear(int from, int to) {
+        int low = Math.min(from, to) + 1;
+        int high = Math.max(from, to);
+
+        long pathLo = below(high) & ~below(low);
+        long pathHi = below(high - 64) & ~below(low - 64);
+        if (from / SIZE != to / SIZE) {
+            pathLo &= COLUMN_LO[from % SIZE];
+            pathHi &= COLUMN_HI[from % SIZE];
+        }
+
+        return (pathLo & (colorLo[0] | colorLo[1] | LAKE_LO)) == 0
+                && (pathHi & (colorHi[0] | colorHi[1] | LAKE_HI)) == 0;
+    }
+
+    /**
+     * Checks whether any piece of a color, other than its bombs and flag, has
+     * a neighbouring square that is empty or held by the enemy, by shifting
+     * those pieces one square in each direction and intersecting them with
+     * the squares they could enter.
+     * 
+     * @param color the color to check
+     * @return true if at least one of the color's pieces can move
+     */
+    public boolean hasMobilePiece(PieceColor color) {
+        int base = color.ordinal() * TYPES;
+        int bomb = base + PieceType.BOMB.ordinal();
+        int flag = base + PieceType.FLAG.ordinal();
+        long lo = colorLo[color.ordinal()] & ~(typeLo[bomb] | typeLo[flag]);
+        long hi = colorHi[color.ordinal()] & ~(typeHi[bomb] | typeHi[flag]);
+        long freeLo = ~(colorLo[color.ordinal()] | LAKE_LO);
+        long freeHi = ~(colorHi[color.ordinal()] | LAKE_HI) & HI_MASK;
+
+        // Next row
+        if (((lo << SIZE) & freeLo) != 0 || (((hi << SIZE) | (lo >>> (64 - SIZE))) & freeHi) != 0)
+            return true;
+
+        // Previous row
+        if ((((lo >>> SIZE) | (hi << (64 - SIZE))) & freeLo) != 0 || ((hi >>> SIZE) & freeHi) != 0)
+            return true;
+
+        // Next column, except from the last column
+        long rightLo = lo & ~COLUMN_LO[SIZE - 1];
+        long rightHi = hi & ~COLUMN_HI[SIZE - 1];
+        if (((rightLo << 1) & freeLo) != 0 || (((rightHi << 1) | (rightLo >>> 63)) & freeHi) != 0)
+            return true;
+
+        // Previous column, except from the first column
+        long leftLo = lo & ~COLUMN_LO[0];
+        long leftHi = hi & ~COLUMN_HI[0];
+        return (((leftLo >>> 1) | (leftHi << 63)) & freeLo) != 0 || ((leftHi >>> 1) & freeHi) != 0;
+    }
+
+    private static boolean test(long lo, long hi, int square) {
+        return (square < 64) ? (lo & (1L << square)) != 0 : (hi & (1L << (square - 64))) != 0;
+    }
+
+    /**
+     * @return a mask of the bits below n, clamped to a single long
+     */
+    private static long below(int n) {
+        if (n <= 0)
+            return 0;
+        return (n >= 64) ? -1L : (1L << n) - 1;
+    }
+
+}
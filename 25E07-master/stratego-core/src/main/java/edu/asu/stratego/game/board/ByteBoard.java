@@ -0,0 +1,138 @@
+package edu.asu.stratego.game.board;
+
+import java.util.Arrays;
+
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Compact position: one byte per square, {@code row * 10 + col}.
+ *
+ * <p>
+ * An empty square is 0; a piece is {@code (color + 1) << 4 | type}, using
+ * the ordinals of PieceColor and PieceType. The board knows nothing about
+ * JavaFX or square objects, so the client and the server can both hand it to
+ * the {@link edu.asu.stratego.game.gameRules.RulesKernel}.
+ * </p>
+ *
+ * <p>
+ * A piece whose type the player has not seen has the type {@link #HIDDEN}
+ * (see {@link #hidden(PieceColor)}): it still blocks and can be attacked,
+ * but {@link #typeAt(int)} knows nothing about it.
+ * </p>
+ */
+public class ByteBoard {
+
+    public static final int SIZE = 10;
+    public static final int SQUARES = SIZE * SIZE;
+    public static final byte EMPTY = 0;
+
+    /** Type of a piece that has not been revealed. */
+    public static final int HIDDEN = 0x0F;
+
+    private static final PieceColor[] COLOR_VALUES = PieceColor.values();
+    private static final PieceType[] TYPE_VALUES = PieceType.values();
+
+    private final byte[] squares = new byte[SQUARES];
+
+    /**
+     * @param row board square row
+     * @param col board square column
+     * @return the index of the square
+     */
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    /**
+     * @param color color of a piece
+     * @param type  type of the piece
+     * @return the byte that stands for the piece
+     */
+    public static byte code(PieceColor color, PieceType type) {
+        return (byte) ((color.ordinal() + 1) << 4 | type.ordinal());
+    }
+
+    /**
+     * @param color color of a piece
+     * @return the byte that stands for a piece of that color whose type is
+     *         not known
+     */
+    public static byte hidden(PieceColor color) {
+        return (byte) ((color.ordinal() + 1) << 4 | HIDDEN);
+    }
+
+    /**
+     * Places a piece on a square, or empties it when the piece is null. A
+     * piece without a type is placed hidden.
+     *
+     * @param square the square to change
+     * @param piece  the new piece, or null
+     */
+    public void set(int square, Piece piece) {
+        if (piece == null)
+            squares[square] = EMPTY;
+        else if (piece.getPieceType() == null)
+            squares[square] = hidden(piece.getPieceColor());
+        else
+            squares[square] = code(piece.getPieceColor(), piece.getPieceType());
+    }
+
+    /**
+     * @param square a board square
+     * @param code   a piece code from {@link #code(PieceColor, PieceType)} or
+     *               {@link #hidden(PieceColor)}, or {@link #EMPTY}
+     */
+    public void set(int square, byte code) {
+        squares[square] = code;
+    }
+
+    /**
+     * @param square a board square
+     * @return the code of the piece on the square, or {@link #EMPTY}
+     */
+    public byte get(int square) {
+        return squares[square];
+    }
+
+    public boolean isEmpty(int square) {
+        return squares[square] == EMPTY;
+    }
+
+    /**
+     * @param square a board square
+     * @return the color of the piece on the square, or null if it is empty
+     */
+    public PieceColor colorAt(int square) {
+        byte code = squares[square];
+        return (code == EMPTY) ? null : COLOR_VALUES[(code >> 4) - 1];
+    }
+
+    /**
+     * @param square a board square
+     * @return the type of the piece on the square, or null if it is empty or
+     *         hidden
+     */
+    public PieceType typeAt(int square) {
+        byte code = squares[square];
+        return (code == EMPTY || (code & 0x0F) == HIDDEN) ? null : TYPE_VALUES[code & 0x0F];
+    }
+
+    /**
+     * @param square a board square
+     * @return true if the square holds a piece whose type is not known
+     */
+    public boolean isHidden(int square) {
+        byte code = squares[square];
+        return code != EMPTY && (code & 0x0F) == HIDDEN;
+    }
+
+    /**
+     * Empties every square.
+     */
+    public void clear() {
+        Arrays.fill(squares, EMPTY);
+    }
+
+}
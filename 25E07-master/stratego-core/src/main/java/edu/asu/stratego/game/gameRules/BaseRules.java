@@ -5,15 +5,29 @@ import java.awt.Point;
 import edu.asu.stratego.game.BattleOutcome;
 import edu.asu.stratego.game.Move;
 import edu.asu.stratego.game.pieces.Piece;
-import edu.asu.stratego.game.ServerGameManager;
+import edu.asu.stratego.game.board.ByteBoard;
 import edu.asu.stratego.game.board.ServerBoard;
 import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.util.CoordinateUtils;
 
 public abstract class BaseRules implements GameRules {
 
     protected ServerBoard board;
 
-    protected ServerGameManager gameManager;
+    /**
+     * Copy of the board for the {@link RulesKernel}, kept in step by
+     * {@link #setPieceAt(Point, Piece)} and {@link #setPiece(int, int, Piece)}.
+     */
+    protected final ByteBoard position = new ByteBoard();
+
+    /**
+     * Follows the position through {@link #setPieceAt(Point, Piece)} and
+     * {@link #setPiece(int, int, Piece)}.
+     */
+    protected MobilityTracker mobility;
+
+    // Reused by isValidMove; the rules of a game are used by one thread at a time
+    private final int[] validMoves = new int[MAX_VALID_MOVES];
 
     /**
      * Handles the consequences of an attack.
@@ -45,7 +59,7 @@ public abstract class BaseRules implements GameRules {
             setPieceAt(move.getStart(), null);
             setPieceAt(move.getEnd(), movingPiece);
             // Rotate the move 180 degrees before sending
-            gameManager.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, movingPiece, false, false);
+            CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, movingPiece, false, false);
         }
         // If it's an attack move
         else {
@@ -56,18 +70,55 @@ public abstract class BaseRules implements GameRules {
         }
     }
 
+    /**
+     * Checks a move by looking for its destination among the piece's valid
+     * moves.
+     */
+    public boolean isValidMove(Point start, Point end, PieceColor inColor) {
+        Piece piece = getPieceAt(start);
+        if (piece == null || piece.getPieceColor() != inColor)
+            return false;
+
+        int count = computeValidMoves(start.x, start.y, inColor, validMoves);
+        for (int i = 0; i < count; ++i) {
+            if (validMoves[i] == end.x * 10 + end.y)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the player has at least one valid move available.
+     *
+     * @param inColor The color of the player to check.
+     * @return true if at least one move exists, false otherwise.
+     */
+    public boolean hasAvailableMoves(PieceColor inColor) {
+        return mobility.getMobileCount(inColor) > 0;
+    }
+
+    public Piece getPiece(int row, int col) {
+        return board.getSquare(row, col).getPiece();
+    }
+
+    public void setPiece(int row, int col, Piece piece) {
+        board.getSquare(row, col).setPiece(piece);
+        position.set(ByteBoard.square(row, col), piece);
+        mobility.update(row, col);
+    }
+
     /**
      * Indicates whether the box corresponds to a lake (non-trafficable area).
      */
     protected boolean isLake(int row, int col) {
-        return (col == 2 || col == 3 || col == 6 || col == 7) && (row == 4 || row == 5);
+        return RulesKernel.isLake(row, col);
     }
 
     /**
      * Indicates whether the coordinates are within the board.
      */
     protected boolean isInBounds(int row, int col) {
-        return row >= 0 && row <= 9 && col >= 0 && col <= 9;
+        return RulesKernel.isInBounds(row, col);
     }
 
     /**
@@ -103,6 +154,8 @@ public abstract class BaseRules implements GameRules {
      */
     protected void setPieceAt(Point point, Piece piece) {
         board.getSquare(point.x, point.y).setPiece(piece);
+        position.set(ByteBoard.square(point.x, point.y), piece);
+        mobility.update(point.x, point.y);
     }
 
 }
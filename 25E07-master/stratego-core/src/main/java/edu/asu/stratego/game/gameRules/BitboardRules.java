@@ -0,0 +1,186 @@
+package edu.asu.stratego.game.gameRules;
+
+import java.awt.Point;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.board.BitBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.util.CoordinateUtils;
+
+/**
+ * The original rules played on a {@link BitBoard} instead of a ServerBoard.
+ * Produces the same moves and outcomes as {@link OriginalRules}, but checks
+ * single moves and looks for available moves with bit operations.
+ */
+public class BitboardRules implements GameRules {
+
+    private static final int SCOUT_RANGE = 8;
+
+    /**
+     * One shared piece per color and type. Pieces are never modified on the
+     * server, so the moves sent to the players can reference them.
+     */
+    private static final Piece[][] PIECES = new Piece[PieceColor.values().length][PieceType.values().length];
+
+    static {
+        for (PieceColor color : PieceColor.values())
+            for (PieceType type : PieceType.values())
+                PIECES[color.ordinal()][type.ordinal()] = new OriginalPiece(type, color, false);
+    }
+
+    private final BitBoard board = new BitBoard();
+
+    /**
+     * BitboardRules constructor.
+     */
+    protected BitboardRules() {
+        /* Intentionally Empty */ }
+
+    /**
+     * Processes a move made by a player.
+     * Determines whether it is a normal move or an attack and acts accordingly.
+     * 
+     * @param move            The player's original move.
+     * @param moveToPlayerOne The transformed move for player 1.
+     * @param moveToPlayerTwo The transformed move for player 2.
+     */
+    @Override
+    public void processMove(Move move, Move moveToPlayerOne, Move moveToPlayerTwo) {
+        int from = BitBoard.square(move.getStart().x, move.getStart().y);
+        int to = BitBoard.square(move.getEnd().x, move.getEnd().y);
+        Piece attacker = pieceAt(from);
+        Piece defender = pieceAt(to);
+
+        // If it's a normal move (no attack)
+        if (defender == null) {
+            board.move(from, to);
+            CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, attacker, false, false);
+            return;
+        }
+
+        moveToPlayerOne.setAttackMove(true);
+        moveToPlayerTwo.setAttackMove(true);
+        switch (attacker.getPieceType().attack(defender.getPieceType())) {
+            case WIN -> {
+                board.remove(to);
+                board.move(from, to);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, attacker, true, false);
+            }
+            case LOSE -> {
+                board.remove(from);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, defender, false, true);
+            }
+            case DRAW -> {
+                board.remove(from);
+                board.remove(to);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, null, false, false);
+            }
+        }
+    }
+
+    /**
+     * Calculates the valid moves for a piece according to the game rules:
+     * empty squares in range and the first enemy piece in each direction.
+     * Bombs and flags have no moves.
+     * 
+     * @param row     The piece's current row.
+     * @param col     The piece's current column.
+     * @param inColor The piece's color (to distinguish between ally and enemy).
+     * @param moves   Receives the valid squares, encoded as row * 10 + col.
+     * @return the number of valid squares written to moves.
+     */
+    @Override
+    public int computeValidMoves(int row, int col, PieceColor inColor, int[] moves) {
+        PieceType type = board.typeAt(BitBoard.square(row, col));
+        if (type == null || !type.isMobile())
+            return 0;
+
+        int max = (type == PieceType.SCOUT) ? SCOUT_RANGE : 1;
+        int count = 0;
+
+        // Up, down, left, right
+        count = addMoves(moves, count, row, col, -1, 0, max, inColor);
+        count = addMoves(moves, count, row, col, 1, 0, max, inColor);
+        count = addMoves(moves, count, row, col, 0, -1, max, inColor);
+        count = addMoves(moves, count, row, col, 0, 1, max, inColor);
+
+        return count;
+    }
+
+    /**
+     * Checks the move in constant time: the piece must be able to move, the
+     * destination must be free or hold an enemy piece, on the same row or
+     * column within the piece's range, and nothing may lie in between.
+     */
+    @Override
+    public boolean isValidMove(Point start, Point end, PieceColor inColor) {
+        if (!isInBounds(start.x, start.y) || !isInBounds(end.x, end.y))
+            return false;
+
+        int from = BitBoard.square(start.x, start.y);
+        int to = BitBoard.square(end.x, end.y);
+        if (board.colorAt(from) != inColor || !board.typeAt(from).isMobile())
+            return false;
+        if (!board.isFree(to) && (board.colorAt(to) == null || board.colorAt(to) == inColor))
+            return false;
+
+        int distance = Math.abs(start.x - end.x) + Math.abs(start.y - end.y);
+        if (start.x != end.x && start.y != end.y)
+            return false;
+        if (board.typeAt(from) != PieceType.SCOUT)
+            return distance == 1;
+        return distance <= SCOUT_RANGE && board.isPathClear(from, to);
+    }
+
+    @Override
+    public boolean hasAvailableMoves(PieceColor inColor) {
+        return board.hasMobilePiece(inColor);
+    }
+
+    @Override
+    public Piece getPiece(int row, int col) {
+        return pieceAt(BitBoard.square(row, col));
+    }
+
+    @Override
+    public void setPiece(int row, int col, Piece piece) {
+        int square = BitBoard.square(row, col);
+        board.remove(square);
+        if (piece != null)
+            board.put(square, piece.getPieceColor(), piece.getPieceType());
+    }
+
+    private int addMoves(int[] moves, int count, int row, int col, int dRow, int dCol, int max,
+            PieceColor inColor) {
+        for (int i = 1; i <= max; ++i) {
+            int newRow = row + dRow * i;
+            int newCol = col + dCol * i;
+            if (!isInBounds(newRow, newCol))
+                break;
+
+            int square = BitBoard.square(newRow, newCol);
+            if (!board.isFree(square)) {
+                // Lakes have no color; an enemy piece can be attacked
+                PieceColor color = board.colorAt(square);
+                if (color != null && color != inColor)
+                    moves[count++] = square;
+                break;
+            }
+            moves[count++] = square;
+        }
+        return count;
+    }
+
+    private Piece pieceAt(int square) {
+        PieceColor color = board.colorAt(square);
+        return (color == null) ? null : PIECES[color.ordinal()][board.typeAt(square).ordinal()];
+    }
+
+    private static boolean isInBounds(int row, int col) {
+        return row >= 0 && row < BitBoard.SIZE && col >= 0 && col < BitBoard.SIZE;
+    }
+
+}
@@ -0,0 +1,76 @@
+package edu.asu.stratego.game.gameRules;
+
+import java.awt.Point;
+import java.util.ArrayList;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+
+public interface GameRules {
+
+    /**
+     * Largest number of squares a single piece can move to: a whole row and a
+     * whole column.
+     */
+    int MAX_VALID_MOVES = 18;
+
+    void processMove(Move move, Move moveToPlayerOne, Move moveToPlayerTwo);
+
+    /**
+     * Calculates the valid moves for a piece without allocating. Squares are
+     * encoded as {@code row * 10 + col}.
+     * 
+     * @param row     The piece's current row.
+     * @param col     The piece's current column.
+     * @param inColor The piece's color (to distinguish between ally and enemy).
+     * @param moves   Receives the valid squares; needs room for
+     *                {@link #MAX_VALID_MOVES} entries.
+     * @return the number of squares written to moves.
+     */
+    int computeValidMoves(int row, int col, PieceColor inColor, int[] moves);
+
+    /**
+     * List based adapter of {@link #computeValidMoves(int, int, PieceColor, int[])}.
+     * 
+     * @return List of valid coordinates to which the piece can move.
+     */
+    default ArrayList<Point> computeValidMoves(int row, int col, PieceColor inColor) {
+        int[] moves = new int[MAX_VALID_MOVES];
+        int count = computeValidMoves(row, col, inColor, moves);
+
+        ArrayList<Point> validMoves = new ArrayList<Point>(count);
+        for (int i = 0; i < count; ++i)
+            validMoves.add(new Point(moves[i] / 10, moves[i] % 10));
+        return validMoves;
+    }
+
+    /**
+     * Checks a single move without listing every valid move of the piece.
+     * 
+     * @param start   square of the moving piece.
+     * @param end     destination square.
+     * @param inColor color of the player making the move.
+     * @return true if the piece at start belongs to the player and may move to
+     *         end.
+     */
+    boolean isValidMove(Point start, Point end, PieceColor inColor);
+
+    /**
+     * @param inColor the color of the player to check.
+     * @return true if at least one of the player's pieces has a valid move.
+     */
+    boolean hasAvailableMoves(PieceColor inColor);
+
+    /**
+     * @return the piece at (row, col), or null if the square is empty.
+     */
+    Piece getPiece(int row, int col);
+
+    /**
+     * Places a piece on the board, replacing the square's current piece. Used
+     * to register the players' setups.
+     */
+    void setPiece(int row, int col, Piece piece);
+
+}
@@ -0,0 +1,152 @@
+package edu.asu.stratego.game.gameRules;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+
+/**
+ * The legal moves of one player in the current position: for every square,
+ * the set of squares its piece may move to or attack, as a 100 bit mask.
+ *
+ * <p>
+ * The table is filled once per turn with an allocation-free move generator,
+ * the rules' or the {@link RulesKernel} itself, after which checking a move
+ * is a single bit test. An instance is reused from turn to turn and never
+ * allocates after construction.
+ * </p>
+ */
+public final class LegalMoves {
+
+    private static final int SIZE = 10;
+    private static final int SQUARES = SIZE * SIZE;
+
+    // Squares 0-63 in lo, 64-99 in hi, as in BitBoard
+    private final long[] targetsLo = new long[SQUARES];
+    private final long[] targetsHi = new long[SQUARES];
+    private final int[] buffer = new int[GameRules.MAX_VALID_MOVES];
+
+    private PieceColor color;
+    private int count;
+
+    /**
+     * Replaces the table with the moves of a player in the current position.
+     *
+     * @param rules   the rules holding the position.
+     * @param inColor the player whose moves are listed.
+     */
+    public void compute(GameRules rules, PieceColor inColor) {
+        reset(inColor);
+        for (int row = 0; row < SIZE; ++row) {
+            for (int col = 0; col < SIZE; ++col) {
+                Piece piece = rules.getPiece(row, col);
+                if (piece != null && piece.getPieceColor() == inColor)
+                    add(row * SIZE + col, rules.computeValidMoves(row, col, inColor, buffer));
+            }
+        }
+    }
+
+    /**
+     * Replaces the table with the moves of a player, generated by the
+     * {@link RulesKernel}. This is how the client lists its moves.
+     *
+     * @param position the position.
+     * @param inColor  the player whose moves are listed.
+     */
+    public void compute(ByteBoard position, PieceColor inColor) {
+        reset(inColor);
+        for (int square = 0; square < SQUARES; ++square) {
+            if (position.colorAt(square) == inColor)
+                add(square, RulesKernel.generate(position, square / SIZE, square % SIZE, inColor, buffer));
+        }
+    }
+
+    private void reset(PieceColor inColor) {
+        color = inColor;
+        count = 0;
+        Arrays.fill(targetsLo, 0);
+        Arrays.fill(targetsHi, 0);
+    }
+
+    private void add(int square, int moves) {
+        for (int i = 0; i < moves; ++i) {
+            if (buffer[i] < 64)
+                targetsLo[square] |= 1L << buffer[i];
+            else
+                targetsHi[square] |= 1L << (buffer[i] - 64);
+        }
+        count += moves;
+    }
+
+    /**
+     * @param from square of the moving piece, as {@code row * 10 + col}.
+     * @param to   destination square, as {@code row * 10 + col}.
+     * @return true if the move is in the table.
+     */
+    public boolean contains(int from, int to) {
+        if (from < 0 || from >= SQUARES || to < 0 || to >= SQUARES)
+            return false;
+        return (to < 64) ? (targetsLo[from] & (1L << to)) != 0 : (targetsHi[from] & (1L << (to - 64))) != 0;
+    }
+
+    /**
+     * @param from a square, as {@code row * 10 + col}.
+     * @return true if a piece of the player stands on the square and has at
+     *         least one move, that is, if it can be selected.
+     */
+    public boolean hasMoves(int from) {
+        if (from < 0 || from >= SQUARES)
+            return false;
+        return (targetsLo[from] | targetsHi[from]) != 0;
+    }
+
+    /**
+     * @param from square of the moving piece, as {@code row * 10 + col}.
+     * @return the destinations among squares 0-63, bit n for square n.
+     */
+    public long getTargetsLo(int from) {
+        return targetsLo[from];
+    }
+
+    /**
+     * @param from square of the moving piece, as {@code row * 10 + col}.
+     * @return the destinations among squares 64-99, bit n for square 64 + n.
+     */
+    public long getTargetsHi(int from) {
+        return targetsHi[from];
+    }
+
+    /**
+     * @param start square of the moving piece.
+     * @param end   destination square.
+     * @return true if both squares are on the board and the move is in the
+     *         table.
+     */
+    public boolean contains(Point start, Point end) {
+        if (!isInBounds(start) || !isInBounds(end))
+            return false;
+        return contains(start.x * SIZE + start.y, end.x * SIZE + end.y);
+    }
+
+    /**
+     * @return the player whose moves are in the table, or null before the
+     *         first {@link #compute(GameRules, PieceColor)}.
+     */
+    public PieceColor getColor() {
+        return color;
+    }
+
+    /**
+     * @return the number of legal moves in the table.
+     */
+    public int size() {
+        return count;
+    }
+
+    private static boolean isInBounds(Point square) {
+        return square != null && square.x >= 0 && square.x < SIZE && square.y >= 0 && square.y < SIZE;
+    }
+
+}
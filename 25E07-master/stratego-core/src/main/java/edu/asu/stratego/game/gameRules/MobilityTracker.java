@@ -0,0 +1,79 @@
+package edu.asu.stratego.game.gameRules;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.PieceColor;
+
+/**
+ * Keeps track of which pieces can move, so that checking whether a player has
+ * any move left does not scan the board.
+ * 
+ * <p>
+ * A piece can move when it is neither a bomb nor a flag and one of its
+ * neighbouring squares is inside the board, not a lake and either empty or
+ * held by the enemy, which is exactly when
+ * {@link RulesKernel#generate(ByteBoard, int, int, PieceColor, int[])} returns
+ * at least one square. Placing or removing a piece only changes the mobility of
+ * that square and its four neighbours, so the rules call
+ * {@link #update(int, int)} after every change to the board.
+ * </p>
+ */
+public class MobilityTracker {
+
+    private static final int SIZE = 10;
+    private static final int[][] NEIGHBOURS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
+    private final ByteBoard board;
+
+    /** Color of the mobile piece on each square, or null. */
+    private final PieceColor[] mobile = new PieceColor[SIZE * SIZE];
+    private final int[] mobileCount = new int[PieceColor.values().length];
+
+    /**
+     * Creates a new instance of MobilityTracker for the pieces already on the
+     * board.
+     * 
+     * @param board the board to follow.
+     */
+    public MobilityTracker(ByteBoard board) {
+        this.board = board;
+        for (int row = 0; row < SIZE; ++row)
+            for (int col = 0; col < SIZE; ++col)
+                refresh(row, col);
+    }
+
+    /**
+     * Updates the tracker after the piece on a square has changed.
+     * 
+     * @param row row of the changed square.
+     * @param col column of the changed square.
+     */
+    public void update(int row, int col) {
+        refresh(row, col);
+        for (int[] neighbour : NEIGHBOURS) {
+            int newRow = row + neighbour[0];
+            int newCol = col + neighbour[1];
+            if (RulesKernel.isInBounds(newRow, newCol))
+                refresh(newRow, newCol);
+        }
+    }
+
+    /**
+     * @param inColor a player's color.
+     * @return the number of the player's pieces that can move.
+     */
+    public int getMobileCount(PieceColor inColor) {
+        return mobileCount[inColor.ordinal()];
+    }
+
+    private void refresh(int row, int col) {
+        int square = row * SIZE + col;
+        if (mobile[square] != null)
+            mobileCount[mobile[square].ordinal()]--;
+
+        mobile[square] = RulesKernel.canMove(board, row, col) ? board.colorAt(square) : null;
+
+        if (mobile[square] != null)
+            mobileCount[mobile[square].ordinal()]++;
+    }
+
+}
@@ -0,0 +1,71 @@
+package edu.asu.stratego.game.gameRules;
+
+import edu.asu.stratego.game.BattleOutcome;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.util.CoordinateUtils;
+
+public class OriginalRules extends BaseRules {
+
+    /**
+     * OriginalRules constructor.
+     * 
+     * @param board The game board.
+     */
+    protected OriginalRules(ServerBoard board) {
+        this.board = board;
+        for (int row = 0; row < ByteBoard.SIZE; ++row)
+            for (int col = 0; col < ByteBoard.SIZE; ++col)
+                position.set(ByteBoard.square(row, col), board.getSquare(row, col).getPiece());
+        this.mobility = new MobilityTracker(position);
+    }
+
+    /**
+     * Handles the consequences of an attack.
+     * 
+     * @param move            The attacking move made.
+     * @param attackingPiece  The attacking piece.
+     * @param defendingPiece  The defending piece.
+     * @param outcome         The result of the attack (WIN, LOSE, DRAW).
+     * @param moveToPlayerOne The adapted move for player 1.
+     * @param moveToPlayerTwo The adapted move for player 2.
+     */
+    protected void handleAttackMove(Move move, Piece attacker, Piece defender, BattleOutcome outcome,
+            Move moveToPlayerOne, Move moveToPlayerTwo) {
+        switch (outcome) {
+            case WIN -> {
+                setPieceAt(move.getEnd(), attacker);
+                setPieceAt(move.getStart(), null);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, attacker, true, false);
+            }
+            case LOSE -> {
+                setPieceAt(move.getStart(), null);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, defender, false, true);
+            }
+            case DRAW -> {
+                setPieceAt(move.getStart(), null);
+                setPieceAt(move.getEnd(), null);
+                CoordinateUtils.rotateMove(move, moveToPlayerOne, moveToPlayerTwo, null, null, false, false);
+            }
+        }
+    }
+
+    /**
+     * Calculates the valid moves for a piece with the {@link RulesKernel}:
+     * empty squares in range and the first enemy piece in each direction.
+     * Bombs and flags have no moves.
+     * 
+     * @param row     The piece's current row.
+     * @param col     The piece's current column.
+     * @param inColor The piece's color (to distinguish between ally and enemy).
+     * @param moves   Receives the valid squares, encoded as row * 10 + col.
+     * @return the number of valid squares written to moves.
+     */
+    public int computeValidMoves(int row, int col, PieceColor inColor, int[] moves) {
+        return RulesKernel.generate(position, row, col, inColor, moves);
+    }
+
+}
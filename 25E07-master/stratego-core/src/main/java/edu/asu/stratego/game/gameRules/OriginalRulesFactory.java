@@ -0,0 +1,17 @@
+package edu.asu.stratego.game.gameRules;
+
+import edu.asu.stratego.game.board.ServerBoard;
+
+public class OriginalRulesFactory implements RulesFactory {
+
+    @Override
+    public OriginalRules createOriginalRules(ServerBoard board) {
+        return new OriginalRules(board);
+    }
+
+    @Override
+    public BitboardRules createBitboardRules() {
+        return new BitboardRules();
+    }
+
+}
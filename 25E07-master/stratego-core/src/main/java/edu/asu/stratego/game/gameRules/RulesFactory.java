@@ -0,0 +1,11 @@
+package edu.asu.stratego.game.gameRules;
+
+import edu.asu.stratego.game.board.ServerBoard;
+
+public interface RulesFactory {
+
+    OriginalRules createOriginalRules(ServerBoard board);
+
+    BitboardRules createBitboardRules();
+
+}
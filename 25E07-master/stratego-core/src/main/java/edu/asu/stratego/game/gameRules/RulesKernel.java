@@ -0,0 +1,122 @@
+package edu.asu.stratego.game.gameRules;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * How pieces move, on a {@link ByteBoard}. The server's {@link OriginalRules}
+ * and the client's board both call it, so they cannot disagree about which
+ * moves are legal. {@link BitboardRules} has a generator of its own, over its
+ * bitboards; MobilityTrackerTest plays random games on both engines and
+ * checks that they list the same moves at every position.
+ *
+ * <p>
+ * A piece other than a bomb or the flag moves one square up, down, left or
+ * right, a scout up to {@link #SCOUT_RANGE} squares in a straight line. It
+ * may enter empty squares and attack the first enemy piece in its way; lakes
+ * and its own pieces block it. Nothing here allocates.
+ * </p>
+ */
+public final class RulesKernel {
+
+    public static final int SCOUT_RANGE = 8;
+
+    // Up, down, left, right
+    private static final int[] D_ROW = { -1, 1, 0, 0 };
+    private static final int[] D_COL = { 0, 0, -1, 1 };
+
+    private static final boolean[] LAKES = new boolean[ByteBoard.SQUARES];
+
+    static {
+        for (int row = 4; row <= 5; ++row) {
+            LAKES[ByteBoard.square(row, 2)] = true;
+            LAKES[ByteBoard.square(row, 3)] = true;
+            LAKES[ByteBoard.square(row, 6)] = true;
+            LAKES[ByteBoard.square(row, 7)] = true;
+        }
+    }
+
+    /**
+     * Prevents an instance of this class from being instantiated.
+     */
+    private RulesKernel() {
+        /* Intentionally Empty */ }
+
+    public static boolean isInBounds(int row, int col) {
+        return row >= 0 && row < ByteBoard.SIZE && col >= 0 && col < ByteBoard.SIZE;
+    }
+
+    /**
+     * @return true if (row, col) is one of the eight lake squares.
+     */
+    public static boolean isLake(int row, int col) {
+        return isInBounds(row, col) && LAKES[ByteBoard.square(row, col)];
+    }
+
+    /**
+     * Lists the squares the piece on (row, col) can move to or attack.
+     *
+     * @param board   the position.
+     * @param row     the piece's row.
+     * @param col     the piece's column.
+     * @param inColor the piece's color (to distinguish between ally and enemy).
+     * @param moves   receives the squares, as {@code row * 10 + col}; needs
+     *                room for {@link GameRules#MAX_VALID_MOVES} entries.
+     * @return the number of squares written to moves.
+     */
+    public static int generate(ByteBoard board, int row, int col, PieceColor inColor, int[] moves) {
+        PieceType type = board.typeAt(ByteBoard.square(row, col));
+        if (type == null || !type.isMobile())
+            return 0;
+
+        int max = (type == PieceType.SCOUT) ? SCOUT_RANGE : 1;
+        int count = 0;
+        for (int d = 0; d < 4; ++d) {
+            for (int i = 1; i <= max; ++i) {
+                int newRow = row + D_ROW[d] * i;
+                int newCol = col + D_COL[d] * i;
+                if (!isInBounds(newRow, newCol))
+                    break;
+
+                int square = ByteBoard.square(newRow, newCol);
+                if (LAKES[square])
+                    break;
+                if (!board.isEmpty(square)) {
+                    // The first enemy piece can be attacked, which ends the path
+                    if (board.colorAt(square) != inColor)
+                        moves[count++] = square;
+                    break;
+                }
+                moves[count++] = square;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the piece on (row, col) has at least one move, looking
+     * only at its four neighbours.
+     *
+     * @return true if {@link #generate} would return at least one square.
+     */
+    public static boolean canMove(ByteBoard board, int row, int col) {
+        int square = ByteBoard.square(row, col);
+        PieceType type = board.typeAt(square);
+        if (type == null || !type.isMobile())
+            return false;
+
+        PieceColor color = board.colorAt(square);
+        for (int d = 0; d < 4; ++d) {
+            int newRow = row + D_ROW[d];
+            int newCol = col + D_COL[d];
+            if (!isInBounds(newRow, newCol))
+                continue;
+            int neighbour = ByteBoard.square(newRow, newCol);
+            if (!LAKES[neighbour] && board.colorAt(neighbour) != color)
+                return true;
+        }
+        return false;
+    }
+
+}
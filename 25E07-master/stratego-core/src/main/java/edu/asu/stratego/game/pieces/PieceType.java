@@ -58,6 +58,14 @@ public enum PieceType {
         this.value = newValue;
     }
 
+    /**
+     * @return false for the pieces that never leave their square: bombs and
+     *         the flag
+     */
+    public boolean isMobile() {
+        return this != BOMB && this != FLAG;
+    }
+
     /**
      * Returns the result of a battle when one piece type attacks another
      * piece type.
@@ -0,0 +1,383 @@
+package edu.asu.stratego.net;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import edu.asu.stratego.game.GameStatus;
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.MoveRejection;
+import edu.asu.stratego.game.ResumeState;
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Compact encoding of the messages exchanged on every turn: the turn color,
+ * the game status, moves, move rejections and the abandon signal. A move takes 7 bytes
+ * instead of the few hundred bytes of its serialized form.
+ * 
+ * <p>
+ * A binary payload starts with a message type code. Java serialization
+ * streams always start with 0xAC, which is never a type code, so a reader can
+ * tell both kinds of payload apart without knowing what the session
+ * negotiated. Messages that have no binary form (Player, SetupBoard) keep
+ * travelling serialized.
+ * </p>
+ *
+ * <p>
+ * Peers that agree on version 2 also send each other a HEARTBEAT at least
+ * every {@link #HEARTBEAT_INTERVAL_MILLIS}, so a silent peer can be told
+ * apart from one that is thinking. Heartbeats are dropped by the frame
+ * readers and never reach the game.
+ * </p>
+ *
+ * <p>
+ * From version 3 the server gives each player a RESUME token when the game
+ * starts. A player who loses the connection sends it back on a new
+ * connection, right after the handshake, and receives the STATE of the game
+ * as they are allowed to see it (see {@link ResumeState}); a hidden piece is
+ * sent with the type 0xF.
+ * </p>
+ *
+ * <p>
+ * From version 4 a client can WATCH a game instead of playing (see
+ * {@link SpectateRequest}). Spectators get the STATE of the game with no
+ * color, and then its moves with the pieces nobody has seen hidden the same
+ * way.
+ * </p>
+ *
+ * <p>
+ * From version 5 nobody is told the type of a piece they have not seen in an
+ * attack, not even in the opponent's setup: a plain MOVE carries the piece
+ * that moved as endPiece, hidden unless the recipient knows it, and an attack
+ * carries the attacker as startPiece and the defender as endPiece, both
+ * revealed, with the flags telling which of them is left on the board. Once
+ * the game is over the player gets the STATE of the whole board, after the
+ * final status, so every piece can be shown. Earlier versions, which cannot
+ * show a battle without knowing the pieces in advance, are turned away at the
+ * handshake. A client that never sends a handshake still gets the piece left
+ * on the end square of an attack, as before version 5, with the same pieces
+ * hidden.
+ * </p>
+ * 
+ * <pre>
+ * HELLO   [1][version]
+ * TURN    [2][color]
+ * STATUS  [3][status]
+ * MOVE    [4][start][end][color][startPiece][endPiece][flags]
+ * ABANDON [5]
+ * REJECT  [6][reason]
+ * HEARTBEAT [7]
+ * RESUME  [8][16 token bytes]
+ * STATE   [9][color][turn][moves:4][clock:4][opponent clock:4][100 pieces]
+ * WATCH   [10][player email, UTF-8]
+ * </pre>
+ * 
+ * Squares are encoded as {@code row * 10 + col}, pieces as
+ * {@code color << 4 | type}, and 0xFF stands for "none" in every field.
+ */
+public final class BinaryProtocol {
+
+    /** Highest protocol version this build understands. */
+    public static final int VERSION = 5;
+
+    /** First version whose peers exchange heartbeats. */
+    public static final int HEARTBEAT_VERSION = 2;
+
+    /** Longest time a peer that sends heartbeats stays silent. */
+    public static final long HEARTBEAT_INTERVAL_MILLIS = 5000;
+
+    /** First version whose players can come back to a game after a disconnect. */
+    public static final int RESUME_VERSION = 3;
+
+    /** First version whose clients can watch games. */
+    public static final int SPECTATOR_VERSION = 4;
+
+    /** First version whose moves carry both pieces of an attack. */
+    public static final int FOG_VERSION = 5;
+
+    /** Lowest version a client may offer in its handshake. */
+    public static final int MIN_VERSION = FOG_VERSION;
+
+    private static final byte HELLO = 1;
+    private static final byte TURN = 2;
+    private static final byte STATUS = 3;
+    private static final byte MOVE = 4;
+    private static final byte ABANDON = 5;
+    private static final byte REJECT = 6;
+    private static final byte HEARTBEAT = 7;
+    private static final byte RESUME = 8;
+    private static final byte STATE = 9;
+    private static final byte WATCH = 10;
+
+    private static final byte NONE = (byte) 0xFF;
+    private static final int HIDDEN = 0x0F;
+
+    private static final int ATTACK = 1;
+    private static final int ATTACK_WIN = 1 << 1;
+    private static final int DEFEND_WIN = 1 << 2;
+
+    // Wire codes are the positions in these tables; append new values only.
+    private static final PieceColor[] COLORS = { PieceColor.RED, PieceColor.BLUE };
+    private static final PieceType[] TYPES = {
+            PieceType.SCOUT, PieceType.MINER, PieceType.SERGEANT, PieceType.LIEUTENANT,
+            PieceType.CAPTAIN, PieceType.MAJOR, PieceType.COLONEL, PieceType.GENERAL,
+            PieceType.MARSHAL, PieceType.BOMB, PieceType.SPY, PieceType.FLAG };
+    private static final GameStatus[] STATUSES = {
+            GameStatus.SETTING_UP, GameStatus.WAITING_OPP, GameStatus.IN_PROGRESS,
+            GameStatus.RED_CAPTURED, GameStatus.BLUE_CAPTURED, GameStatus.RED_NO_MOVES,
+            GameStatus.BLUE_NO_MOVES, GameStatus.RED_DISCONNECTED, GameStatus.BLUE_DISCONNECTED,
+            GameStatus.RED_FLAG_UNREACHABLE, GameStatus.BLUE_FLAG_UNREACHABLE, GameStatus.DISCONNECTED,
+            GameStatus.RED_TIMED_OUT, GameStatus.BLUE_TIMED_OUT };
+    private static final MoveRejection[] REJECTIONS = {
+            MoveRejection.MALFORMED, MoveRejection.WRONG_COLOR, MoveRejection.NOT_YOUR_PIECE,
+            MoveRejection.ILLEGAL_MOVE };
+
+    private static final String ABANDON_SIGNAL = "ABANDON";
+
+    /**
+     * Prevents an instance of this class from being instantiated.
+     */
+    private BinaryProtocol() {
+        /* Intentionally Empty */ }
+
+    /**
+     * @param offered the highest version a client understands
+     * @return the version both sides will use
+     */
+    public static int negotiate(int offered) {
+        return Math.min(offered, VERSION);
+    }
+
+    /**
+     * @param offered the highest version a client understands
+     * @return false if the client is too old to play on this build: it
+     *         would get hidden pieces it cannot decode or show
+     */
+    public static boolean isSupported(int offered) {
+        return offered >= MIN_VERSION;
+    }
+
+    /**
+     * @param message an outbound message
+     * @return true if the message has a binary encoding
+     */
+    public static boolean canEncode(Object message) {
+        return message instanceof PieceColor || message instanceof GameStatus || message instanceof Move
+                || message instanceof MoveRejection || requiresBinary(message)
+                || ABANDON_SIGNAL.equals(message);
+    }
+
+    /**
+     * @param message an outbound message
+     * @return true if the message has no serialized form, and travels binary
+     *         whatever the session negotiated
+     */
+    public static boolean requiresBinary(Object message) {
+        return message instanceof ProtocolHello || message instanceof ResumeToken
+                || message instanceof ResumeState || message instanceof SpectateRequest;
+    }
+
+    /**
+     * @param payload a frame payload
+     * @return true if the payload is binary rather than a serialization stream
+     */
+    public static boolean isBinary(byte[] payload) {
+        return payload.length > 0 && payload[0] != (byte) 0xAC;
+    }
+
+    /**
+     * @param payload a frame payload
+     * @return true if the payload is a heartbeat
+     */
+    public static boolean isHeartbeat(byte[] payload) {
+        return payload.length == 1 && payload[0] == HEARTBEAT;
+    }
+
+    /**
+     * @return the payload of a heartbeat
+     */
+    public static byte[] encodeHeartbeat() {
+        return new byte[] { HEARTBEAT };
+    }
+
+    /**
+     * Encodes a message for which {@link #canEncode(Object)} is true.
+     * 
+     * @param message the message to encode
+     * @return the binary payload
+     */
+    public static byte[] encode(Object message) {
+        if (message instanceof PieceColor)
+            return new byte[] { TURN, colorCode((PieceColor) message) };
+        if (message instanceof GameStatus)
+            return new byte[] { STATUS, (byte) indexOf(STATUSES, (GameStatus) message) };
+        if (message instanceof MoveRejection)
+            return new byte[] { REJECT, (byte) indexOf(REJECTIONS, (MoveRejection) message) };
+        if (message instanceof ProtocolHello)
+            return new byte[] { HELLO, (byte) ((ProtocolHello) message).getVersion() };
+        if (ABANDON_SIGNAL.equals(message))
+            return new byte[] { ABANDON };
+        if (message instanceof ResumeToken)
+            return ByteBuffer.allocate(1 + ResumeToken.LENGTH).put(RESUME)
+                    .put(((ResumeToken) message).getBytes()).array();
+        if (message instanceof ResumeState)
+            return encodeState((ResumeState) message);
+        if (message instanceof SpectateRequest) {
+            byte[] email = ((SpectateRequest) message).getEmail().getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(1 + email.length).put(WATCH).put(email).array();
+        }
+
+        Move move = (Move) message;
+        int flags = (move.isAttackMove() ? ATTACK : 0)
+                | (move.isAttackWin() ? ATTACK_WIN : 0)
+                | (move.isDefendWin() ? DEFEND_WIN : 0);
+        return new byte[] {
+                MOVE,
+                squareCode(move.getStart()),
+                squareCode(move.getEnd()),
+                colorCode(move.getMoveColor()),
+                pieceCode(move.getStartPiece()),
+                pieceCode(move.getEndPiece()),
+                (byte) flags };
+    }
+
+    /**
+     * Decodes a binary payload.
+     * 
+     * @param payload the payload, starting with its type code
+     * @return the decoded message
+     * @throws IOException if the payload is malformed
+     */
+    public static Object decode(byte[] payload) throws IOException {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            byte type = in.get();
+            switch (type) {
+                case HELLO:
+                    return new ProtocolHello(in.get());
+                case TURN:
+                    return COLORS[in.get()];
+                case STATUS:
+                    return STATUSES[in.get()];
+                case ABANDON:
+                    return ABANDON_SIGNAL;
+                case REJECT:
+                    return REJECTIONS[in.get()];
+                case MOVE:
+                    Move move = new Move();
+                    move.setStart(toSquare(in.get()));
+                    move.setEnd(toSquare(in.get()));
+                    move.setMoveColor(toColor(in.get()));
+                    move.setStartPiece(toPiece(in.get()));
+                    move.setEndPiece(toPiece(in.get()));
+                    int flags = in.get();
+                    move.setAttackMove((flags & ATTACK) != 0);
+                    move.setAttackWin((flags & ATTACK_WIN) != 0);
+                    move.setDefendWin((flags & DEFEND_WIN) != 0);
+                    return move;
+                case RESUME:
+                    byte[] token = new byte[ResumeToken.LENGTH];
+                    in.get(token);
+                    return new ResumeToken(token);
+                case STATE:
+                    return decodeState(in);
+                case WATCH:
+                    return new SpectateRequest(new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8));
+                default:
+                    throw new IOException("Unknown binary message type: " + type);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed binary message", e);
+        }
+    }
+
+    private static byte[] encodeState(ResumeState state) {
+        ByteBuffer out = ByteBuffer.allocate(3 + 3 * 4 + ByteBoard.SQUARES);
+        out.put(STATE).put(colorCode(state.getColor())).put(colorCode(state.getTurn()));
+        out.putInt(state.getMoves());
+        out.putInt((int) Math.min(state.getClockMillis(), Integer.MAX_VALUE));
+        out.putInt((int) Math.min(state.getOpponentClockMillis(), Integer.MAX_VALUE));
+        ByteBoard board = state.toBoard();
+        for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+            if (board.isEmpty(square))
+                out.put(NONE);
+            else if (board.isHidden(square))
+                out.put((byte) (indexOf(COLORS, board.colorAt(square)) << 4 | HIDDEN));
+            else
+                out.put((byte) (indexOf(COLORS, board.colorAt(square)) << 4
+                        | indexOf(TYPES, board.typeAt(square))));
+        }
+        return out.array();
+    }
+
+    private static ResumeState decodeState(ByteBuffer in) {
+        PieceColor color = toColor(in.get());
+        PieceColor turn = toColor(in.get());
+        int moves = in.getInt();
+        long clock = in.getInt();
+        long opponentClock = in.getInt();
+        byte[] squares = new byte[ByteBoard.SQUARES];
+        for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+            byte code = in.get();
+            if (code == NONE)
+                continue;
+            PieceColor pieceColor = COLORS[(code >> 4) & 0x0F];
+            squares[square] = ((code & 0x0F) == HIDDEN) ? ByteBoard.hidden(pieceColor)
+                    : ByteBoard.code(pieceColor, TYPES[code & 0x0F]);
+        }
+        return new ResumeState(color, turn, moves, clock, opponentClock, squares);
+    }
+
+    private static byte colorCode(PieceColor color) {
+        return (color == null) ? NONE : (byte) indexOf(COLORS, color);
+    }
+
+    private static PieceColor toColor(byte code) {
+        return (code == NONE) ? null : COLORS[code];
+    }
+
+    private static byte squareCode(Point square) {
+        if (square == null || square.x < 0 || square.y < 0)
+            return NONE;
+        return (byte) (square.x * 10 + square.y);
+    }
+
+    private static Point toSquare(byte code) {
+        return (code == NONE) ? new Point(-1, -1) : new Point(code / 10, code % 10);
+    }
+
+    private static byte pieceCode(Piece piece) {
+        if (piece == null)
+            return NONE;
+        int type = (piece.getPieceType() == null) ? HIDDEN : indexOf(TYPES, piece.getPieceType());
+        return (byte) (indexOf(COLORS, piece.getPieceColor()) << 4 | type);
+    }
+
+    /**
+     * Pieces travel as color and type only; the sprite is rebuilt on arrival
+     * as the owner's face-up sprite, which is what the owner's client sent. A
+     * hidden piece arrives with no type and the back sprite.
+     */
+    private static Piece toPiece(byte code) {
+        if (code == NONE)
+            return null;
+        PieceColor color = COLORS[(code >> 4) & 0x0F];
+        if ((code & 0x0F) == HIDDEN)
+            return new OriginalPiece(null, color, true);
+        return new OriginalPiece(TYPES[code & 0x0F], color, false);
+    }
+
+    private static <T> int indexOf(T[] table, T value) {
+        for (int i = 0; i < table.length; ++i) {
+            if (table[i] == value)
+                return i;
+        }
+        throw new IllegalArgumentException("No wire code for " + value);
+    }
+
+}
@@ -0,0 +1,80 @@
+package edu.asu.stratego.net;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads length-prefixed frames written by a FrameOutputStream.
+ * 
+ * @see edu.asu.stratego.net.Frames
+ */
+public class FrameInputStream implements Closeable {
+
+    private final DataInputStream in;
+
+    // A message read ahead by hasMessage()
+    private byte[] peeked;
+
+    /**
+     * Creates a new instance of FrameInputStream.
+     * 
+     * The length prefix and the payload are each read with a single call, so
+     * no buffer is kept per connection while it sits idle.
+     * 
+     * @param in the underlying input stream (usually a socket stream)
+     */
+    public FrameInputStream(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Blocks until a whole frame has been received and returns the message it
+     * contains. Heartbeats are skipped.
+     * 
+     * @return the received message
+     * @throws IOException            if the stream is closed or malformed
+     * @throws ClassNotFoundException if the class of the message is unknown
+     */
+    public Object readObject() throws IOException, ClassNotFoundException {
+        byte[] payload = peeked;
+        peeked = null;
+        while (payload == null) {
+            payload = readPayload();
+            if (BinaryProtocol.isHeartbeat(payload))
+                payload = null;
+        }
+        return Frames.decode(payload);
+    }
+
+    /**
+     * Tells whether a message has arrived, without waiting for one. The
+     * heartbeats received so far are skipped.
+     * 
+     * @return true if the next {@link #readObject()} returns at once.
+     * @throws IOException if the stream is closed or malformed
+     */
+    public boolean hasMessage() throws IOException {
+        while (peeked == null && in.available() >= Frames.HEADER_SIZE) {
+            byte[] payload = readPayload();
+            if (!BinaryProtocol.isHeartbeat(payload))
+                peeked = payload;
+        }
+        return peeked != null;
+    }
+
+    private byte[] readPayload() throws IOException {
+        int length = in.readInt();
+        Frames.checkLength(length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,90 @@
+package edu.asu.stratego.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes messages to a stream as length-prefixed frames.
+ * 
+ * @see edu.asu.stratego.net.Frames
+ */
+public class FrameOutputStream implements Closeable {
+
+    private final OutputStream out;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean binary = false;
+
+    /**
+     * Creates a new instance of FrameOutputStream.
+     * 
+     * Frames are written with a single call, so no buffer is kept per
+     * connection.
+     * 
+     * @param out the underlying output stream (usually a socket stream)
+     */
+    public FrameOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a message as a single frame and flushes it to the peer. Frames
+     * written from different threads never interleave.
+     * 
+     * @param message the object to send
+     * @throws IOException if the message cannot be written
+     */
+    public void writeObject(Object message) throws IOException {
+        ByteBuffer frame = Frames.encode(message, binary);
+        writeLock.lock();
+        try {
+            out.write(frame.array(), 0, frame.limit());
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a heartbeat frame, which the peer's reader drops.
+     * 
+     * @throws IOException if the frame cannot be written
+     */
+    public void writeHeartbeat() throws IOException {
+        ByteBuffer frame = Frames.heartbeat();
+        writeLock.lock();
+        try {
+            out.write(frame.array(), 0, frame.limit());
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Switches the messages that have a binary form to the binary protocol
+     * once the handshake has agreed on it.
+     * 
+     * @param binary whether to use the binary protocol
+     */
+    public void setBinaryProtocol(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Flushes any buffered bytes to the peer.
+     * 
+     * @throws IOException if the stream is closed
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,117 @@
+package edu.asu.stratego.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Length-prefixed framing for the messages exchanged between the client and
+ * the server. Every frame is a 4-byte big-endian payload length followed by
+ * the payload, so a reader always knows where a message ends without having
+ * to block inside a deserializer. This is what allows the server to read
+ * messages from non-blocking channels.
+ * 
+ * <p>
+ * A payload is either a Java serialization stream or, for the per-turn
+ * messages of a session that negotiated it, a BinaryProtocol message.
+ * </p>
+ */
+public final class Frames {
+
+    /** Size in bytes of the length prefix. */
+    public static final int HEADER_SIZE = 4;
+
+    /** Largest payload a peer is allowed to send. */
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    /**
+     * Prevents an instance of this class from being instantiated.
+     */
+    private Frames() {
+        /* Intentionally Empty */ }
+
+    /**
+     * Serializes a message into a self-contained payload.
+     *
+     * @param message the object to serialize
+     * @return the serialized bytes
+     * @throws IOException if the object cannot be serialized
+     */
+    public static byte[] serialize(Object message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a payload produced by {@link #serialize(Object)}.
+     *
+     * @param payload the serialized bytes
+     * @return the message contained in the payload
+     * @throws IOException            if the payload is malformed
+     * @throws ClassNotFoundException if the class of the message is unknown
+     */
+    public static Object deserialize(byte[] payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Decodes a frame payload, whichever of the two encodings it uses.
+     *
+     * @param payload the payload of a frame
+     * @return the message contained in the payload
+     * @throws IOException            if the payload is malformed
+     * @throws ClassNotFoundException if the class of the message is unknown
+     */
+    public static Object decode(byte[] payload) throws IOException, ClassNotFoundException {
+        return BinaryProtocol.isBinary(payload) ? BinaryProtocol.decode(payload) : deserialize(payload);
+    }
+
+    /**
+     * Encodes a message as a complete frame (length prefix and payload) ready
+     * to be written to a channel.
+     *
+     * @param message the object to encode
+     * @param binary  whether the peer negotiated the binary protocol
+     * @return a buffer positioned at the start of the frame
+     * @throws IOException if the object cannot be serialized
+     */
+    public static ByteBuffer encode(Object message, boolean binary) throws IOException {
+        byte[] payload = (BinaryProtocol.requiresBinary(message) || (binary && BinaryProtocol.canEncode(message)))
+                ? BinaryProtocol.encode(message)
+                : serialize(message);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return frame;
+    }
+
+    /**
+     * @return a complete heartbeat frame, see
+     *         {@link BinaryProtocol#HEARTBEAT_VERSION}
+     */
+    public static ByteBuffer heartbeat() {
+        byte[] payload = BinaryProtocol.encodeHeartbeat();
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return frame;
+    }
+
+    /**
+     * Validates a length prefix read from the wire.
+     *
+     * @param length the payload length announced by the peer
+     * @throws IOException if the length is negative or too large
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE)
+            throw new IOException("Invalid frame length: " + length);
+    }
+
+}
@@ -0,0 +1,31 @@
+package edu.asu.stratego.net;
+
+/**
+ * First message of a session when the client supports the binary protocol.
+ * The client sends the highest protocol version it understands and the
+ * server answers with the version both sides will use. A client that skips
+ * the handshake is served with Java serialization only.
+ * 
+ * @see edu.asu.stratego.net.BinaryProtocol
+ */
+public final class ProtocolHello {
+
+    private final int version;
+
+    /**
+     * Creates a new instance of ProtocolHello.
+     * 
+     * @param version protocol version offered or accepted
+     */
+    public ProtocolHello(int version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the protocol version offered or accepted
+     */
+    public int getVersion() {
+        return version;
+    }
+
+}
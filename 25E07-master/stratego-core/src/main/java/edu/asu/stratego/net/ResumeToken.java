@@ -0,0 +1,72 @@
+package edu.asu.stratego.net;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Secret that lets a player take their seat back after losing the
+ * connection to a game in progress.
+ *
+ * <p>
+ * The server hands each player a token when the game starts, if both sides
+ * agreed on {@link BinaryProtocol#RESUME_VERSION}. A client that loses the
+ * connection reconnects, completes the handshake and sends its token instead
+ * of its player information; the server answers with the position (see
+ * {@link edu.asu.stratego.game.ResumeState}) and the game goes on.
+ * </p>
+ */
+public final class ResumeToken {
+
+    /** Length of a token, in bytes. */
+    public static final int LENGTH = 16;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final byte[] bytes;
+
+    /**
+     * Creates a new instance of ResumeToken.
+     *
+     * @param bytes the {@link #LENGTH} bytes of the token
+     */
+    public ResumeToken(byte[] bytes) {
+        if (bytes.length != LENGTH)
+            throw new IllegalArgumentException("A resume token has " + LENGTH + " bytes, not " + bytes.length);
+        this.bytes = bytes.clone();
+    }
+
+    /**
+     * @return a new token nobody can guess
+     */
+    public static ResumeToken random() {
+        byte[] bytes = new byte[LENGTH];
+        random.nextBytes(bytes);
+        return new ResumeToken(bytes);
+    }
+
+    /**
+     * @return a copy of the bytes of the token
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ResumeToken && Arrays.equals(bytes, ((ResumeToken) other).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Only the first bytes are shown, so logs never hold a usable token.
+     */
+    @Override
+    public String toString() {
+        return String.format("ResumeToken[%02x%02x...]", bytes[0], bytes[1]);
+    }
+
+}
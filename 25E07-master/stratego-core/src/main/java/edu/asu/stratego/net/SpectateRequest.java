@@ -0,0 +1,33 @@
+package edu.asu.stratego.net;
+
+/**
+ * Sent instead of the player information by a client that wants to watch a
+ * game rather than play one. The server answers with the position, as a
+ * {@link edu.asu.stratego.game.ResumeState} with no color, and then sends the
+ * game's moves, statuses and turns as the players get them, with every piece
+ * nobody has seen in an attack hidden.
+ *
+ * @see edu.asu.stratego.net.BinaryProtocol#SPECTATOR_VERSION
+ */
+public final class SpectateRequest {
+
+    private final String email;
+
+    /**
+     * Creates a new instance of SpectateRequest.
+     *
+     * @param email email of one of the players of the game to watch, or an
+     *              empty string for any game in progress
+     */
+    public SpectateRequest(String email) {
+        this.email = (email == null) ? "" : email;
+    }
+
+    /**
+     * @return email of one of the players, or an empty string for any game
+     */
+    public String getEmail() {
+        return email;
+    }
+
+}
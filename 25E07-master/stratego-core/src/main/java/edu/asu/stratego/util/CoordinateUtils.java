@@ -0,0 +1,51 @@
+package edu.asu.stratego.util;
+
+import java.awt.Point;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.pieces.Piece;
+
+public class CoordinateUtils {
+
+    /**
+     * Rotates a point 180 degrees around the center of the 10x10 board.
+     *
+     * @param p the original point
+     * @return a new point rotated 180 degrees
+     */
+    public static Point rotate180(Point p) {
+        return new Point(9 - p.x, 9 - p.y);
+    }
+
+    /**
+     * Rotates the move coordinates by 180 degrees for Player One, while keeping
+     * Player Two’s perspective intact.
+     * Sets the move details for both players accordingly.
+     *
+     * @param move            The original move received.
+     * @param moveToPlayerOne Move object populated for Player One (rotated).
+     * @param moveToPlayerTwo Move object populated for Player Two (original).
+     * @param startPiece      The piece that starts the move.
+     * @param endPiece        The piece at the destination.
+     * @param attackWin       Whether the attacking piece wins.
+     * @param defendWin       Whether the defending piece wins.
+     */
+    public static void rotateMove(Move move, Move moveToPlayerOne, Move moveToPlayerTwo, Piece startPiece, Piece endPiece,
+            boolean attackWin, boolean defendWin) {
+        moveToPlayerOne.setStart(rotate180(move.getStart()));
+        moveToPlayerOne.setEnd(rotate180(move.getEnd()));
+        moveToPlayerOne.setMoveColor(move.getMoveColor());
+        moveToPlayerOne.setStartPiece(startPiece);
+        moveToPlayerOne.setEndPiece(endPiece);
+        moveToPlayerOne.setAttackWin(attackWin);
+        moveToPlayerOne.setDefendWin(defendWin);
+
+        moveToPlayerTwo.setStart(new Point(move.getStart().x, move.getStart().y));
+        moveToPlayerTwo.setEnd(new Point(move.getEnd().x, move.getEnd().y));
+        moveToPlayerTwo.setMoveColor(move.getMoveColor());
+        moveToPlayerTwo.setStartPiece(startPiece);
+        moveToPlayerTwo.setEndPiece(endPiece);
+        moveToPlayerTwo.setAttackWin(attackWin);
+        moveToPlayerTwo.setDefendWin(defendWin);
+    }
+}
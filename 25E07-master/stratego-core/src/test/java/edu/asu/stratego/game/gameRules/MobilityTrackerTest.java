@@ -0,0 +1,182 @@
+package edu.asu.stratego.game.gameRules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.asu.stratego.game.Move;
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Randomized differential test of the incremental mobility tracking: plays
+ * random games on random boards and, at every state, checks
+ * {@link GameRules#hasAvailableMoves(PieceColor)}, and the number of pieces
+ * the tracker counts as mobile, against a full
+ * {@link GameRules#computeValidMoves(int, int, PieceColor)} scan and against
+ * {@link BitboardRules}.
+ */
+class MobilityTrackerTest {
+
+    private static final int GAMES = 1000;
+    private static final int PLIES = 200;
+    private static final int[][] NEIGHBOURS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
+    private final Random random = new Random(42);
+    private final RulesFactory factory = new OriginalRulesFactory();
+
+    @Test
+    void trackerMatchesFullScanAndBitboards() {
+        long states = 0;
+        long attacks = 0;
+        long stuck = 0;
+
+        for (int game = 0; game < GAMES; ++game) {
+            GameRules original = factory.createOriginalRules(new ServerBoard());
+            GameRules bitboard = factory.createBitboardRules();
+            fillRandomly(original, bitboard);
+
+            for (int ply = 0; ply < PLIES; ++ply) {
+                compare(original, bitboard, "game " + game + ", ply " + ply);
+                ++states;
+                if (!original.hasAvailableMoves(PieceColor.RED) || !original.hasAvailableMoves(PieceColor.BLUE))
+                    ++stuck;
+
+                Point[] move = randomMove(original);
+                if (move == null)
+                    break;
+                if (original.getPiece(move[1].x, move[1].y) != null)
+                    ++attacks;
+                play(original, bitboard, move);
+            }
+        }
+
+        // The random games must reach both attacks and players without moves
+        assertTrue(states > GAMES, "states checked: " + states);
+        assertTrue(attacks > 0, "attacks played: " + attacks);
+        assertTrue(stuck > 0, "states with a player out of moves: " + stuck);
+    }
+
+    private void fillRandomly(GameRules original, GameRules bitboard) {
+        double density = random.nextDouble() * 0.6;
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                if (RulesKernel.isLake(row, col) || random.nextDouble() >= density)
+                    continue;
+                Piece piece = new OriginalPiece(PieceType.values()[random.nextInt(PieceType.values().length)],
+                        PieceColor.values()[random.nextInt(2)], false);
+                original.setPiece(row, col, piece);
+                bitboard.setPiece(row, col, piece);
+            }
+        }
+    }
+
+    /**
+     * @return a random valid move, or a random step into an adjacent enemy or
+     *         empty square, so that immobile pieces get attacked too; null if
+     *         nothing can move.
+     */
+    private Point[] randomMove(GameRules rules) {
+        List<Point[]> candidates = new ArrayList<>();
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = rules.getPiece(row, col);
+                if (piece == null)
+                    continue;
+                Point start = new Point(row, col);
+                for (Point end : rules.computeValidMoves(row, col, piece.getPieceColor()))
+                    candidates.add(new Point[] { start, end });
+                for (int[] step : NEIGHBOURS) {
+                    int r = row + step[0];
+                    int c = col + step[1];
+                    if (!RulesKernel.isInBounds(r, c) || RulesKernel.isLake(r, c))
+                        continue;
+                    Piece target = rules.getPiece(r, c);
+                    if (target == null || target.getPieceColor() != piece.getPieceColor())
+                        candidates.add(new Point[] { start, new Point(r, c) });
+                }
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private static void play(GameRules original, GameRules bitboard, Point[] squares) {
+        Move move = new Move();
+        move.setStart(squares[0].x, squares[0].y);
+        move.setEnd(squares[1].x, squares[1].y);
+        move.setMoveColor(original.getPiece(squares[0].x, squares[0].y).getPieceColor());
+
+        Move originalOne = new Move();
+        Move originalTwo = new Move();
+        Move bitboardOne = new Move();
+        Move bitboardTwo = new Move();
+        original.processMove(move, originalOne, originalTwo);
+        bitboard.processMove(move, bitboardOne, bitboardTwo);
+        assertEquals(describe(originalOne), describe(bitboardOne));
+        assertEquals(describe(originalTwo), describe(bitboardTwo));
+    }
+
+    private static void compare(GameRules original, GameRules bitboard, String where) {
+        MobilityTracker tracker = ((BaseRules) original).mobility;
+        for (PieceColor color : PieceColor.values()) {
+            int mobile = fullScan(original, color);
+            boolean tracked = original.hasAvailableMoves(color);
+            assertEquals(mobile, tracker.getMobileCount(color), where + ": mobile pieces of " + color);
+            assertEquals(mobile > 0, tracked, where + ": tracker vs scan for " + color);
+            assertEquals(tracked, bitboard.hasAvailableMoves(color), where + ": tracker vs bitboards for " + color);
+        }
+
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = original.getPiece(row, col);
+                assertEquals(describe(piece), describe(bitboard.getPiece(row, col)),
+                        where + ": piece at " + row + "," + col);
+                if (piece == null)
+                    continue;
+                assertEquals(new HashSet<>(original.computeValidMoves(row, col, piece.getPieceColor())),
+                        new HashSet<>(bitboard.computeValidMoves(row, col, piece.getPieceColor())),
+                        where + ": moves from " + row + "," + col);
+            }
+        }
+    }
+
+    /**
+     * The check the tracker replaced: every piece of the color, every valid
+     * move.
+     *
+     * @return the number of pieces of the color that have a valid move.
+     */
+    private static int fullScan(GameRules rules, PieceColor color) {
+        int mobile = 0;
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = rules.getPiece(row, col);
+                if (piece != null && piece.getPieceColor() == color
+                        && !rules.computeValidMoves(row, col, color).isEmpty())
+                    ++mobile;
+            }
+        }
+        return mobile;
+    }
+
+    private static String describe(Piece piece) {
+        return (piece == null) ? "-" : piece.getPieceColor() + "/" + piece.getPieceType();
+    }
+
+    private static String describe(Move move) {
+        return move.getStart() + " " + move.getEnd() + " " + describe(move.getStartPiece()) + " "
+                + describe(move.getEndPiece()) + " " + move.isAttackMove() + " " + move.isAttackWin() + " "
+                + move.isDefendWin();
+    }
+
+}
@@ -0,0 +1,98 @@
+package edu.asu.stratego.game.gameRules;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Checks that the primitive rules API allocates nothing per call, for both
+ * engines: {@link GameRules#computeValidMoves(int, int, PieceColor, int[])},
+ * {@link GameRules#isValidMove(Point, Point, PieceColor)} and
+ * {@link GameRules#hasAvailableMoves(PieceColor)}, over every piece of a
+ * random board. The bytes come from the JVM's per-thread allocation counter.
+ */
+class RulesAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int PASSES = 20_000;
+
+    private final RulesFactory factory = new OriginalRulesFactory();
+
+    @Test
+    void originalRulesAllocateNothing() {
+        assertNoAllocation("original", factory.createOriginalRules(new ServerBoard()));
+    }
+
+    @Test
+    void bitboardRulesAllocateNothing() {
+        assertNoAllocation("bitboard", factory.createBitboardRules());
+    }
+
+    private static void assertNoAllocation(String engine, GameRules rules) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Random random = new Random(7);
+        List<Point> pieces = new ArrayList<>();
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                if (RulesKernel.isLake(row, col) || random.nextDouble() >= 0.5)
+                    continue;
+                PieceType type = PieceType.values()[random.nextInt(PieceType.values().length)];
+                rules.setPiece(row, col, new OriginalPiece(type, PieceColor.values()[random.nextInt(2)], false));
+                pieces.add(new Point(row, col));
+            }
+        }
+        Point[] squares = pieces.toArray(new Point[0]);
+        PieceColor[] colors = new PieceColor[squares.length];
+        Point[] targets = new Point[squares.length];
+        for (int i = 0; i < squares.length; ++i) {
+            colors[i] = rules.getPiece(squares[i].x, squares[i].y).getPieceColor();
+            // Un destino vecino, válido o no: ambos caminos cuentan
+            targets[i] = new Point(squares[i].x, (squares[i].y + 1) % 10);
+        }
+        int[] buffer = new int[GameRules.MAX_VALID_MOVES];
+
+        long sink = pass(rules, squares, colors, targets, buffer, WARMUP);
+        long thread = Thread.currentThread().threadId();
+        threads.getThreadAllocatedBytes(thread);
+        long before = threads.getThreadAllocatedBytes(thread);
+        sink += pass(rules, squares, colors, targets, buffer, PASSES);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(sink > 0, "no moves generated");
+        // Menos de un byte por pasada: el contador mismo puede sumar unos pocos
+        assertTrue(allocated < PASSES, engine + " allocated " + allocated + " bytes in " + PASSES
+                + " passes over " + squares.length + " pieces");
+    }
+
+    private static long pass(GameRules rules, Point[] squares, PieceColor[] colors, Point[] targets, int[] buffer,
+            int passes) {
+        long total = 0;
+        for (int pass = 0; pass < passes; ++pass) {
+            for (int i = 0; i < squares.length; ++i) {
+                total += rules.computeValidMoves(squares[i].x, squares[i].y, colors[i], buffer);
+                if (rules.isValidMove(squares[i], targets[i], colors[i]))
+                    ++total;
+            }
+            if (rules.hasAvailableMoves(PieceColor.RED) && rules.hasAvailableMoves(PieceColor.BLUE))
+                ++total;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,214 @@
+package edu.asu.stratego.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+/**
+ * Access to the game database.
+ *
+ * <p>
+ * Connections come from a bounded HikariCP pool that is handed to Hibernate
+ * as its data source; the MySQL driver caches prepared statements on each
+ * pooled connection. The settings are read from {@code db.properties} and,
+ * with {@code -Dstratego.db.profile=<name>}, from {@code db-<name>.properties}
+ * on top of it. Any single setting can be overridden with a
+ * {@code -Dstratego.db.<key>} system property.
+ * </p>
+ *
+ * <p>
+ * {@link #query(Function)} and {@link #inTransaction(Function)} open an
+ * EntityManager for one unit of work and always close it, which returns its
+ * connection to the pool.
+ * </p>
+ */
+public class JpaUtil {
+
+    private static final String PROPERTY_PREFIX = "stratego.db.";
+    private static final String DRIVER_PREFIX = "driver.";
+    private static final String HIBERNATE_PREFIX = "hibernate.";
+
+    // Created on first use. If the database is down the factory is not
+    // cached, so a later call can try again instead of failing forever.
+    private static volatile EntityManagerFactory emf;
+    private static HikariDataSource dataSource;
+
+    /**
+     * Returns a new EntityManager. The caller must close it; prefer
+     * {@link #query(Function)} or {@link #inTransaction(Function)}.
+     */
+    public static EntityManager getEntityManager() {
+        EntityManagerFactory factory = emf;
+        if (factory == null) {
+            synchronized (JpaUtil.class) {
+                factory = emf;
+                if (factory == null) {
+                    factory = createFactory();
+                    emf = factory;
+                }
+            }
+        }
+        return factory.createEntityManager();
+    }
+
+    /**
+     * Runs a read-only unit of work with its own EntityManager.
+     */
+    public static <T> T query(Function<EntityManager, T> work) {
+        EntityManager em = getEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Runs a unit of work in a transaction with its own EntityManager. The
+     * transaction is rolled back if the work throws.
+     */
+    public static <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive())
+                tx.rollback();
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Same as {@link #inTransaction(Function)} for work without a result.
+     */
+    public static void runInTransaction(Consumer<EntityManager> work) {
+        inTransaction(em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * Closes the EntityManagerFactory and the connection pool.
+     */
+    public static synchronized void shutdown() {
+        if (emf != null) {
+            emf.close();
+            emf = null;
+        }
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Number of pooled connections currently lent out, or 0 before the pool
+     * exists.
+     */
+    public static int getActiveConnections() {
+        HikariDataSource pool = dataSource;
+        return (pool == null || pool.getHikariPoolMXBean() == null) ? 0
+                : pool.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    /**
+     * Number of connections the pool holds, lent out or idle, or 0 before the
+     * pool exists. Never more than {@code pool.size}.
+     */
+    public static int getTotalConnections() {
+        HikariDataSource pool = dataSource;
+        return (pool == null || pool.getHikariPoolMXBean() == null) ? 0
+                : pool.getHikariPoolMXBean().getTotalConnections();
+    }
+
+    /**
+     * Largest number of connections the pool may hold, or 0 before the pool
+     * exists.
+     */
+    public static int getMaximumPoolSize() {
+        HikariDataSource pool = dataSource;
+        return (pool == null) ? 0 : pool.getMaximumPoolSize();
+    }
+
+    private static EntityManagerFactory createFactory() {
+        Properties settings = loadSettings();
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("stratego-db");
+        config.setJdbcUrl(settings.getProperty("url"));
+        config.setUsername(settings.getProperty("user"));
+        config.setPassword(settings.getProperty("password"));
+        config.setMaximumPoolSize(Integer.parseInt(settings.getProperty("pool.size", "10")));
+        config.setMinimumIdle(Integer.parseInt(settings.getProperty("pool.minIdle", "2")));
+        config.setConnectionTimeout(Long.parseLong(settings.getProperty("pool.connectionTimeoutMillis", "5000")));
+        config.setLeakDetectionThreshold(Long.parseLong(settings.getProperty("pool.leakDetectionMillis", "0")));
+
+        Map<String, Object> hibernate = new HashMap<>();
+        for (String key : settings.stringPropertyNames()) {
+            if (key.startsWith(DRIVER_PREFIX)) {
+                config.addDataSourceProperty(key.substring(DRIVER_PREFIX.length()), settings.getProperty(key));
+            } else if (key.startsWith(HIBERNATE_PREFIX)) {
+                hibernate.put(key, settings.getProperty(key));
+            }
+        }
+
+        HikariDataSource pool = new HikariDataSource(config);
+        hibernate.put("jakarta.persistence.nonJtaDataSource", pool);
+        try {
+            EntityManagerFactory factory = Persistence.createEntityManagerFactory("gamePU", hibernate);
+            dataSource = pool;
+            return factory;
+        } catch (RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+    }
+
+    private static Properties loadSettings() {
+        Properties settings = new Properties();
+        load(settings, "/db.properties");
+
+        String profile = System.getProperty(PROPERTY_PREFIX + "profile");
+        if (profile != null) {
+            load(settings, "/db-" + profile + ".properties");
+        }
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PROPERTY_PREFIX)) {
+                settings.setProperty(name.substring(PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return settings;
+    }
+
+    private static void load(Properties settings, String resource) {
+        try (InputStream in = JpaUtil.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing database settings " + resource);
+            }
+            settings.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read database settings " + resource, e);
+        }
+    }
+
+}
@@ -7,12 +7,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Match history is read newest first (see GameService.findHistory)
+@Table(indexes = @Index(name = "idx_game_end_time", columnList = "endTime, id"))
 public class Game {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Id the server gave the session; stores a result only once
+    @Column(unique = true, length = 64)
+    private String gameId;
+
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<GamePlayer> gamePlayers = new ArrayList<>();
 
@@ -44,6 +50,14 @@ public class Game {
         this.id = id;
     }
 
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
     public List<GamePlayer> getGamePlayers() {
         return gamePlayers;
     }
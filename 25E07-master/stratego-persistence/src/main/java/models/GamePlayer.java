@@ -3,6 +3,7 @@ package models;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_game_player_player", columnList = "player_id, game_id"))
 public class GamePlayer {
 
     @Id
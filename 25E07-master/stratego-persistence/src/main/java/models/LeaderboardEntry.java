@@ -0,0 +1,76 @@
+package models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the leaderboard snapshot written by the server. Also used to
+ * carry a player's standing while the ranking is rebuilt.
+ */
+@Entity
+@Table(name = "leaderboard")
+public class LeaderboardEntry {
+
+    @Id
+    private int position;
+
+    private String email;
+
+    private String nickname;
+
+    private int points;
+
+    private LocalDateTime snapshotTime;
+
+    public LeaderboardEntry() {
+    }
+
+    public LeaderboardEntry(String email, String nickname, int points) {
+        this.email = email;
+        this.nickname = nickname;
+        this.points = points;
+    }
+
+    // Getters and Setters
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    public LocalDateTime getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    public void setSnapshotTime(LocalDateTime snapshotTime) {
+        this.snapshotTime = snapshotTime;
+    }
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import services.RatingEngine;
+
 @Entity
 public class Player {
 
@@ -18,7 +20,10 @@ public class Player {
 
     private String password;
 
-    private Integer points = 0;
+    private Integer points = RatingEngine.INITIAL_RATING;
+
+    // Rating written by RatingReplay, until it replaces points
+    private Integer replayedPoints;
 
     @OneToMany(mappedBy = "player", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<GamePlayer> gamePlayers = new ArrayList<>();
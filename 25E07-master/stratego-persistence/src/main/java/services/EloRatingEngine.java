@@ -0,0 +1,30 @@
+package services;
+
+/**
+ * Elo ratings: the winner takes from the loser {@code K * (1 - E)} points,
+ * where {@code E} is the winner's expected score given the rating gap. An
+ * upset moves more points than an expected win, and the total stays the
+ * same. Leaving a game is rated as a loss.
+ */
+public class EloRatingEngine implements RatingEngine {
+
+    public static final int DEFAULT_K = 32;
+
+    private final int k;
+
+    public EloRatingEngine() {
+        this(DEFAULT_K);
+    }
+
+    public EloRatingEngine(int k) {
+        this.k = k;
+    }
+
+    @Override
+    public int[] rate(int winnerRating, int loserRating, boolean abandoned) {
+        double expected = 1.0 / (1.0 + Math.pow(10.0, (loserRating - winnerRating) / 400.0));
+        // A win is always worth at least one point
+        int delta = Math.max(1, (int) Math.round(k * (1.0 - expected)));
+        return new int[] { delta, -delta };
+    }
+}
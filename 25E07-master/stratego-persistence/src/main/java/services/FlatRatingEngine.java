@@ -0,0 +1,13 @@
+package services;
+
+/**
+ * The original scoring: 100 points for a win, 50 when the opponent left,
+ * and nothing taken from the loser.
+ */
+public class FlatRatingEngine implements RatingEngine {
+
+    @Override
+    public int[] rate(int winnerRating, int loserRating, boolean abandoned) {
+        return new int[] { abandoned ? 50 : 100, 0 };
+    }
+}
@@ -0,0 +1,67 @@
+package services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a player's match history, as shown in the history screen.
+ * Built directly by the query in {@link GameService#findHistory}, without
+ * loading the Game entity.
+ */
+public final class GameHistoryEntry {
+
+    public enum Result {
+        WON,
+        LOST,
+        FINISHED;
+    }
+
+    private final Long gameId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final boolean abandoned;
+    private final Result result;
+    private final String opponentNickname;
+
+    public GameHistoryEntry(Long gameId, LocalDateTime startTime, LocalDateTime endTime, boolean abandoned,
+            String result, String opponentNickname) {
+        this.gameId = gameId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.abandoned = abandoned;
+        this.result = Result.valueOf(result);
+        this.opponentNickname = opponentNickname;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public Duration getDuration() {
+        return Duration.between(startTime, endTime);
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * Nickname of the other player, or null if the game has no record of
+     * them.
+     */
+    public String getOpponentNickname() {
+        return opponentNickname;
+    }
+}
@@ -0,0 +1,21 @@
+package services;
+
+import models.GamePlayer;
+import edu.asu.stratego.util.JpaUtil;
+
+public class GamePlayerService {
+
+    public void saveGamePlayer(GamePlayer gamePlayer) {
+        try {
+            JpaUtil.runInTransaction(em -> {
+                if (gamePlayer.getId() == null) {
+                    em.persist(gamePlayer);
+                } else {
+                    em.merge(gamePlayer);
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a finished game as handed to the {@link GameResultWriter}:
+ * who won and who lost. The rating changes are worked out when the result
+ * is stored, from the players' ratings at that time. Players are
+ * identified by email, which is what the server knows about them. The game id
+ * is the one the server gave the session: a result whose id is already
+ * stored is not stored again.
+ */
+public final class GameResult {
+
+    private final String gameId;
+    private final String winnerEmail;
+    private final String loserEmail;
+    private final boolean winnerRed;
+    private final boolean abandoned;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public GameResult(String gameId, String winnerEmail, String loserEmail, boolean winnerRed, boolean abandoned,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        this.gameId = gameId;
+        this.winnerEmail = winnerEmail;
+        this.loserEmail = loserEmail;
+        this.winnerRed = winnerRed;
+        this.abandoned = abandoned;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * @return the session's game id, or null for a result spilled before
+     *         results had one.
+     */
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getWinnerEmail() {
+        return winnerEmail;
+    }
+
+    public String getLoserEmail() {
+        return loserEmail;
+    }
+
+    public boolean isWinnerRed() {
+        return winnerRed;
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * One tab separated line, as stored in the spill file.
+     */
+    String toLine() {
+        return winnerEmail + '\t' + loserEmail + '\t' + winnerRed + '\t' + abandoned + '\t'
+                + startTime + '\t' + endTime + '\t' + gameId;
+    }
+
+    static GameResult fromLine(String line) {
+        String[] fields = line.split("\t");
+        String gameId = null;
+        if (fields.length == 7 && isBoolean(fields[3])) {
+            gameId = fields[6].equals("null") ? null : fields[6];
+        } else if (fields.length == 7) {
+            // Written before ratings: the fourth field held the flat award
+            fields = new String[] { fields[0], fields[1], fields[2], fields[4], fields[5], fields[6] };
+        } else if (fields.length != 6) {
+            throw new IllegalArgumentException("Malformed game result: " + line);
+        }
+        return new GameResult(gameId, fields[0], fields[1], Boolean.parseBoolean(fields[2]),
+                Boolean.parseBoolean(fields[3]), LocalDateTime.parse(fields[4]), LocalDateTime.parse(fields[5]));
+    }
+
+    private static boolean isBoolean(String field) {
+        return field.equals("true") || field.equals("false");
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult[" + gameId + ": " + winnerEmail + " beat " + loserEmail + (abandoned ? ", abandoned" : "") + "]";
+    }
+}
@@ -0,0 +1,491 @@
+package services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.util.JpaUtil;
+import jakarta.persistence.Query;
+import models.Game;
+import models.GamePlayer;
+import models.Player;
+
+/**
+ * Write-behind store for finished games.
+ *
+ * <p>
+ * Game threads hand their results to {@link #submit(GameResult)}, which never
+ * waits on the database: the result goes into a bounded queue, or straight
+ * to the spill file when the queue is full. A single writer thread drains the
+ * queue and stores each batch in one transaction: the game, both GamePlayer
+ * rows and both players' new ratings, as computed by the
+ * {@link RatingEngine}. Rating changes are added in place with
+ * {@code points = points + ?} so concurrent writers cannot lose an update.
+ * </p>
+ *
+ * <p>
+ * A batch that still fails after {@link #MAX_ATTEMPTS} attempts is appended
+ * to a local spill file (one line per game, flushed to disk). The spill file
+ * is replayed when the writer starts and periodically while it runs, so
+ * results survive a database outage and a server restart: it is renamed
+ * before it is read, and the renamed file is only deleted once all of it is
+ * stored.
+ * </p>
+ *
+ * <p>
+ * A result may reach the database more than once: a crash between a commit
+ * and the deletion of the file it came from, a commit whose acknowledgement
+ * is lost, or a batch spilled at shutdown while it was still being stored.
+ * Every result carries the id of its game, stored in a unique column of
+ * {@link Game}, and a result whose game is already stored is skipped.
+ * </p>
+ */
+public class GameResultWriter {
+
+    private static final Logger logger = Logger.getLogger(GameResultWriter.class.getName());
+
+    static final int QUEUE_CAPACITY = 1024;
+    static final int MAX_BATCH = 64;
+    static final int MAX_ATTEMPTS = 3;
+    static final long RETRY_BACKOFF_MILLIS = 1000;
+    static final long SPILL_REPLAY_MILLIS = 30_000;
+
+    /**
+     * {@code -Dstratego.spill=<file>} changes where undelivered results are
+     * kept.
+     */
+    private static final String SPILL_FILE = System.getProperty("stratego.spill", "stratego-results.spill");
+
+    private static final class Holder {
+        static final GameResultWriter INSTANCE = new GameResultWriter(Paths.get(SPILL_FILE));
+        static {
+            INSTANCE.start();
+        }
+    }
+
+    private final BlockingQueue<GameResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Path spillFile;
+    private final Path replayFile;
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final Thread writer;
+    private final RatingEngine ratingEngine;
+    private final List<RatingListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = true;
+    // El lote que el escritor tiene entre manos, para shutdown()
+    private volatile List<GameResult> inFlight = List.of();
+    private long lastReplay;
+
+    /**
+     * Told about the new rating of each player after a batch is stored.
+     */
+    public interface RatingListener {
+        void ratingChanged(String email, String nickname, int rating);
+    }
+
+    /**
+     * Returns the writer shared by every game of this server, starting it on
+     * first use.
+     */
+    public static GameResultWriter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public GameResultWriter(Path spillFile) {
+        this(spillFile, RatingEngine.fromSystemProperty());
+    }
+
+    public GameResultWriter(Path spillFile, RatingEngine ratingEngine) {
+        this.spillFile = spillFile;
+        this.replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        this.ratingEngine = ratingEngine;
+        this.writer = new Thread(this::drain, "game-result-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public void addListener(RatingListener listener) {
+        listeners.add(listener);
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Queues a finished game for storage. Returns immediately.
+     */
+    public void submit(GameResult result) {
+        if (!running || !queue.offer(result)) {
+            spill(List.of(result));
+        }
+    }
+
+    /**
+     * Stops the writer. Results still queued are stored in one last batch,
+     * or moved to the spill file if that fails or takes longer than
+     * {@code timeoutMillis}. If the writer is still storing a batch when the
+     * time is up, that batch is spilled as well; whichever copy reaches the
+     * database second is skipped.
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            spill(inFlight);
+        }
+        spillQueued();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        replaySpill();
+
+        List<GameResult> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                GameResult first = queue.poll(SPILL_REPLAY_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    inFlight = List.copyOf(batch);
+                    if (!storeWithRetry(batch)) {
+                        spill(batch);
+                    }
+                    batch.clear();
+                    inFlight = List.of();
+                }
+                if (System.currentTimeMillis() - lastReplay >= SPILL_REPLAY_MILLIS) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                // shutdown(): the batch is stored below with the rest
+                break;
+            }
+        }
+
+        // A pending interrupt would close the spill file's channel
+        Thread.interrupted();
+        queue.drainTo(batch);
+        inFlight = List.copyOf(batch);
+        if (!batch.isEmpty()) {
+            Map<Player, Integer> ratings;
+            try {
+                ratings = store(batch);
+            } catch (RuntimeException | LinkageError e) {
+                logger.log(Level.WARNING, "Could not store " + batch.size() + " game results at shutdown", e);
+                spill(batch);
+                return;
+            }
+            ratingsChanged(ratings);
+        }
+    }
+
+    private boolean storeWithRetry(List<GameResult> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Map<Player, Integer> ratings;
+            try {
+                ratings = store(batch);
+            } catch (RuntimeException | LinkageError e) {
+                logger.log(Level.WARNING, "Storing " + batch.size() + " game results failed (attempt "
+                        + attempt + " of " + MAX_ATTEMPTS + ")", e);
+                if (attempt < MAX_ATTEMPTS) {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+                }
+                continue;
+            }
+            ratingsChanged(ratings);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stores a batch of results in a single transaction. The rating engine
+     * rates the games in order, each from the ratings left by the previous
+     * one, and each player's total change is added in one update. Results
+     * whose game is already stored are skipped.
+     *
+     * @return the new rating of each player in the batch.
+     */
+    private Map<Player, Integer> store(List<GameResult> batch) {
+        Map<Long, Player> rated = new HashMap<>();
+        Map<Long, Integer> ratings = new HashMap<>();
+        JpaUtil.runInTransaction(em -> {
+            Set<String> emails = new HashSet<>();
+            for (GameResult result : batch) {
+                emails.add(result.getWinnerEmail());
+                emails.add(result.getLoserEmail());
+            }
+            emails.remove(null);
+
+            Map<String, Player> players = new HashMap<>();
+            for (Player player : em.createQuery("SELECT p FROM Player p WHERE p.email IN :emails", Player.class)
+                    .setParameter("emails", emails)
+                    .getResultList()) {
+                players.put(player.getEmail(), player);
+            }
+
+            Set<String> gameIds = new HashSet<>();
+            for (GameResult result : batch) {
+                gameIds.add(result.getGameId());
+            }
+            gameIds.remove(null);
+            Set<String> stored = new HashSet<>();
+            if (!gameIds.isEmpty()) {
+                stored.addAll(em.createQuery("SELECT g.gameId FROM Game g WHERE g.gameId IN :ids", String.class)
+                        .setParameter("ids", gameIds)
+                        .getResultList());
+            }
+
+            Map<Long, Integer> deltas = new HashMap<>();
+            for (GameResult result : batch) {
+                if (result.getGameId() != null && !stored.add(result.getGameId())) {
+                    logger.info("Already stored, skipping " + result);
+                    continue;
+                }
+                Player winner = players.get(result.getWinnerEmail());
+                Player loser = players.get(result.getLoserEmail());
+                if (winner == null || loser == null) {
+                    logger.warning("Unknown player, dropping " + result);
+                    continue;
+                }
+
+                Game game = new Game();
+                game.setGameId(result.getGameId());
+                game.setFinished(true);
+                game.setWasAbandoned(result.isAbandoned());
+                game.setStartTime(result.getStartTime());
+                game.setEndTime(result.getEndTime());
+                game.setWinner(winner);
+                game.getGamePlayers().add(gamePlayer(game, winner, result.isWinnerRed()));
+                game.getGamePlayers().add(gamePlayer(game, loser, !result.isWinnerRed()));
+                em.persist(game);
+
+                int winnerRating = ratings.computeIfAbsent(winner.getId(), id -> rating(winner));
+                int loserRating = ratings.computeIfAbsent(loser.getId(), id -> rating(loser));
+                int[] change = ratingEngine.rate(winnerRating, loserRating, result.isAbandoned());
+                ratings.put(winner.getId(), winnerRating + change[0]);
+                ratings.put(loser.getId(), loserRating + change[1]);
+                deltas.merge(winner.getId(), change[0], Integer::sum);
+                deltas.merge(loser.getId(), change[1], Integer::sum);
+                rated.put(winner.getId(), winner);
+                rated.put(loser.getId(), loser);
+            }
+
+            Query addPoints = em.createQuery(
+                    "UPDATE Player p SET p.points = COALESCE(p.points, " + RatingEngine.INITIAL_RATING
+                            + ") + :points WHERE p.id = :id");
+            for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                if (delta.getValue() != 0) {
+                    addPoints.setParameter("points", delta.getValue())
+                            .setParameter("id", delta.getKey())
+                            .executeUpdate();
+                }
+            }
+        });
+
+        Map<Player, Integer> changed = new LinkedHashMap<>();
+        for (Player player : rated.values()) {
+            changed.put(player, ratings.get(player.getId()));
+        }
+        return changed;
+    }
+
+    /**
+     * Tells the cache and the listeners about the ratings of a batch once it
+     * is committed. A failure here is logged and never makes the batch look
+     * unstored, which would store it again.
+     */
+    private void ratingsChanged(Map<Player, Integer> ratings) {
+        for (Map.Entry<Player, Integer> rating : ratings.entrySet()) {
+            Player player = rating.getKey();
+            try {
+                // Cached copies still hold the old points
+                PlayerCache.getInstance().invalidate(player.getId());
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Could not invalidate cached player " + player.getId(), e);
+            }
+            for (RatingListener listener : listeners) {
+                try {
+                    listener.ratingChanged(player.getEmail(), player.getNickname(), rating.getValue());
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Rating listener failed for " + player.getNickname(), e);
+                }
+            }
+        }
+    }
+
+    private static int rating(Player player) {
+        return (player.getPoints() == null) ? RatingEngine.INITIAL_RATING : player.getPoints();
+    }
+
+    private static GamePlayer gamePlayer(Game game, Player player, boolean redTeam) {
+        GamePlayer gamePlayer = new GamePlayer();
+        gamePlayer.setGame(game);
+        gamePlayer.setPlayer(player);
+        gamePlayer.setRedTeam(redTeam);
+        return gamePlayer;
+    }
+
+    private void spillQueued() {
+        List<GameResult> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        spill(remaining);
+    }
+
+    /**
+     * Appends results to the spill file and forces them to disk.
+     */
+    private void spill(List<GameResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (GameResult result : results) {
+            lines.append(result.toLine()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        spillLock.lock();
+        try (FileChannel out = FileChannel.open(spillFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+            logger.warning("Spilled " + results.size() + " game results to " + spillFile);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not spill game results, lost: " + results, e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * Stores the spilled results. The spill file is first renamed to its
+     * {@code .replaying} sibling, so new results spill to a fresh file, and
+     * the renamed file is deleted only once every batch is committed. A
+     * {@code .replaying} file left by a crash is replayed before anything
+     * else.
+     */
+    private void replaySpill() {
+        lastReplay = System.currentTimeMillis();
+
+        if (Files.exists(replayFile) && !replay(replayFile)) {
+            return;
+        }
+        spillLock.lock();
+        try {
+            if (!Files.exists(spillFile)) {
+                return;
+            }
+            Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not take spill file " + spillFile, e);
+            return;
+        } finally {
+            spillLock.unlock();
+        }
+        replay(replayFile);
+    }
+
+    /**
+     * Stores the results of a file being replayed and deletes it. If the
+     * database fails, the file is left with the results not yet stored.
+     *
+     * @return true if every result was stored.
+     */
+    private boolean replay(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read spill file " + file, e);
+            return false;
+        }
+
+        List<GameResult> results = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                results.add(GameResult.fromLine(line));
+            } catch (RuntimeException e) {
+                logger.warning("Skipping unreadable spilled result: " + line);
+            }
+        }
+
+        for (int from = 0; from < results.size(); from += MAX_BATCH) {
+            List<GameResult> batch = results.subList(from, Math.min(from + MAX_BATCH, results.size()));
+            Map<Player, Integer> ratings;
+            try {
+                ratings = store(batch);
+            } catch (RuntimeException | LinkageError e) {
+                logger.log(Level.WARNING, "Database still unavailable, keeping spilled results", e);
+                keep(file, results.subList(from, results.size()));
+                return false;
+            }
+            ratingsChanged(ratings);
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            // Se volverán a guardar en la próxima repetición
+            logger.log(Level.SEVERE, "Could not delete replayed spill file " + file, e);
+            return false;
+        }
+        if (!results.isEmpty()) {
+            logger.info("Stored " + results.size() + " spilled game results");
+        }
+        return true;
+    }
+
+    /**
+     * Replaces a file being replayed, in one atomic rename, with the results
+     * still to be stored, so those already committed are not stored twice.
+     */
+    private void keep(Path file, List<GameResult> results) {
+        StringBuilder lines = new StringBuilder();
+        for (GameResult result : results) {
+            lines.append(result.toLine()).append('\n');
+        }
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(partial, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // El fichero sigue entero: lo ya guardado se guardará otra vez
+            logger.log(Level.WARNING, "Could not rewrite spill file " + file, e);
+        }
+    }
+}
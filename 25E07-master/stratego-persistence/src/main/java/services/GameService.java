@@ -0,0 +1,76 @@
+package services;
+
+import models.Game;
+import models.Player;
+import edu.asu.stratego.util.JpaUtil;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.TypedQuery;
+
+public class GameService {
+
+    private final PlayerService playerService = new PlayerService();
+
+    public void saveGame(Game game) {
+        try {
+            JpaUtil.runInTransaction(em -> {
+                if (game.getId() == null) {
+                    em.persist(game);
+                } else {
+                    em.merge(game);
+                }
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} games of a player, newest first, starting
+     * after {@code after} (or from the newest game when it is null). Pages
+     * are found by seeking on (endTime, id), so a page costs the same no
+     * matter how deep into the history it is.
+     *
+     * @param playerId id of the player whose history is read.
+     * @param after    last entry of the previous page, or null.
+     * @param limit    maximum number of entries to return.
+     */
+    public List<GameHistoryEntry> findHistory(Long playerId, GameHistoryEntry after, int limit) {
+        String select = "SELECT new services.GameHistoryEntry(g.id, g.startTime, g.endTime, g.wasAbandoned, " +
+                "CASE WHEN g.winner.id IS NULL THEN 'FINISHED' WHEN g.winner.id = gp.player.id THEN 'WON' ELSE 'LOST' END, " +
+                "o.nickname) " +
+                "FROM GamePlayer gp " +
+                "JOIN gp.game g " +
+                "LEFT JOIN g.gamePlayers ogp ON ogp.id <> gp.id " +
+                "LEFT JOIN ogp.player o " +
+                "WHERE gp.player.id = :playerId ";
+        String seek = (after == null) ? ""
+                : "AND (g.endTime < :endTime OR (g.endTime = :endTime AND g.id < :gameId)) ";
+        String order = "ORDER BY g.endTime DESC, g.id DESC";
+
+        return JpaUtil.query(em -> {
+            TypedQuery<GameHistoryEntry> query = em.createQuery(select + seek + order, GameHistoryEntry.class)
+                    .setParameter("playerId", playerId)
+                    .setMaxResults(limit);
+            if (after != null) {
+                query.setParameter("endTime", after.getEndTime())
+                        .setParameter("gameId", after.getGameId());
+            }
+            return query.getResultList();
+        });
+    }
+
+    public String getGameResultForPlayer(Game game, String nickname) {
+        if (game.getWinner() == null) {
+            return "Finalizada";
+        }
+
+        Player player = playerService.findByNickname(nickname);
+        if (player == null) {
+            return "Perdida";
+        }
+        return game.getWinner().getId().equals(player.getId()) ? "Ganada" : "Perdida";
+    }
+}
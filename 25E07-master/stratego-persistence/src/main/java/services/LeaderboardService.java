@@ -0,0 +1,52 @@
+package services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import edu.asu.stratego.util.JpaUtil;
+import models.LeaderboardEntry;
+
+public class LeaderboardService {
+
+    /**
+     * Reads the standing of every player, in no particular order. Used by the
+     * server to rebuild its ranking.
+     */
+    public List<LeaderboardEntry> loadStandings() {
+        return JpaUtil.query(em -> em.createQuery(
+                "SELECT new models.LeaderboardEntry(p.email, p.nickname, COALESCE(p.points, "
+                        + RatingEngine.INITIAL_RATING + ")) " +
+                        "FROM Player p WHERE p.email IS NOT NULL",
+                LeaderboardEntry.class)
+                .getResultList());
+    }
+
+    /**
+     * Replaces the stored snapshot with {@code top}, whose positions must
+     * already be set.
+     */
+    public void saveSnapshot(List<LeaderboardEntry> top) {
+        LocalDateTime now = LocalDateTime.now();
+        JpaUtil.runInTransaction(em -> {
+            em.createQuery("DELETE FROM LeaderboardEntry").executeUpdate();
+            for (LeaderboardEntry entry : top) {
+                entry.setSnapshotTime(now);
+                em.persist(entry);
+            }
+        });
+    }
+
+    /**
+     * Returns the position of a player in the last snapshot, or 0 if the
+     * player is not in it.
+     */
+    public int findPosition(String email) {
+        return JpaUtil.query(em -> em.createQuery(
+                "SELECT e.position FROM LeaderboardEntry e WHERE e.email = :email", Integer.class)
+                .setParameter("email", email)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .orElse(0));
+    }
+}
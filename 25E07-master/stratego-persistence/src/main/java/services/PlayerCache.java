@@ -0,0 +1,232 @@
+package services;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import models.Player;
+
+/**
+ * Bounded in-process cache of {@link Player} rows, shared by every
+ * {@link PlayerService}.
+ *
+ * <p>
+ * Players are kept by id in least recently used order and indexed by email
+ * and nickname. An entry expires {@code ttl} after it was loaded, and the
+ * least recently used entry is evicted once the cache holds {@code maxSize}
+ * players. Only rows that exist are cached, so a lookup that found nothing
+ * is always asked again.
+ * </p>
+ *
+ * <p>
+ * {@code -Dstratego.playerCache.size} and
+ * {@code -Dstratego.playerCache.ttlMillis} size the shared cache; a size of 0
+ * turns it off.
+ * </p>
+ */
+public class PlayerCache {
+
+    private static final PlayerCache SHARED = new PlayerCache(
+            Integer.getInteger("stratego.playerCache.size", 1024),
+            Long.getLong("stratego.playerCache.ttlMillis", 60_000));
+
+    private static final class Entry {
+        final Player player;
+        final long expiresAt;
+        // Keys as they were when cached, in case the entity is changed later
+        final String email;
+        final String nickname;
+
+        Entry(Player player, long expiresAt) {
+            this.player = player;
+            this.expiresAt = expiresAt;
+            this.email = player.getEmail();
+            this.nickname = player.getNickname();
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Entry> byId = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> byEmail = new HashMap<>();
+    private final Map<String, Long> byNickname = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public static PlayerCache getInstance() {
+        return SHARED;
+    }
+
+    public PlayerCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public Player getById(Long id) {
+        lock.lock();
+        try {
+            return lookup(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Player getByEmail(String email) {
+        lock.lock();
+        try {
+            return lookup(byEmail.get(email));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Player getByNickname(String nickname) {
+        lock.lock();
+        try {
+            return lookup(byNickname.get(nickname));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a player that was just read from or written to the database,
+     * replacing any older copy.
+     */
+    public void put(Player player) {
+        if (player == null || player.getId() == null || maxSize <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            remove(player.getId());
+            Entry entry = new Entry(player, System.nanoTime() + ttlNanos);
+            byId.put(player.getId(), entry);
+            if (entry.email != null) {
+                byEmail.put(entry.email, player.getId());
+            }
+            if (entry.nickname != null) {
+                byNickname.put(entry.nickname, player.getId());
+            }
+
+            Iterator<Map.Entry<Long, Entry>> eldest = byId.entrySet().iterator();
+            while (byId.size() > maxSize) {
+                Map.Entry<Long, Entry> evicted = eldest.next();
+                eldest.remove();
+                unindex(evicted.getKey(), evicted.getValue());
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateEmail(String email) {
+        lock.lock();
+        try {
+            remove(byEmail.get(email));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            byId.clear();
+            byEmail.clear();
+            byNickname.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Fraction of lookups answered from the cache, between 0 and 1.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return (total == 0) ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlayerCache[size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f]",
+                size(), getHits(), getMisses(), getEvictions(), getHitRate());
+    }
+
+    private Player lookup(Long id) {
+        Entry entry = (id == null) ? null : byId.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            remove(id);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.player;
+    }
+
+    private void remove(Long id) {
+        Entry entry = (id == null) ? null : byId.remove(id);
+        if (entry != null) {
+            unindex(id, entry);
+        }
+    }
+
+    private void unindex(Long id, Entry entry) {
+        // Only drop the keys that still point at this player
+        if (entry.email != null) {
+            byEmail.remove(entry.email, id);
+        }
+        if (entry.nickname != null) {
+            byNickname.remove(entry.nickname, id);
+        }
+    }
+}
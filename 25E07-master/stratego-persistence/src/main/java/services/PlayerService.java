@@ -0,0 +1,89 @@
+package services;
+
+import models.Player;
+
+
+import edu.asu.stratego.util.JpaUtil;
+
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Player lookups go through the shared {@link PlayerCache} first; rows read
+ * or saved here are written through to it.
+ */
+public class PlayerService {
+
+    private final PlayerCache cache = PlayerCache.getInstance();
+
+    public void savePlayer(Player player) {
+        try {
+            Player saved = JpaUtil.inTransaction(em -> {
+                if (player.getId() == null) {
+                    em.persist(player);
+                    return player;
+                }
+                return em.merge(player);
+            });
+            cache.put(saved);
+        } catch (Exception e) {
+            cache.invalidate(player.getId());
+            e.printStackTrace();
+        }
+    }
+
+    public Player findById(Long id) {
+        Player cached = cache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+        return cached(JpaUtil.query(em -> em.find(Player.class, id)));
+    }
+
+    public Player findByNickname(String name) {
+        Player cached = cache.getByNickname(name);
+        if (cached != null) {
+            return cached;
+        }
+        return cached(JpaUtil.query(em -> singleResult(
+                em.createQuery("SELECT p FROM Player p WHERE p.nickname = :name", Player.class)
+                        .setParameter("name", name))));
+    }
+
+    public Player findByEmail(String email) {
+        Player cached = cache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+        return cached(JpaUtil.query(em -> singleResult(
+                em.createQuery("SELECT p FROM Player p WHERE p.email = :email", Player.class)
+                        .setParameter("email", email))));
+    }
+
+    public Player findByEmailAndPassword(String email, String password) {
+        // A cached row only answers a matching password; anything else is
+        // left to the database
+        Player cached = cache.getByEmail(email);
+        if (cached != null && password != null && password.equals(cached.getPassword())) {
+            return cached;
+        }
+        return cached(JpaUtil.query(em -> singleResult(
+                em.createQuery("SELECT p FROM Player p WHERE p.email = :email AND p.password = :password",
+                        Player.class)
+                        .setParameter("email", email)
+                        .setParameter("password", password))));
+    }
+
+    private Player cached(Player player) {
+        cache.put(player);
+        return player;
+    }
+
+    private static Player singleResult(TypedQuery<Player> query) {
+        try {
+            return query.getSingleResult();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+}
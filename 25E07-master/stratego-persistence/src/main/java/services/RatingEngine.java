@@ -0,0 +1,40 @@
+package services;
+
+/**
+ * Computes how a finished game changes the ratings (the {@code points} of
+ * {@link models.Player}) of its two players.
+ *
+ * <p>
+ * {@code -Dstratego.rating=flat} keeps the original fixed awards; the
+ * default is {@link EloRatingEngine}.
+ * </p>
+ */
+public interface RatingEngine {
+
+    /**
+     * Rating given to new players, and to everyone when the ratings are
+     * recomputed from scratch (see {@link RatingReplay}).
+     */
+    int INITIAL_RATING = 1000;
+
+    /**
+     * Returns the rating changes of a game as {winner delta, loser delta}.
+     *
+     * @param winnerRating rating of the winner before the game.
+     * @param loserRating  rating of the loser before the game.
+     * @param abandoned    whether the game ended because the loser left.
+     */
+    int[] rate(int winnerRating, int loserRating, boolean abandoned);
+
+    static RatingEngine fromSystemProperty() {
+        String name = System.getProperty("stratego.rating", "elo");
+        switch (name) {
+            case "elo":
+                return new EloRatingEngine();
+            case "flat":
+                return new FlatRatingEngine();
+            default:
+                throw new IllegalArgumentException("Unknown rating engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package services;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+
+import edu.asu.stratego.util.JpaUtil;
+
+/**
+ * Recomputes every player's rating from the stored game history.
+ *
+ * <p>
+ * Ratings are sequential by nature, each game is rated from the ratings left
+ * by the previous ones, so the replay is a pipeline rather than a parallel
+ * loop: a reader thread streams the games, oldest first, into a bounded
+ * queue in blocks of {@link #BLOCK_SIZE}, while the calling thread rates
+ * them against ratings kept in memory. The database is read once, by a
+ * forward-only cursor, and never holds more than a few blocks in memory.
+ * When every game has been rated, the final ratings are written in parallel
+ * chunks, each a JDBC batch in its own transaction, to a staging column. One
+ * last transaction then swaps them in, so a replay that fails leaves every
+ * rating as it was.
+ * </p>
+ *
+ * <p>
+ * Everyone starts from {@link RatingEngine#INITIAL_RATING}, so the replay
+ * also converts ratings earned under another engine. It is meant to run
+ * with the server stopped: games stored while it runs are not rated.
+ * </p>
+ */
+public class RatingReplay {
+
+    private static final Logger logger = Logger.getLogger(RatingReplay.class.getName());
+
+    static final int BLOCK_SIZE = 4096;
+    static final int FETCH_SIZE = 1000;
+    static final int WRITE_CHUNK = 1000;
+
+    // Marca el final del historial
+    private static final long[] END = new long[0];
+
+    private final RatingEngine engine;
+    private final int writers;
+
+    public RatingReplay(RatingEngine engine, int writers) {
+        this.engine = engine;
+        this.writers = writers;
+    }
+
+    /**
+     * What a replay did, for the log.
+     */
+    public static final class Summary {
+        private final long games;
+        private final int players;
+        private final long millis;
+
+        Summary(long games, int players, long millis) {
+            this.games = games;
+            this.players = players;
+            this.millis = millis;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public int getPlayers() {
+            return players;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Rated %d games of %d players in %d ms", games, players, millis);
+        }
+    }
+
+    public Summary run() throws InterruptedException {
+        long start = System.nanoTime();
+        BlockingQueue<long[]> blocks = new ArrayBlockingQueue<>(16);
+        RuntimeException[] readError = new RuntimeException[1];
+
+        Thread reader = new Thread(() -> {
+            try {
+                read(blocks);
+            } catch (RuntimeException e) {
+                readError[0] = e;
+            } finally {
+                try {
+                    blocks.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "rating-replay-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        // A one element array per player, so a game updates it in place
+        Map<Long, int[]> ratings = new HashMap<>();
+        long games = 0;
+        for (long[] block = blocks.take(); block != END; block = blocks.take()) {
+            for (int i = 0; i < block.length; i += 3) {
+                int[] winner = ratings.computeIfAbsent(block[i], id -> new int[] { RatingEngine.INITIAL_RATING });
+                int[] loser = ratings.computeIfAbsent(block[i + 1], id -> new int[] { RatingEngine.INITIAL_RATING });
+                int[] change = engine.rate(winner[0], loser[0], block[i + 2] != 0);
+                winner[0] += change[0];
+                loser[0] += change[1];
+                games++;
+            }
+        }
+        reader.join();
+        if (readError[0] != null) {
+            throw readError[0];
+        }
+
+        write(ratings);
+        PlayerCache.getInstance().clear();
+
+        Summary summary = new Summary(games, ratings.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info(summary.toString());
+        return summary;
+    }
+
+    /**
+     * Streams the finished games, oldest first, as {winner id, loser id,
+     * abandoned} triples. The loser is the GamePlayer that did not win, so
+     * each game is a single row.
+     */
+    private static void read(BlockingQueue<long[]> blocks) {
+        JpaUtil.query(em -> {
+            try (Stream<Object[]> rows = em.createQuery(
+                    "SELECT g.winner.id, gp.player.id, g.wasAbandoned FROM GamePlayer gp JOIN gp.game g " +
+                            "WHERE g.winner IS NOT NULL AND gp.player <> g.winner " +
+                            "ORDER BY g.endTime, g.id",
+                    Object[].class)
+                    .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()) {
+                long[] block = new long[BLOCK_SIZE * 3];
+                int used = 0;
+                Iterator<Object[]> it = rows.iterator();
+                while (it.hasNext()) {
+                    Object[] row = it.next();
+                    block[used++] = (Long) row[0];
+                    block[used++] = (Long) row[1];
+                    block[used++] = ((Boolean) row[2]) ? 1 : 0;
+                    if (used == block.length) {
+                        blocks.put(block);
+                        block = new long[BLOCK_SIZE * 3];
+                        used = 0;
+                    }
+                }
+                if (used > 0) {
+                    long[] last = new long[used];
+                    System.arraycopy(block, 0, last, 0, used);
+                    blocks.put(last);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Rating replay interrupted", e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Writes the replayed ratings to {@code Player.replayedPoints} in chunks
+     * of {@link #WRITE_CHUNK}, {@code writers} at a time, then moves them to
+     * {@code points} in one transaction. Players without a replayed rating
+     * go back to the initial rating in the same transaction.
+     */
+    private void write(Map<Long, int[]> ratings) throws InterruptedException {
+        // Lo que dejó una repetición que falló
+        JpaUtil.runInTransaction(em -> em.createQuery(
+                "UPDATE Player p SET p.replayedPoints = NULL WHERE p.replayedPoints IS NOT NULL")
+                .executeUpdate());
+
+        List<List<Map.Entry<Long, int[]>>> chunks = new ArrayList<>();
+        List<Map.Entry<Long, int[]>> chunk = new ArrayList<>(WRITE_CHUNK);
+        for (Map.Entry<Long, int[]> rating : ratings.entrySet()) {
+            if (rating.getValue()[0] == RatingEngine.INITIAL_RATING) {
+                continue;
+            }
+            chunk.add(rating);
+            if (chunk.size() == WRITE_CHUNK) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(WRITE_CHUNK);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> written = new ArrayList<>(chunks.size());
+            for (List<Map.Entry<Long, int[]>> part : chunks) {
+                written.add(pool.submit(() -> writeChunk(part)));
+            }
+            for (Future<?> future : written) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not write the replayed ratings, no rating was changed",
+                    e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        JpaUtil.runInTransaction(em -> em.createQuery(
+                "UPDATE Player p SET p.points = COALESCE(p.replayedPoints, :initial), p.replayedPoints = NULL")
+                .setParameter("initial", RatingEngine.INITIAL_RATING)
+                .executeUpdate());
+    }
+
+    private static void writeChunk(List<Map.Entry<Long, int[]>> chunk) {
+        JpaUtil.runInTransaction(em -> em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE Player SET replayedPoints = ? WHERE id = ?")) {
+                for (Map.Entry<Long, int[]> rating : chunk) {
+                    update.setInt(1, rating.getValue()[0]);
+                    update.setLong(2, rating.getKey());
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        }));
+    }
+}
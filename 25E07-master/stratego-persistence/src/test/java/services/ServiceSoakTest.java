@@ -0,0 +1,187 @@
+package services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import edu.asu.stratego.util.JpaUtil;
+import jakarta.persistence.EntityManager;
+import models.Game;
+import models.GamePlayer;
+import models.Player;
+
+/**
+ * Soak test of the connection pool: 100 000 lookups, from more threads than
+ * the pool has connections, through {@link PlayerService} and
+ * {@link GameService} on the in-memory database of {@code db-test.properties}.
+ * About half of them miss the {@link PlayerCache} and go to the database.
+ * The pool must never grow past its size, and every connection and every
+ * EntityManager must be given back afterwards.
+ *
+ * <p>
+ * It takes about half a minute, so it only runs with {@code mvn -Psoak test}.
+ * </p>
+ */
+@Tag("soak")
+class ServiceSoakTest {
+
+    private static final int PLAYERS = 100;
+    private static final int GAMES = 300;
+    private static final int LOOKUPS = 100_000;
+    private static final int THREADS = 16;
+    private static final long SAMPLE_MILLIS = 1;
+
+    private static final List<Player> players = new ArrayList<>();
+
+    @BeforeAll
+    static void seed() {
+        PlayerService playerService = new PlayerService();
+        for (int i = 0; i < PLAYERS; ++i) {
+            Player player = new Player();
+            player.setNickname("soak" + i);
+            player.setEmail("soak" + i + "@stratego.test");
+            player.setPassword("pw" + i);
+            playerService.savePlayer(player);
+            assertNotNull(player.getId(), "player " + i + " was not saved");
+            players.add(player);
+        }
+
+        GameService gameService = new GameService();
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < GAMES; ++i) {
+            Player red = players.get(i % PLAYERS);
+            Player blue = players.get((i * 7 + 1) % PLAYERS);
+            Game game = new Game();
+            game.setFinished(true);
+            game.setStartTime(start.plusMinutes(i));
+            game.setEndTime(start.plusMinutes(i + 1));
+            game.setWinner((i % 3 == 0) ? null : red);
+            game.getGamePlayers().add(seat(game, red, true));
+            game.getGamePlayers().add(seat(game, blue, false));
+            gameService.saveGame(game);
+            assertNotNull(game.getId(), "game " + i + " was not saved");
+        }
+    }
+
+    @AfterAll
+    static void shutdown() {
+        JpaUtil.shutdown();
+    }
+
+    @Test
+    void poolStaysBoundedAndEveryConnectionComesBack() throws Exception {
+        PlayerService playerService = new PlayerService();
+        GameService gameService = new GameService();
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong databaseLookups = new AtomicLong();
+        Statistics statistics = statistics();
+        long openBefore = statistics.getSessionOpenCount();
+        long closedBefore = statistics.getSessionCloseCount();
+
+        // Muestrea el pool mientras dura la prueba
+        AtomicInteger maxTotal = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            try {
+                while (true) {
+                    maxTotal.accumulateAndGet(JpaUtil.getTotalConnections(), Math::max);
+                    maxActive.accumulateAndGet(JpaUtil.getActiveConnections(), Math::max);
+                    Thread.sleep(SAMPLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                // The lookups are over
+            }
+        }, "pool-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            results.add(workers.submit(() -> {
+                for (int i = next.getAndIncrement(); i < LOOKUPS; i = next.getAndIncrement()) {
+                    Player player = players.get(i % PLAYERS);
+                    switch (i % 6) {
+                        case 0:
+                            assertEquals(player.getId(), playerService.findByNickname(player.getNickname()).getId());
+                            break;
+                        case 1:
+                            assertEquals(player.getId(), playerService.findByEmail(player.getEmail()).getId());
+                            break;
+                        case 2:
+                            assertNotNull(playerService.findById(player.getId()));
+                            break;
+                        case 3:
+                            // A wrong password is never answered from the cache
+                            assertNull(playerService.findByEmailAndPassword(player.getEmail(), "wrong"));
+                            databaseLookups.incrementAndGet();
+                            break;
+                        case 4:
+                            assertNull(playerService.findByNickname("nobody" + i));
+                            databaseLookups.incrementAndGet();
+                            break;
+                        default:
+                            assertTrue(gameService.findHistory(player.getId(), null, 10).size() <= 10);
+                            databaseLookups.incrementAndGet();
+                            break;
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results)
+            result.get();
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS));
+        sampler.interrupt();
+        sampler.join();
+
+        int poolSize = JpaUtil.getMaximumPoolSize();
+        assertEquals(4, poolSize, "db-test.properties not loaded");
+        assertTrue(databaseLookups.get() > LOOKUPS / 3, "only " + databaseLookups + " lookups reached the database");
+        assertTrue(maxActive.get() > 0, "the sampler never saw a connection in use");
+        assertTrue(maxTotal.get() <= poolSize, maxTotal + " connections in a pool of " + poolSize);
+        assertEquals(0, JpaUtil.getActiveConnections(), "connections not returned to the pool");
+        // Hibernate gives a query's connection back without a transaction,
+        // so an EntityManager left open does not show in the pool
+        assertEquals(statistics.getSessionOpenCount() - openBefore,
+                statistics.getSessionCloseCount() - closedBefore, "EntityManagers left open");
+    }
+
+    private static Statistics statistics() {
+        EntityManager em = JpaUtil.getEntityManager();
+        try {
+            return em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static GamePlayer seat(Game game, Player player, boolean red) {
+        GamePlayer seat = new GamePlayer();
+        seat.setGame(game);
+        seat.setPlayer(player);
+        seat.setRedTeam(red);
+        return seat;
+    }
+
+}
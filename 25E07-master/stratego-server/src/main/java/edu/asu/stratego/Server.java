@@ -0,0 +1,141 @@
+package edu.asu.stratego;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.asu.stratego.game.GameJournal;
+import edu.asu.stratego.game.Leaderboard;
+import edu.asu.stratego.game.ParkedSessions;
+import edu.asu.stratego.net.HeartbeatMonitor;
+import edu.asu.stratego.net.MatchmakingServer;
+import edu.asu.stratego.net.NioSessionServer;
+import edu.asu.stratego.util.JpaUtil;
+import services.GameResultWriter;
+import services.RatingEngine;
+import services.RatingReplay;
+
+/**
+ * The Stratego Server creates a socket and listens for connections from 
+ * players, pairing players with similar points into game sessions (see 
+ * {@link MatchmakingServer}). Each session is handled by a ServerGameManager 
+ * that communicates with the two players and determines the status of the 
+ * game.
+ * 
+ * <p>
+ * By default each session runs on a pooled platform thread. The {@code virtual}
+ * argument runs each session on a virtual thread instead, which costs a few
+ * hundred bytes while the session is blocked waiting for a player. The
+ * {@code nio} argument multiplexes all sessions on a small pool of event loop
+ * threads (see {@link NioSessionServer}); an optional second argument sets the
+ * number of event loops. The event loop mode pairs players in the order they
+ * connect.
+ * </p>
+ * 
+ * <p>
+ * Finished games are stored by a {@link GameResultWriter} in the background,
+ * so no session waits on the database, and ranked by the {@link Leaderboard}.
+ * The {@code recompute-ratings} argument does not start a server: it
+ * recomputes every rating from the stored games (see {@link RatingReplay})
+ * and exits. An optional second argument sets the number of writer threads.
+ * </p>
+ *
+ * <p>
+ * Games in progress are journaled (see {@link GameJournal}). At startup the
+ * games left by a previous run are read back and parked until their players
+ * return (see {@link ParkedSessions}).
+ * </p>
+ *
+ * <p>
+ * Clients exchange heartbeats with the server, and the sessions of players
+ * who stop answering are reaped (see {@link HeartbeatMonitor}).
+ * </p>
+ */
+public class Server {
+
+    private static final int PORT = 4212;
+
+    public static void main(String[] args) throws IOException {
+        
+        String hostAddress = InetAddress.getLocalHost().getHostAddress();
+        String mode        = (args.length > 0) ? args[0] : "threads";
+
+        if (mode.equals("recompute-ratings")) {
+            recomputeRatings((args.length > 1) ? Integer.parseInt(args[1]) : 4);
+            return;
+        }
+
+        startPersistence();
+        recoverGames();
+        HeartbeatMonitor.getInstance().start();
+
+        if (mode.equals("nio")) {
+            int eventLoops = (args.length > 1) ? Integer.parseInt(args[1])
+                    : Runtime.getRuntime().availableProcessors();
+            System.out.println("Server started @ " + hostAddress + " (event loop mode)");
+            new NioSessionServer(PORT, eventLoops).start();
+            return;
+        }
+
+        boolean virtual = mode.equals("virtual");
+        ExecutorService workers;
+        if (virtual) {
+            workers = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            workers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        System.out.println("Server started @ " + hostAddress
+                + (virtual ? " (virtual thread mode)" : ""));
+        System.out.println("Waiting for incoming connections...\n");
+        new MatchmakingServer(PORT, workers).start();
+    }
+
+    private static void recomputeRatings(int writers) {
+        try {
+            System.out.println(new RatingReplay(RatingEngine.fromSystemProperty(), writers).run());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            JpaUtil.shutdown();
+        }
+    }
+
+    /**
+     * Reads back the games the previous run left in progress.
+     */
+    private static void recoverGames() {
+        ParkedSessions parked = ParkedSessions.getInstance();
+        try {
+            parked.start(Runtime.getRuntime().availableProcessors());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(parked::stop));
+    }
+
+    /**
+     * Starts the game result writer, which also stores any results spilled
+     * while the database was down, and rebuilds the leaderboard. At shutdown
+     * the results still queued are moved to the spill file, a last
+     * leaderboard snapshot is written and the connection pool is closed, in
+     * that order.
+     */
+    private static void startPersistence() {
+        GameResultWriter writer = GameResultWriter.getInstance();
+        Leaderboard leaderboard = Leaderboard.getInstance();
+        writer.addListener(leaderboard);
+        leaderboard.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            writer.shutdown(5000);
+            leaderboard.stop();
+            JpaUtil.shutdown();
+        }));
+    }
+}
@@ -0,0 +1,181 @@
+package edu.asu.stratego.game;
+
+import java.awt.Point;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+
+/**
+ * What each player may know about the pieces: all of their own, and the
+ * opponent's pieces that have been seen in an attack. A spectator knows only
+ * the pieces seen in an attack. Builds the messages each of them is sent, with
+ * every other piece hidden (no type), and redacts anything else on its way out
+ * that would tell them more. Once the game is over every piece counts as seen
+ * (see {@link RevealedSquares#revealAll()}), and the whole board goes through.
+ */
+final class FogOfWar {
+
+    /**
+     * Prevents an instance of this class from being instantiated.
+     */
+    private FogOfWar() {
+        /* Intentionally Empty */ }
+
+    /**
+     * Builds the move one player, or a spectator, is sent. A plain move
+     * carries the piece that moved as endPiece, hidden unless the recipient
+     * knows it. An attack reveals both pieces: the attacker travels as
+     * startPiece and the defender as endPiece, and the flags tell which one
+     * is left on the board. A recipient that cannot take both pieces gets
+     * the piece left on the end square instead, as the rules return it.
+     *
+     * @param played      the move as the rules return it, in the recipient's
+     *                    orientation.
+     * @param mover       the piece that moved.
+     * @param defender    the piece it attacked, or null.
+     * @param viewer      the recipient's color, or null for a spectator.
+     * @param known       whether the mover had been seen in an attack before.
+     * @param bothPieces  whether the recipient negotiated
+     *                    {@link edu.asu.stratego.net.BinaryProtocol#FOG_VERSION}.
+     * @return the move as the recipient may see it.
+     */
+    static Move moveFor(Move played, Piece mover, Piece defender, PieceColor viewer, boolean known,
+            boolean bothPieces) {
+        Move view = copy(played);
+        if (!played.isAttackMove()) {
+            view.setEndPiece((known || mover.getPieceColor() == viewer) ? mover : hidden(mover));
+        } else if (bothPieces) {
+            view.setStartPiece(mover);
+            view.setEndPiece(defender);
+        } else {
+            view.setEndPiece(played.getEndPiece());
+        }
+        return view;
+    }
+
+    /**
+     * @param setup a player's setup.
+     * @return the setup as their opponent may see it: where the pieces are,
+     *         and nothing else.
+     */
+    static SetupBoard setupFor(SetupBoard setup) {
+        SetupBoard view = new SetupBoard();
+        for (int row = 0; row < 4; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = setup.getPiece(row, col);
+                view.setPiece((piece == null) ? null : hidden(piece), row, col);
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Hides, in a copy of a message, every piece its recipient may not know.
+     * The messages built by {@link #moveFor} and {@link #setupFor} never need
+     * it: this is the last line of defence, not the way views are built.
+     *
+     * @param message  the message.
+     * @param viewer   the recipient's color, or null for a spectator.
+     * @param revealed the pieces seen in an attack, after the last move.
+     * @param rotated  whether the recipient sees the server's board rotated,
+     *                 as player one does.
+     * @return the message itself if it gives nothing away, or a redacted copy.
+     */
+    static Object redact(Object message, PieceColor viewer, RevealedSquares revealed, boolean rotated) {
+        if (message instanceof Move) {
+            Move move = (Move) message;
+            // Both pieces of an attack are shown to everyone
+            if (move.isAttackMove())
+                return move;
+            Piece start = visible(move.getStartPiece(), viewer, false);
+            Piece end = visible(move.getEndPiece(), viewer, revealed.contains(square(move.getEnd(), rotated)));
+            if (start == move.getStartPiece() && end == move.getEndPiece())
+                return move;
+            Move view = copy(move);
+            view.setStartPiece(start);
+            view.setEndPiece(end);
+            return view;
+        }
+
+        if (message instanceof SetupBoard) {
+            SetupBoard setup = (SetupBoard) message;
+            SetupBoard view = null;
+            for (int row = 0; row < 4; ++row) {
+                for (int col = 0; col < 10; ++col) {
+                    Piece piece = setup.getPiece(row, col);
+                    if (visible(piece, viewer, false) == piece)
+                        continue;
+                    if (view == null)
+                        view = copy(setup);
+                    view.setPiece(hidden(piece), row, col);
+                }
+            }
+            return (view == null) ? setup : view;
+        }
+
+        if (message instanceof ResumeState) {
+            ResumeState state = (ResumeState) message;
+            ByteBoard position = state.toBoard();
+            byte[] view = null;
+            for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+                if (position.isEmpty(square) || position.isHidden(square) || position.colorAt(square) == viewer)
+                    continue;
+                if (revealed.contains(rotated ? ByteBoard.SQUARES - 1 - square : square))
+                    continue;
+                if (view == null) {
+                    view = new byte[ByteBoard.SQUARES];
+                    for (int i = 0; i < ByteBoard.SQUARES; ++i)
+                        view[i] = state.getSquare(i);
+                }
+                view[square] = ByteBoard.hidden(position.colorAt(square));
+            }
+            return (view == null) ? state
+                    : new ResumeState(state.getColor(), state.getTurn(), state.getMoves(), state.getClockMillis(),
+                            state.getOpponentClockMillis(), view);
+        }
+        return message;
+    }
+
+    /**
+     * @return the piece itself if the viewer may know it, or its hidden
+     *         version.
+     */
+    private static Piece visible(Piece piece, PieceColor viewer, boolean revealed) {
+        if (piece == null || piece.getPieceType() == null || piece.getPieceColor() == viewer || revealed)
+            return piece;
+        return hidden(piece);
+    }
+
+    private static int square(Point point, boolean rotated) {
+        int square = ByteBoard.square(point.x, point.y);
+        return rotated ? ByteBoard.SQUARES - 1 - square : square;
+    }
+
+    private static Piece hidden(Piece piece) {
+        return new OriginalPiece(null, piece.getPieceColor(), true);
+    }
+
+    private static Move copy(Move move) {
+        Move view = new Move();
+        view.setStart(move.getStart());
+        view.setEnd(move.getEnd());
+        view.setMoveColor(move.getMoveColor());
+        view.setAttackMove(move.isAttackMove());
+        view.setAttackWin(move.isAttackWin());
+        view.setDefendWin(move.isDefendWin());
+        view.setStartPiece(move.getStartPiece());
+        view.setEndPiece(move.getEndPiece());
+        return view;
+    }
+
+    private static SetupBoard copy(SetupBoard setup) {
+        SetupBoard view = new SetupBoard();
+        for (int row = 0; row < 4; ++row)
+            for (int col = 0; col < 10; ++col)
+                view.setPiece(setup.getPiece(row, col), row, col);
+        return view;
+    }
+
+}
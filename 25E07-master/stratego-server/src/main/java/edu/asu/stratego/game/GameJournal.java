@@ -0,0 +1,493 @@
+package edu.asu.stratego.game;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.gameRules.GameRules;
+import edu.asu.stratego.game.gameRules.OriginalRulesFactory;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+
+/**
+ * Append-only record of a game in progress, so a restarted server can
+ * rebuild it.
+ *
+ * <p>
+ * A journal file holds a {@link SessionSnapshot} followed by the moves
+ * played since, two bytes each. The game thread only appends records to a
+ * small buffer in memory. A single background thread writes the buffers of
+ * every journal that changed, one write per journal, and forces them to disk
+ * every {@link #SYNC_MILLIS} milliseconds, so a crash loses at most that
+ * much of a game. Every {@link #SNAPSHOT_INTERVAL} moves the game hands in a
+ * new snapshot and the file is rewritten from it (into a temporary file that
+ * replaces the journal), which keeps files small and recovery short. A write
+ * that fails puts its changes back, to be tried again on the next round, and
+ * the file is then rewritten whole, so a record cut short never stays in it.
+ * </p>
+ *
+ * <p>
+ * The journal of a finished game is deleted, so the journal directory only
+ * holds the games in progress. {@link #recoverAll(int)} reads them back in
+ * parallel when the server starts. The journal of a game waiting for a
+ * player to come back is {@link #close() closed}: it stays on disk but holds
+ * no file or buffer until the game resumes.
+ * </p>
+ */
+public class GameJournal {
+
+    private static final Logger logger = Logger.getLogger(GameJournal.class.getName());
+
+    static final int SNAPSHOT_INTERVAL = 32;
+    static final long SYNC_MILLIS = Long.getLong("stratego.journal.sync", 100);
+
+    /**
+     * {@code -Dstratego.journal=<dir>} changes where journals are kept;
+     * {@code off} turns journaling off.
+     */
+    private static final String DIRECTORY = System.getProperty("stratego.journal", "stratego-journal");
+
+    private static final String SUFFIX = ".journal";
+    private static final String TEMPORARY = ".tmp";
+
+    private static final byte SNAPSHOT = 1;
+    private static final byte MOVE = 2;
+
+    // Game ids stay unique across restarts: this run's start time plus a counter
+    private static final String RUN = Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong nextGame = new AtomicLong(1);
+
+    private static final Queue<GameJournal> dirty = new ConcurrentLinkedQueue<>();
+
+    static {
+        if (isEnabled()) {
+            Thread syncer = new Thread(GameJournal::syncLoop, "game-journal");
+            syncer.setDaemon(true);
+            syncer.start();
+        }
+    }
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Pending changes, guarded by lock
+    private SessionSnapshot snapshot;
+    private ByteBuffer moves = ByteBuffer.allocate(16);
+    private boolean queued;
+    private boolean finished;
+    private boolean closed;
+
+    // Only used by the syncer thread
+    private FileChannel channel;
+    // What the file holds: the last snapshot written and the moves after it
+    private SessionSnapshot written;
+    private ByteBuffer writtenMoves = ByteBuffer.allocate(16);
+    private boolean failing;
+
+    private GameJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return true unless journaling was turned off.
+     */
+    public static boolean isEnabled() {
+        return !"off".equals(DIRECTORY);
+    }
+
+    /**
+     * @return a new game id, unique across server restarts.
+     */
+    public static String newGameId() {
+        return RUN + "-" + nextGame.getAndIncrement();
+    }
+
+    /**
+     * Starts the journal of a game from its current position.
+     *
+     * @param start snapshot of the game; its id names the journal file.
+     * @return the journal, or null if journaling is off.
+     */
+    public static GameJournal open(SessionSnapshot start) {
+        if (!isEnabled())
+            return null;
+        GameJournal journal = new GameJournal(Paths.get(DIRECTORY, start.getGameId() + SUFFIX));
+        journal.snapshot(start);
+        return journal;
+    }
+
+    /**
+     * Records a move, in server board coordinates. Moves must come in the
+     * order they were played, after the snapshot the journal was opened or
+     * last compacted with.
+     */
+    public void move(Point start, Point end) {
+        lock.lock();
+        try {
+            if (finished || closed)
+                return;
+            if (moves.remaining() < 3) {
+                ByteBuffer larger = ByteBuffer.allocate(moves.capacity() * 2);
+                moves.flip();
+                larger.put(moves);
+                moves = larger;
+            }
+            moves.put(MOVE).put((byte) (start.x * 10 + start.y)).put((byte) (end.x * 10 + end.y));
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces everything recorded so far with a snapshot of the game.
+     */
+    public void snapshot(SessionSnapshot current) {
+        lock.lock();
+        try {
+            if (finished || closed)
+                return;
+            snapshot = current;
+            moves.clear();
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the game as over. Its journal is deleted in the background.
+     */
+    public void finish() {
+        lock.lock();
+        try {
+            finished = true;
+            snapshot = null;
+            moves.clear();
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops recording the game but keeps its journal, so the game can be
+     * resumed or recovered from it. The file is closed in the background
+     * once the pending changes are written.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (finished)
+                return;
+            closed = true;
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void markDirty() {
+        if (!queued) {
+            queued = true;
+            dirty.add(this);
+        }
+    }
+
+    private static void syncLoop() {
+        while (true) {
+            try {
+                Thread.sleep(SYNC_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Only the journals queued so far: a failed one queues itself again
+            GameJournal journal;
+            for (int n = dirty.size(); n > 0 && (journal = dirty.poll()) != null; --n)
+                journal.sync();
+        }
+    }
+
+    /**
+     * Writes the pending changes of this journal and forces them to disk.
+     * Runs on the syncer thread.
+     */
+    private void sync() {
+        SessionSnapshot rewrite;
+        ByteBuffer appended;
+        boolean delete;
+        boolean close;
+        lock.lock();
+        try {
+            queued = false;
+            rewrite = snapshot;
+            delete = finished;
+            close = closed;
+            snapshot = null;
+            moves.flip();
+            appended = ByteBuffer.allocate(moves.remaining()).put(moves).flip();
+            moves.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (delete) {
+                closeChannel();
+                Files.deleteIfExists(file);
+            } else if (rewrite != null) {
+                compact(rewrite, appended.duplicate());
+            } else if (appended.hasRemaining() && channel == null) {
+                // A failed write may have left part of a record behind
+                ByteBuffer all = ByteBuffer.allocate(writtenMoves.position() + appended.remaining());
+                all.put(writtenMoves.duplicate().flip()).put(appended.duplicate()).flip();
+                compact(written, all);
+            } else if (appended.hasRemaining()) {
+                ByteBuffer out = appended.duplicate();
+                while (out.hasRemaining())
+                    channel.write(out);
+                channel.force(false);
+                remember(appended.duplicate());
+            }
+            if (close)
+                closeChannel();
+            if (failing) {
+                failing = false;
+                logger.info("Journal " + file + " is being written again");
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!failing)
+                logger.log(Level.WARNING, "Could not write journal " + file + ", will retry", e);
+            failing = true;
+            try {
+                closeChannel();
+            } catch (IOException closing) {
+                channel = null;
+            }
+            putBack(rewrite, appended);
+        }
+    }
+
+    /**
+     * Returns the changes of a failed write to the pending ones, ahead of
+     * anything recorded since, and queues the journal again. A snapshot
+     * handed in since replaces them.
+     */
+    private void putBack(SessionSnapshot rewrite, ByteBuffer appended) {
+        lock.lock();
+        try {
+            if (!finished && snapshot == null) {
+                snapshot = rewrite;
+                moves.flip();
+                ByteBuffer pending = ByteBuffer
+                        .allocate(Math.max(moves.capacity(), appended.remaining() + moves.remaining() + 16));
+                pending.put(appended.duplicate()).put(moves);
+                moves = pending;
+            }
+            markDirty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds moves written to the file to what the file holds.
+     */
+    private void remember(ByteBuffer appended) {
+        if (writtenMoves.remaining() < appended.remaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * (writtenMoves.capacity() + appended.remaining()));
+            writtenMoves.flip();
+            larger.put(writtenMoves);
+            writtenMoves = larger;
+        }
+        writtenMoves.put(appended);
+    }
+
+    /**
+     * Rewrites the journal as a snapshot followed by the given moves. The
+     * new file replaces the old one only once it is on disk.
+     */
+    private void compact(SessionSnapshot rewrite, ByteBuffer appended) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(3 + rewrite.encodedSize() + appended.remaining());
+        bytes.put(SNAPSHOT).putShort((short) rewrite.encodedSize());
+        rewrite.encode(bytes);
+        bytes.put(appended).flip();
+
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY);
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining())
+                out.write(bytes);
+            out.force(false);
+        }
+        closeChannel();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        written = rewrite;
+        writtenMoves.clear();
+        remember(appended.rewind());
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Reads back the journals left by a previous run, in parallel. Games
+     * that had already ended and unreadable journals are removed.
+     *
+     * @param threads number of journals read at the same time.
+     * @return the games that were in progress.
+     */
+    public static List<SessionSnapshot> recoverAll(int threads) throws InterruptedException {
+        List<SessionSnapshot> recovered = new ArrayList<>();
+        if (!isEnabled())
+            return recovered;
+
+        List<Path> files = new ArrayList<>();
+        Path directory = Paths.get(DIRECTORY);
+        if (!Files.isDirectory(directory))
+            return recovered;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(SUFFIX))
+                    files.add(entry);
+                else if (name.endsWith(SUFFIX + TEMPORARY))
+                    Files.deleteIfExists(entry); // Compaction cut short, the journal is intact
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not list journals in " + directory, e);
+            return recovered;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<SessionSnapshot>> games = new ArrayList<>(files.size());
+            for (Path file : files)
+                games.add(pool.submit(() -> recover(file)));
+            for (Future<SessionSnapshot> game : games) {
+                try {
+                    SessionSnapshot snapshot = game.get();
+                    if (snapshot != null)
+                        recovered.add(snapshot);
+                } catch (ExecutionException e) {
+                    logger.log(Level.WARNING, "Could not recover a game", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return recovered;
+    }
+
+    /**
+     * Rebuilds one game: its last snapshot, then the moves played since. A
+     * record cut short by the crash ends the journal.
+     *
+     * @return the game, or null if the journal is unreadable or the game was
+     *         already over.
+     */
+    static SessionSnapshot recover(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        SessionSnapshot start;
+        try {
+            if (in.remaining() < 3 || in.get() != SNAPSHOT)
+                throw new IllegalArgumentException("Journal does not start with a snapshot");
+            int length = Short.toUnsignedInt(in.getShort());
+            start = SessionSnapshot.decode(in.slice(in.position(), Math.min(length, in.remaining())));
+            in.position(in.position() + length);
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Discarding unreadable journal " + file, e);
+            Files.deleteIfExists(file);
+            return null;
+        }
+
+        GameRules rules = new OriginalRulesFactory().createOriginalRules(new ServerBoard());
+        start.restoreTo(rules);
+        PieceColor turn = start.getTurn();
+        RevealedSquares revealed = start.getRevealed();
+        int played = 0;
+        while (in.remaining() >= 3 && in.get() == MOVE) {
+            int from = in.get();
+            int to = in.get();
+            Move move = new Move();
+            move.setStart(from / 10, from % 10);
+            move.setEnd(to / 10, to % 10);
+            move.setMoveColor(turn);
+            boolean attack = rules.getPiece(to / 10, to % 10) != null;
+            rules.processMove(move, new Move(), new Move());
+            revealed.played(from, to, attack, rules.getPiece(to / 10, to % 10) != null);
+            turn = (turn == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+            played++;
+        }
+
+        if (isOver(rules)) {
+            // Ended before its journal was deleted; the result is already recorded
+            Files.deleteIfExists(file);
+            return null;
+        }
+        return start.advance(rules, played, revealed);
+    }
+
+    /**
+     * @return true if a flag was captured or a player cannot move.
+     */
+    private static boolean isOver(GameRules rules) {
+        boolean redFlag = false;
+        boolean blueFlag = false;
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                if (rules.getPiece(row, col) != null && rules.getPiece(row, col).getPieceType() == PieceType.FLAG) {
+                    if (rules.getPiece(row, col).getPieceColor() == PieceColor.RED)
+                        redFlag = true;
+                    else
+                        blueFlag = true;
+                }
+            }
+        }
+        return !redFlag || !blueFlag || !rules.hasAvailableMoves(PieceColor.RED)
+                || !rules.hasAvailableMoves(PieceColor.BLUE);
+    }
+
+    /**
+     * Deletes the journal of a game that will not be resumed.
+     *
+     * @param gameId id of the game.
+     */
+    public static void discard(String gameId) {
+        if (!isEnabled())
+            return;
+        try {
+            Files.deleteIfExists(Paths.get(DIRECTORY, gameId + SUFFIX));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete the journal of game " + gameId, e);
+        }
+    }
+
+}
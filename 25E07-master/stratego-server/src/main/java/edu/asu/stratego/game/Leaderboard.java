@@ -0,0 +1,212 @@
+package edu.asu.stratego.game;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import models.LeaderboardEntry;
+import services.GameResultWriter;
+import services.LeaderboardService;
+
+/**
+ * Server-wide ranking of players by rating.
+ *
+ * <p>
+ * The ranking is rebuilt from the Player table when the server starts and
+ * then kept up to date in memory as the {@link GameResultWriter} stores new
+ * ratings (see {@link #ratingChanged}), so the snapshot never sorts the
+ * table. The best {@link #SNAPSHOT_SIZE} players are written to the
+ * {@code leaderboard} table every {@link #SNAPSHOT_MINUTES} minutes when the
+ * ranking has changed, and once more at shutdown; the client's profile
+ * shows the player's position in it.
+ * </p>
+ */
+public class Leaderboard implements GameResultWriter.RatingListener {
+
+    private static final Logger logger = Logger.getLogger(Leaderboard.class.getName());
+
+    static final int SNAPSHOT_SIZE = 100;
+    static final long SNAPSHOT_MINUTES = 5;
+
+    private static final Leaderboard SHARED = new Leaderboard(new LeaderboardService());
+
+    private final LeaderboardService service;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final RankingTree ranking = new RankingTree();
+    // Ratings that arrive while the table is being read, by email
+    private final Map<String, LeaderboardEntry> pending = new LinkedHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean loaded;
+    private boolean loading;
+    private boolean changed;
+
+    public static Leaderboard getInstance() {
+        return SHARED;
+    }
+
+    Leaderboard(LeaderboardService service) {
+        this.service = service;
+    }
+
+    /**
+     * Loads the ranking in the background and schedules the snapshots.
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "leaderboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::load);
+        scheduler.scheduleWithFixedDelay(this::snapshot, SNAPSHOT_MINUTES, SNAPSHOT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the snapshots, writing a last one if the ranking changed.
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        snapshot();
+    }
+
+    /**
+     * Sets the rating of a player, ranking the player if needed. Called by
+     * the writer once the rating is committed. While the ranking is being
+     * loaded the rating is kept aside, and set once the ranking is rebuilt.
+     */
+    @Override
+    public void ratingChanged(String email, String nickname, int rating) {
+        if (email == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (loading) {
+                pending.put(email, new LeaderboardEntry(email, nickname, rating));
+            } else {
+                ranking.put(email, nickname, rating);
+            }
+            changed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The best {@code n} players, with their positions set.
+     */
+    public List<LeaderboardEntry> top(int n) {
+        lock.lock();
+        try {
+            List<RankingTree.Node> nodes = ranking.top(n);
+            List<LeaderboardEntry> top = new ArrayList<>(nodes.size());
+            for (RankingTree.Node node : nodes) {
+                LeaderboardEntry entry = new LeaderboardEntry(node.email, node.nickname, node.points);
+                entry.setPosition(top.size() + 1);
+                top.add(entry);
+            }
+            return top;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the ranking from the Player table. Ratings stored before the
+     * table is read are already in it; those that arrive while it is being
+     * read may or may not be, so they are set again on top of it.
+     */
+    void load() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            loading = true;
+        } finally {
+            lock.unlock();
+        }
+
+        List<LeaderboardEntry> standings;
+        try {
+            standings = service.loadStandings();
+        } catch (RuntimeException | LinkageError e) {
+            logger.log(Level.WARNING, "Could not load the leaderboard, will retry", e);
+            lock.lock();
+            try {
+                applyPending();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            ranking.clear();
+            for (LeaderboardEntry standing : standings) {
+                ranking.put(standing.getEmail(), standing.getNickname(), standing.getPoints());
+            }
+            applyPending();
+            loaded = true;
+            changed = true;
+        } finally {
+            lock.unlock();
+        }
+        logger.info(String.format("Leaderboard loaded: %d players in %d ms",
+                standings.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    /**
+     * Sets the ratings kept aside during a load. Called with the lock held.
+     */
+    private void applyPending() {
+        for (LeaderboardEntry entry : pending.values()) {
+            ranking.put(entry.getEmail(), entry.getNickname(), entry.getPoints());
+        }
+        pending.clear();
+        loading = false;
+    }
+
+    void snapshot() {
+        if (!loaded) {
+            // A partial ranking must not replace the stored one
+            load();
+            if (!loaded) {
+                return;
+            }
+        }
+
+        List<LeaderboardEntry> top;
+        lock.lock();
+        try {
+            if (!changed) {
+                return;
+            }
+            changed = false;
+            top = top(SNAPSHOT_SIZE);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            service.saveSnapshot(top);
+        } catch (RuntimeException | LinkageError e) {
+            logger.log(Level.WARNING, "Could not save the leaderboard snapshot", e);
+            lock.lock();
+            try {
+                changed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package edu.asu.stratego.game;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.net.FrameOutputStream;
+import edu.asu.stratego.net.PlayerSeat;
+import edu.asu.stratego.net.ResumeToken;
+import edu.asu.stratego.net.StreamSessionChannel;
+import edu.asu.stratego.util.PeriodicTasks;
+
+/**
+ * Where players who lost the connection find their game again: the resume
+ * tokens of the sessions running, and the games in progress that have no
+ * session running them.
+ *
+ * <p>
+ * A session that needs the move of a player who lost the connection parks
+ * the game here (see {@link ServerGameManager}) and ends: only the game's
+ * snapshot and the channel holding the other player's connection are kept, a
+ * few hundred bytes, while the board, the rules and the session thread are
+ * released. The player comes back on a new connection with their resume
+ * token; once both players are connected again a new session takes the game
+ * from the snapshot. A game nobody comes back to within
+ * {@code -Dstratego.resume=<seconds>} (60 by default) is lost by the player
+ * who left, or dropped without a result if both did.
+ * </p>
+ *
+ * <p>
+ * When the server starts, the games read back from the journals (see
+ * {@link GameJournal#recoverAll(int)}) are parked here too, with both players
+ * gone, for {@link #RESUME_MINUTES} minutes.
+ * </p>
+ */
+public class ParkedSessions {
+
+    private static final Logger logger = Logger.getLogger(ParkedSessions.class.getName());
+
+    static final long RESUME_MINUTES = 10;
+
+    private static final long RESUME_SECONDS = Long.getLong("stratego.resume", 60);
+
+    private static final long SWEEP_SECONDS = 5;
+
+    private static final ParkedSessions SHARED = new ParkedSessions();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Parked> byGame = new HashMap<>();
+    private final Map<ResumeToken, Parked> byToken = new HashMap<>();
+    private final Map<ResumeToken, ServerGameManager> live = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * A parked game, the connections of the players who are still (or again)
+     * there, and when it stops waiting.
+     */
+    private static final class Parked {
+        private final SessionSnapshot snapshot;
+        private final long parkedAt;
+        private final long expiresAt;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Guarded by lock
+        private StreamSessionChannel channel;
+        private boolean over;
+
+        Parked(SessionSnapshot snapshot, StreamSessionChannel channel, long parkedAt, long expiresAt) {
+            this.snapshot = snapshot;
+            this.channel = channel;
+            this.parkedAt = parkedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return the time the player in turn has spent away from the game,
+         *         in milliseconds; none for games read back from the journals,
+         *         as the server was the one away.
+         */
+        long pausedMillis() {
+            return (parkedAt == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parkedAt);
+        }
+    }
+
+    public static ParkedSessions getInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Reads back the games left in progress by the previous run and starts
+     * dropping the ones nobody claims.
+     *
+     * @param threads number of journals read at the same time.
+     */
+    public void start(int threads) throws InterruptedException {
+        long begin = System.nanoTime();
+        List<SessionSnapshot> recovered = GameJournal.recoverAll(threads);
+        for (SessionSnapshot snapshot : recovered)
+            park(snapshot, null, false, TimeUnit.MINUTES.toNanos(RESUME_MINUTES));
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered " + recovered.size() + " games in progress in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + " ms");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "parked-sessions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dropExpired, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * Lets the holder of a token rejoin a running session.
+     */
+    void register(ResumeToken token, ServerGameManager session) {
+        lock.lock();
+        try {
+            live.put(token, session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the token of a session that ended.
+     */
+    void unregister(ResumeToken token, ServerGameManager session) {
+        lock.lock();
+        try {
+            live.remove(token, session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks a game whose player lost the connection. Its tokens now lead
+     * here instead of to the session that parked it.
+     *
+     * @param snapshot the game.
+     * @param channel  the session's connections, with the lost player
+     *                 detached.
+     */
+    void park(SessionSnapshot snapshot, StreamSessionChannel channel) {
+        park(snapshot, channel, true, TimeUnit.SECONDS.toNanos(RESUME_SECONDS));
+    }
+
+    private void park(SessionSnapshot snapshot, StreamSessionChannel channel, boolean clockRuns, long waitNanos) {
+        long now = System.nanoTime();
+        // 0 marks a clock that stood still; nanoTime could be 0, at worst a millisecond is lost
+        Parked parked = new Parked(snapshot, channel, clockRuns ? (now | 1) : 0, now + waitNanos);
+        lock.lock();
+        try {
+            byGame.put(snapshot.getGameId(), parked);
+            if (snapshot.getTokenOne() != null) {
+                live.remove(snapshot.getTokenOne());
+                byToken.put(snapshot.getTokenOne(), parked);
+            }
+            if (snapshot.getTokenTwo() != null) {
+                live.remove(snapshot.getTokenTwo());
+                byToken.put(snapshot.getTokenTwo(), parked);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seats a returning player, in the session still running their game or
+     * in the parked game, and sends them the position. The player's
+     * connection must be past the protocol handshake. An unknown or expired
+     * token is answered with {@link GameStatus#DISCONNECTED} and the
+     * connection is closed.
+     *
+     * @param token      the token the player sent.
+     * @param socket     the player's new connection.
+     * @param version    the protocol version negotiated on it.
+     * @param sessionNum the number of the session that would take the game.
+     * @return the session, ready to run, once both players are back; null
+     *         while the game waits for the other player, or if there was no
+     *         game to resume.
+     */
+    public ServerGameManager resume(ResumeToken token, Socket socket, int version, int sessionNum) {
+        // A game moves between a session and this place while we look: look again
+        for (int attempt = 0; attempt < 3; ++attempt) {
+            ServerGameManager session;
+            Parked parked;
+            lock.lock();
+            try {
+                session = live.get(token);
+                parked = byToken.get(token);
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (session != null) {
+                    if (session.rejoin(token, socket, version))
+                        return null;
+                } else if (parked != null) {
+                    parked.lock.lock();
+                    try {
+                        if (!parked.over)
+                            return seat(parked, token, socket, version, sessionNum);
+                    } finally {
+                        parked.lock.unlock();
+                    }
+                } else {
+                    break;
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not seat a returning player", e);
+                closeQuietly(socket);
+                return null;
+            }
+        }
+
+        try {
+            new FrameOutputStream(socket.getOutputStream()).writeObject(GameStatus.DISCONNECTED);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not tell a player their game is gone", e);
+        }
+        closeQuietly(socket);
+        return null;
+    }
+
+    // Called with the parked game's lock held
+    private ServerGameManager seat(Parked parked, ResumeToken token, Socket socket, int version, int sessionNum)
+            throws IOException {
+        SessionSnapshot snapshot = parked.snapshot;
+        PlayerSeat seat = token.equals(snapshot.getTokenOne()) ? PlayerSeat.ONE : PlayerSeat.TWO;
+        PieceColor color = (seat == PlayerSeat.ONE) ? snapshot.getColorOne()
+                : (snapshot.getColorOne() == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+
+        if (parked.channel == null)
+            parked.channel = new StreamSessionChannel();
+        ResumeState state = snapshot.stateFor(color, parked.pausedMillis());
+        Object view = FogOfWar.redact(state, color, snapshot.getRevealed(), seat == PlayerSeat.ONE);
+        if (view != state)
+            logger.severe("Game " + snapshot.getGameId() + ": hid pieces player " + seat + " may not see");
+
+        parked.channel.attach(seat, socket, version);
+        try {
+            parked.channel.send(seat, view);
+        } catch (IOException e) {
+            parked.channel.detach(seat);
+            throw e;
+        }
+        logger.info("Game " + snapshot.getGameId() + ": player " + seat + " is back");
+        if (!parked.channel.isAttached(seat.other()))
+            return null;
+
+        parked.over = true;
+        unpark(parked);
+        return ServerGameManager.resume(snapshot, parked.channel, sessionNum, parked.pausedMillis());
+    }
+
+    private void unpark(Parked parked) {
+        lock.lock();
+        try {
+            SessionSnapshot snapshot = parked.snapshot;
+            byGame.remove(snapshot.getGameId(), parked);
+            if (snapshot.getTokenOne() != null)
+                byToken.remove(snapshot.getTokenOne(), parked);
+            if (snapshot.getTokenTwo() != null)
+                byToken.remove(snapshot.getTokenTwo(), parked);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of parked games.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return byGame.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropExpired() {
+        List<Parked> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Iterator<Parked> it = byGame.values().iterator();
+            while (it.hasNext()) {
+                Parked parked = it.next();
+                if (now - parked.expiresAt >= 0)
+                    expired.add(parked);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Parked parked : expired) {
+            parked.lock.lock();
+            try {
+                if (parked.over)
+                    continue;
+                parked.over = true;
+            } finally {
+                parked.lock.unlock();
+            }
+            unpark(parked);
+            PeriodicTasks.runLogged(logger, "Error while dropping game " + parked.snapshot.getGameId(),
+                    () -> ServerGameManager.expire(parked.snapshot, parked.channel));
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error while closing a connection.", e);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package edu.asu.stratego.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted tree of players, best first: more points come first and
+ * ties are broken by email. A rating change is a removal and an insertion,
+ * O(log n), and the first N players are read in O(log n + N). The tree is a
+ * treap, balanced by random node priorities.
+ *
+ * <p>
+ * Not thread safe; {@link Leaderboard} guards it.
+ * </p>
+ */
+class RankingTree {
+
+    static final class Node {
+        final String email;
+        String nickname;
+        final int points;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+
+        Node(String email, String nickname, int points) {
+            this.email = email;
+            this.nickname = nickname;
+            this.points = points;
+        }
+    }
+
+    private Node root;
+    private final Map<String, Node> byEmail = new HashMap<>();
+
+    int size() {
+        return byEmail.size();
+    }
+
+    /**
+     * Sets the points of a player, adding the player if needed.
+     */
+    void put(String email, String nickname, int points) {
+        Node old = byEmail.get(email);
+        if (old != null) {
+            if (old.points == points) {
+                if (nickname != null) {
+                    old.nickname = nickname;
+                }
+                return;
+            }
+            remove(old);
+            if (nickname == null) {
+                nickname = old.nickname;
+            }
+        }
+        Node node = new Node(email, nickname, points);
+        Node[] parts = split(root, node, false);
+        root = merge(merge(parts[0], node), parts[1]);
+        byEmail.put(email, node);
+    }
+
+    /**
+     * The first {@code n} players, best first.
+     */
+    List<Node> top(int n) {
+        List<Node> out = new ArrayList<>(Math.min(n, size()));
+        collect(root, n, out);
+        return out;
+    }
+
+    void clear() {
+        root = null;
+        byEmail.clear();
+    }
+
+    private void remove(Node node) {
+        Node[] lower = split(root, node, false);
+        Node[] upper = split(lower[1], node, true);
+        root = merge(lower[0], upper[1]);
+        byEmail.remove(node.email);
+    }
+
+    private static void collect(Node node, int n, List<Node> out) {
+        if (node == null || out.size() >= n) {
+            return;
+        }
+        collect(node.left, n, out);
+        if (out.size() < n) {
+            out.add(node);
+            collect(node.right, n, out);
+        }
+    }
+
+    /**
+     * Splits {@code t} into the nodes ordered before {@code key} (or up to and
+     * including it when {@code inclusive}) and the rest.
+     */
+    private static Node[] split(Node t, Node key, boolean inclusive) {
+        if (t == null) {
+            return new Node[2];
+        }
+        int cmp = compare(t, key);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node[] parts = split(t.right, key, inclusive);
+            t.right = parts[0];
+            parts[0] = t;
+            return parts;
+        }
+        Node[] parts = split(t.left, key, inclusive);
+        t.left = parts[1];
+        parts[1] = t;
+        return parts;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        return b;
+    }
+
+    private static int compare(Node a, Node b) {
+        if (a.points != b.points) {
+            return (a.points > b.points) ? -1 : 1;
+        }
+        return a.email.compareTo(b.email);
+    }
+}
@@ -0,0 +1,70 @@
+package edu.asu.stratego.game;
+
+/**
+ * The squares, in server board coordinates, holding a piece whose type its
+ * opponent has seen. A piece is revealed when it attacks or is attacked, and
+ * stays revealed as it moves. One bit per square.
+ */
+final class RevealedSquares {
+
+    private long low;
+    private long high;
+
+    RevealedSquares() {
+        /* Nothing revealed */ }
+
+    RevealedSquares(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * @param square a board square, as {@code row * 10 + col}.
+     * @return true if the piece on the square is known to its opponent.
+     */
+    boolean contains(int square) {
+        return (square < 64) ? (low & (1L << square)) != 0 : (high & (1L << (square - 64))) != 0;
+    }
+
+    /**
+     * Follows a move played on the board.
+     *
+     * @param from     the square the piece moved from.
+     * @param to       the square it moved to.
+     * @param attack   whether there was a piece on the destination.
+     * @param occupied whether there is a piece on the destination after the
+     *                 move; after an attack it is the winner, now revealed.
+     */
+    void played(int from, int to, boolean attack, boolean occupied) {
+        boolean moved = contains(from);
+        set(from, false);
+        set(to, occupied && (attack || moved));
+    }
+
+    /**
+     * Reveals every square, once the game is over.
+     */
+    void revealAll() {
+        low = -1L;
+        high = (1L << (100 - 64)) - 1;
+    }
+
+    long getLow() {
+        return low;
+    }
+
+    long getHigh() {
+        return high;
+    }
+
+    private void set(int square, boolean revealed) {
+        if (square < 64) {
+            long bit = 1L << square;
+            low = revealed ? (low | bit) : (low & ~bit);
+        } else {
+            long bit = 1L << (square - 64);
+            high = revealed ? (high | bit) : (high & ~bit);
+        }
+    }
+
+}
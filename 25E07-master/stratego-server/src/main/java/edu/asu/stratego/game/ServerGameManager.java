@@ -0,0 +1,1308 @@
+package edu.asu.stratego.game;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.*;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.board.ServerBoard;
+import edu.asu.stratego.game.gameRules.LegalMoves;
+import edu.asu.stratego.game.gameRules.OriginalRulesFactory;
+import edu.asu.stratego.game.gameRules.RulesFactory;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.game.gameRules.GameRules;
+import edu.asu.stratego.net.BinaryProtocol;
+import edu.asu.stratego.net.HeartbeatMonitor;
+import edu.asu.stratego.net.PlayerSeat;
+import edu.asu.stratego.net.ProtocolHello;
+import edu.asu.stratego.net.ResumeToken;
+import edu.asu.stratego.net.SessionChannel;
+import edu.asu.stratego.net.SpectateRequest;
+import edu.asu.stratego.net.SpectatorFeed;
+import edu.asu.stratego.net.StreamSessionChannel;
+import edu.asu.stratego.util.CoordinateUtils;
+import edu.asu.stratego.util.TimingWheel;
+import services.GameResult;
+import services.GameResultWriter;
+import edu.asu.stratego.game.pieces.Piece;
+
+/**
+ * Task to manage a Stratego game between two clients.
+ * 
+ * <p>
+ * The game is a state machine driven by the messages received from the
+ * players (see {@link #onMessage(PlayerSeat, Object)}). In the
+ * thread-per-session mode the manager pulls those messages itself from
+ * blocking sockets in {@link #run()}; in the event loop mode the
+ * NioSessionServer pushes them as frames arrive.
+ * </p>
+ *
+ * <p>
+ * The server is the authority on the rules: every move is checked against
+ * the legal moves of the player in turn, computed once when the turn
+ * starts. A move that fails the check is answered with a
+ * {@link MoveRejection} and the same player keeps the turn.
+ * </p>
+ *
+ * <p>
+ * Once both setups are in, the game is recorded in a {@link GameJournal}:
+ * a snapshot, then every move played, with a new snapshot every
+ * {@link GameJournal#SNAPSHOT_INTERVAL} moves. A restarted server rebuilds
+ * the games in progress from their journals.
+ * </p>
+ *
+ * <p>
+ * The server also keeps the time (see {@link TimeControl}): a deadline for
+ * the setups, and for every turn the shorter of the per-move limit and what
+ * is left of the player's clock. All the deadlines of the server share one
+ * {@link TimingWheel}. A player who runs out of time loses the game with
+ * RED_TIMED_OUT or BLUE_TIMED_OUT. Timeouts run on the thread that delivers
+ * the session's messages (see {@link SessionChannel#execute(Runnable)}), and
+ * every entry point takes the session's lock, so they never race with a
+ * move.
+ * </p>
+ *
+ * <p>
+ * Players on {@link BinaryProtocol#RESUME_VERSION} get a {@link ResumeToken}
+ * when the game starts, and losing the connection does not end their game.
+ * The session goes on without the lost player, dropping what it sends them,
+ * until it needs their move; then the game is parked in
+ * {@link ParkedSessions} and the session ends. A player who comes back with
+ * the token is sent the position ({@link ResumeState}) and takes their seat
+ * again, in this session or, once both players are back, in a new one
+ * created by {@link #resume}. The clock of the player in turn keeps running
+ * meanwhile.
+ * </p>
+ *
+ * <p>
+ * A game in progress can be watched by any number of spectators (see
+ * {@link #watch(SpectateRequest, Socket)}). They get what the players get,
+ * in the orientation of the server's board and with every piece nobody has
+ * seen in an attack hidden, through a {@link SpectatorFeed} that never makes
+ * the players wait. A parked game loses its spectators.
+ * </p>
+ */
+public class ServerGameManager implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(ServerGameManager.class.getName());
+
+    /**
+     * Phases of a game session, in the order they happen.
+     */
+    private enum SessionState {
+        AWAITING_PLAYERS,
+        AWAITING_SETUP,
+        IN_PROGRESS,
+        /** Waiting in ParkedSessions for a player; this session is over. */
+        PARKED,
+        FINISHED;
+    }
+
+    private final String session;
+    private final String gameId;
+
+    private ServerBoard board = new ServerBoard();
+
+    private final SessionChannel channel;
+
+    private Player playerOne;
+    private Player playerTwo;
+
+    private SetupBoard setupBoardOne;
+    private SetupBoard setupBoardTwo;
+
+    private Point playerOneFlag;
+    private Point playerTwoFlag;
+
+    private PieceColor turn;
+    private Move move;
+
+    private final LegalMoves legalMoves = new LegalMoves();
+    private volatile int rejectedMoves;
+    private int movesPlayed;
+
+    private ResumeToken tokenOne;
+    private ResumeToken tokenTwo;
+    private RevealedSquares revealed = new RevealedSquares();
+
+    // Created for the first spectator
+    private SpectatorFeed spectators;
+
+    // Games in progress, by the email of each player
+    private static final Map<String, ServerGameManager> watchable = new ConcurrentHashMap<>();
+
+    private GameJournal journal;
+
+    private volatile SessionState state = SessionState.AWAITING_PLAYERS;
+    private LocalDateTime startTime = LocalDateTime.now();
+    private final AtomicBoolean gameAbandoned = new AtomicBoolean(false);
+
+    private static final GameResultWriter resultWriter = GameResultWriter.getInstance();
+
+    private static final TimeControl timeControl = TimeControl.fromSystemProperties();
+
+    // Una sola rueda para los relojes de todas las partidas
+    private static final TimingWheel deadlines = new TimingWheel("game-clocks", 100, TimeUnit.MILLISECONDS, 1024,
+            Executors.newVirtualThreadPerTaskExecutor());
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private TimingWheel.Timeout deadline;
+    private int deadlineNumber;
+    private long turnStartedAt;
+    private long redClockMillis;
+    private long blueClockMillis;
+
+    RulesFactory rulesFactory = new OriginalRulesFactory();
+    GameRules gameRules;
+
+    /**
+     * {@code -Dstratego.rules=bitboard} plays the sessions on a BitBoard
+     * instead of a ServerBoard.
+     */
+    private static final boolean BITBOARD_RULES = "bitboard".equals(System.getProperty("stratego.rules"));
+
+    /**
+     * Creates a new instance of ServerGameManager. Inbound messages are
+     * delivered through {@link #onMessage(PlayerSeat, Object)}, or pulled by
+     * {@link #run()} when the channel is a {@link StreamSessionChannel}.
+     * 
+     * @param channel    outbound side of the session.
+     * @param sessionNum the nth game session created by Server.
+     * 
+     * @see edu.asu.stratego.net.MatchmakingServer
+     * @see edu.asu.stratego.net.NioSessionServer
+     */
+    public ServerGameManager(SessionChannel channel, int sessionNum) {
+        this(channel, "Session " + sessionNum + ": ", GameJournal.newGameId());
+
+        if (Math.random() < 0.5)
+            this.turn = PieceColor.RED;
+        else
+            this.turn = PieceColor.BLUE;
+    }
+
+    private ServerGameManager(SessionChannel channel, String session, String gameId) {
+        this.session = session;
+        this.channel = channel;
+        this.gameId = gameId;
+        this.gameRules = createRules();
+    }
+
+    /**
+     * Creates the session that continues a parked game once both players are
+     * back on the channel. The players already have the position, so the
+     * session only restarts the clock of the player in turn and waits for
+     * their move in {@link #run()}.
+     *
+     * @param parked      the game.
+     * @param channel     both players' connections.
+     * @param sessionNum  the nth game session created by Server.
+     * @param pausedMillis time the game spent parked, charged to the player in
+     *                    turn.
+     * @return the session, ready to run.
+     */
+    static ServerGameManager resume(SessionSnapshot parked, StreamSessionChannel channel, int sessionNum,
+            long pausedMillis) {
+        ServerGameManager manager = new ServerGameManager(channel, "Session " + sessionNum + ": ",
+                parked.getGameId());
+        manager.lock.lock();
+        try {
+            manager.restore(parked);
+            manager.continueGame(parked.getSpentMillis() + pausedMillis);
+        } finally {
+            manager.lock.unlock();
+        }
+        return manager;
+    }
+
+    /**
+     * Ends a parked game nobody came back to in time. The player who left
+     * loses, and the one still connected is told so; if both left, the game
+     * is dropped without a result.
+     *
+     * @param parked  the game.
+     * @param channel the connections still open, or null.
+     */
+    static void expire(SessionSnapshot parked, StreamSessionChannel channel) {
+        GameJournal.discard(parked.getGameId());
+        boolean one = channel != null && channel.isAttached(PlayerSeat.ONE);
+        boolean two = channel != null && channel.isAttached(PlayerSeat.TWO);
+        if (!one && !two) {
+            if (channel != null)
+                channel.close();
+            logger.info("Dropped game " + parked.getGameId() + ", nobody came back to it");
+            return;
+        }
+
+        ServerGameManager manager = new ServerGameManager(channel, "Game " + parked.getGameId() + ": ",
+                parked.getGameId());
+        manager.lock.lock();
+        try {
+            manager.restore(parked);
+            manager.abandonGame(manager.disconnectStatus(one ? PlayerSeat.TWO : PlayerSeat.ONE));
+        } finally {
+            manager.lock.unlock();
+        }
+    }
+
+    private void restore(SessionSnapshot parked) {
+        playerOne = parked.createPlayerOne();
+        playerTwo = parked.createPlayerTwo();
+        parked.restoreTo(gameRules);
+        playerOneFlag = findFlag(playerOne.getColor());
+        playerTwoFlag = findFlag(playerTwo.getColor());
+        turn = parked.getTurn();
+        movesPlayed = parked.getMoves();
+        startTime = parked.getStartTime();
+        redClockMillis = parked.getClockMillis(PieceColor.RED);
+        blueClockMillis = parked.getClockMillis(PieceColor.BLUE);
+        tokenOne = parked.getTokenOne();
+        tokenTwo = parked.getTokenTwo();
+        revealed = parked.getRevealed();
+        state = SessionState.IN_PROGRESS;
+    }
+
+    private Point findFlag(PieceColor color) {
+        for (int row = 0; row < 10; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = gameRules.getPiece(row, col);
+                if (piece != null && piece.getPieceColor() == color && piece.getPieceType() == PieceType.FLAG)
+                    return new Point(row, col);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks up a restored game in the middle of a turn.
+     *
+     * @param spentMillis time the player in turn has already spent.
+     */
+    private void continueGame(long spentMillis) {
+        logger.info(session + "Resuming game " + gameId + " after " + movesPlayed + " moves");
+        registerTokens();
+        setWatchable(true);
+        journal = GameJournal.open(snapshot(turn, spentMillis));
+        legalMoves.compute(gameRules, turn);
+        turnStartedAt = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(spentMillis);
+
+        long limit = timeControl.turnLimit(clockOf(turn));
+        if (limit > 0 && spentMillis >= limit) {
+            endOnTime(timedOutStatus(turn));
+            return;
+        }
+        armDeadline((limit > 0) ? limit - spentMillis : 0, this::turnExpired);
+    }
+
+    /**
+     * See ClientGameManager's run() method to understand how the server
+     * interacts with the client.
+     * 
+     * @see edu.asu.stratego.game.ClientGameManager
+     */
+    @Override
+    public void run() {
+        StreamSessionChannel streams = (StreamSessionChannel) channel;
+
+        PlayerSeat seat;
+        while ((seat = awaitingSeat()) != null) {
+            Object received;
+            try {
+                received = streams.receive(seat);
+            } catch (SocketTimeoutException e) {
+                // Not even a heartbeat: the player is gone
+                logger.warning(session + "Player " + seat + " stopped responding");
+                if (park(seat))
+                    return;
+                HeartbeatMonitor.getInstance().sessionReaped(channel);
+                onDisconnect(seat);
+                return;
+            } catch (IOException | ClassNotFoundException e) {
+                // A timeout ends the game by closing the sockets under this read
+                if (isFinished())
+                    return;
+                if (e instanceof IOException && park(seat))
+                    return;
+                logger.log(Level.SEVERE, session + "Error occurred during network I/O", e);
+                // If there's an IO error, treat it as abandonment
+                onDisconnect(seat);
+                return;
+            }
+            onMessage(seat, received);
+        }
+        if (state != SessionState.PARKED)
+            closeConnections();
+    }
+
+    /**
+     * Returns the seat whose next message the session is waiting for.
+     *
+     * @return the seat to read from, or null once the game is over.
+     */
+    public PlayerSeat awaitingSeat() {
+        switch (state) {
+            case AWAITING_PLAYERS:
+                return (playerOne == null) ? PlayerSeat.ONE : PlayerSeat.TWO;
+            case AWAITING_SETUP:
+                return (setupBoardOne == null) ? PlayerSeat.ONE : PlayerSeat.TWO;
+            case IN_PROGRESS:
+                return seatOf(turn);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return true once the game has ended, normally or by abandonment.
+     */
+    public boolean isFinished() {
+        return state == SessionState.FINISHED;
+    }
+
+    /**
+     * Advances the game with a message received from one of the players.
+     *
+     * @param seat    the player who sent the message.
+     * @param message the received object.
+     */
+    public void onMessage(PlayerSeat seat, Object message) {
+        lock.lock();
+        try {
+            handleMessage(seat, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void handleMessage(PlayerSeat seat, Object message) {
+        if (message instanceof ProtocolHello && state == SessionState.AWAITING_PLAYERS) {
+            negotiateProtocol(seat, (ProtocolHello) message);
+            return;
+        }
+
+        if (isAbandonSignal(message)) {
+            if (state != SessionState.FINISHED)
+                abandonGame(disconnectStatus(seat));
+            return;
+        }
+
+        try {
+            switch (state) {
+                case AWAITING_PLAYERS:
+                    receivePlayer(seat, (Player) message);
+                    break;
+                case AWAITING_SETUP:
+                    receiveSetup(seat, (SetupBoard) message);
+                    break;
+                case IN_PROGRESS:
+                    if (seat != seatOf(turn)) {
+                        logger.warning(session + "Ignoring message sent out of turn by player " + seat);
+                        break;
+                    }
+                    playMove((Move) message);
+                    break;
+                default:
+                    logger.warning(session + "Ignoring message received after the game ended.");
+                    break;
+            }
+        } catch (ClassCastException e) {
+            logger.log(Level.SEVERE, session + "Unexpected message from player " + seat + " in state " + state, e);
+            abandonGame(disconnectStatus(seat));
+        }
+    }
+
+    /**
+     * Handles a player whose connection dropped.
+     *
+     * @param seat the player whose connection was lost.
+     */
+    public void onDisconnect(PlayerSeat seat) {
+        lock.lock();
+        try {
+            abandonGame(GameStatus.DISCONNECTED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private GameRules createRules() {
+        return BITBOARD_RULES ? rulesFactory.createBitboardRules() : rulesFactory.createOriginalRules(board);
+    }
+
+    private void resetServerBoard() {
+        this.board = new ServerBoard(); // 🔄 Crear un nuevo tablero vacío
+        this.gameRules = createRules();
+        this.playerOneFlag = null;
+        this.playerTwoFlag = null;
+        this.turn = (Math.random() < 0.5) ? PieceColor.RED : PieceColor.BLUE;
+        this.move = null;
+        logger.info(session + "Server board has been reset.");
+    }
+
+    /**
+     * Closes the socket connections and I/O streams safely.
+     */
+    private void closeConnections() {
+        if (channel != null)
+            channel.close();
+    }
+
+    /**
+     * Answers a client's handshake with the protocol version both sides
+     * understand and switches that player's per-turn messages to the binary
+     * protocol. Clients that never send a handshake keep receiving serialized
+     * objects; clients older than {@link BinaryProtocol#MIN_VERSION} end the
+     * session.
+     */
+    private void negotiateProtocol(PlayerSeat seat, ProtocolHello hello) {
+        if (!BinaryProtocol.isSupported(hello.getVersion())) {
+            logger.warning(session + "Player " + seat + " offers protocol version " + hello.getVersion()
+                    + ", too old to play");
+            abandonGame(GameStatus.DISCONNECTED);
+            return;
+        }
+        int version = BinaryProtocol.negotiate(hello.getVersion());
+        try {
+            send(seat, new ProtocolHello(version));
+            channel.useProtocol(seat, version);
+            logger.info(session + "Player " + seat + " uses protocol version " + version);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, session + "Error during protocol handshake.", e);
+            abandonGame(GameStatus.DISCONNECTED);
+        }
+    }
+
+    /**
+     * Receive player information from a client. Once both players have joined,
+     * determines the players' colors, and sends the player information of the
+     * opponents back to the clients.
+     */
+    private void receivePlayer(PlayerSeat seat, Player player) {
+        logger.info(session + "Player " + seat + " received: " + player.getNickname());
+        if (seat == PlayerSeat.ONE)
+            playerOne = player;
+        else
+            playerTwo = player;
+
+        if (playerOne == null || playerTwo == null)
+            return;
+
+        // 🔄 Asignar colores
+        if (Math.random() < 0.5) {
+            playerOne.setColor(PieceColor.RED);
+            playerTwo.setColor(PieceColor.BLUE);
+        } else {
+            playerOne.setColor(PieceColor.BLUE);
+            playerTwo.setColor(PieceColor.RED);
+        }
+
+        logger.info(session + "Assigned colors: " + playerOne.getColor() + " to " + playerOne.getNickname() +
+                ", " + playerTwo.getColor() + " to " + playerTwo.getNickname());
+
+        try {
+            // 🔄 Enviar información de los oponentes
+            send(PlayerSeat.ONE, playerTwo);
+            send(PlayerSeat.TWO, playerOne);
+            startTime = LocalDateTime.now();
+            state = SessionState.AWAITING_SETUP;
+            armDeadline(timeControl.getSetupMillis(), this::setupExpired);
+
+            logger.info(session + "Player information exchanged successfully.");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, session + "Error in I/O communication with players.", e);
+            abandonGame(GameStatus.DISCONNECTED);
+        }
+    }
+
+    /**
+     * Receives a setup board from a client. Once both boards have arrived,
+     * pieces are registered on the server board and rotated 180 degrees for
+     * correct orientation before being exchanged between the two players.
+     */
+    private void receiveSetup(PlayerSeat seat, SetupBoard setupBoard) {
+        Player player = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+        String invalid = checkSetup(setupBoard, player.getColor());
+        if (invalid != null) {
+            logger.warning(session + "Player " + seat + " sent an invalid setup: " + invalid);
+            abandonGame(disconnectStatus(seat));
+            return;
+        }
+
+        if (seat == PlayerSeat.ONE)
+            setupBoardOne = setupBoard;
+        else
+            setupBoardTwo = setupBoard;
+
+        if (setupBoardOne == null || setupBoardTwo == null)
+            return;
+        cancelDeadline();
+
+        // Register pieces on the server board
+        for (int row = 0; row < 4; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                gameRules.setPiece(row, col, setupBoardOne.getPiece(3 - row, 9 - col));
+                gameRules.setPiece(row + 6, col, setupBoardTwo.getPiece(row, col));
+                if (setupBoardOne.getPiece(3 - row, 9 - col).getPieceType() == PieceType.FLAG)
+                    playerOneFlag = new Point(row, col);
+                if (setupBoardTwo.getPiece(row, col).getPieceType() == PieceType.FLAG)
+                    playerTwoFlag = new Point(row + 6, col);
+            }
+        }
+
+        // Rotate pieces by 180 degrees
+        for (int row = 0; row < 2; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                // Player One
+                Piece temp = setupBoardOne.getPiece(row, col);
+                setupBoardOne.setPiece(setupBoardOne.getPiece(3 - row, 9 - col), row, col);
+                setupBoardOne.setPiece(temp, 3 - row, 9 - col);
+                // Player Two
+                temp = setupBoardTwo.getPiece(row, col);
+                setupBoardTwo.setPiece(setupBoardTwo.getPiece(3 - row, 9 - col), row, col);
+                setupBoardTwo.setPiece(temp, 3 - row, 9 - col);
+            }
+        }
+
+        GameStatus winCondition = checkWinCondition();
+
+        try {
+            // Each player learns where the opponent's pieces are, not which
+            send(PlayerSeat.ONE, FogOfWar.setupFor(setupBoardTwo));
+            send(PlayerSeat.TWO, FogOfWar.setupFor(setupBoardOne));
+            if (winCondition == GameStatus.IN_PROGRESS)
+                issueTokens();
+            send(PlayerSeat.ONE, winCondition);
+            send(PlayerSeat.TWO, winCondition);
+
+            // The setup boards are no longer needed once exchanged
+            setupBoardOne = null;
+            setupBoardTwo = null;
+
+            if (winCondition != GameStatus.IN_PROGRESS) {
+                recordGameResult(winCondition);
+                revealBoard();
+                finish();
+                return;
+            }
+
+            state = SessionState.IN_PROGRESS;
+            setWatchable(true);
+            redClockMillis = timeControl.getTotalMillis();
+            blueClockMillis = timeControl.getTotalMillis();
+            journal = GameJournal.open(snapshot(turn, 0));
+            sendTurn();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, session + "Error during setup exchange.", e);
+            abandonGame(GameStatus.DISCONNECTED);
+        }
+    }
+
+    /**
+     * Gives a resume token to each player whose connection could take them
+     * back to the game (see {@link SessionChannel#canResume(PlayerSeat)}).
+     * Sent between the opponent's setup and the status of the game.
+     */
+    private void issueTokens() throws IOException {
+        if (channel.canResume(PlayerSeat.ONE)) {
+            tokenOne = ResumeToken.random();
+            send(PlayerSeat.ONE, tokenOne);
+        }
+        if (channel.canResume(PlayerSeat.TWO)) {
+            tokenTwo = ResumeToken.random();
+            send(PlayerSeat.TWO, tokenTwo);
+        }
+        registerTokens();
+    }
+
+    private void registerTokens() {
+        if (tokenOne != null)
+            ParkedSessions.getInstance().register(tokenOne, this);
+        if (tokenTwo != null)
+            ParkedSessions.getInstance().register(tokenTwo, this);
+    }
+
+    private ResumeToken tokenOf(PlayerSeat seat) {
+        return (seat == PlayerSeat.ONE) ? tokenOne : tokenTwo;
+    }
+
+    /**
+     * Parks the game because the player in the given seat lost the
+     * connection and their move is needed, and ends the session.
+     *
+     * @return false if the player cannot come back, and the game has to be
+     *         abandoned instead.
+     */
+    private boolean park(PlayerSeat lost) {
+        lock.lock();
+        try {
+            if (state != SessionState.IN_PROGRESS || tokenOf(lost) == null)
+                return false;
+            StreamSessionChannel streams = (StreamSessionChannel) channel;
+            streams.detach(lost);
+            cancelDeadline();
+
+            SessionSnapshot parked = snapshot(turn, spentMillis());
+            if (journal != null) {
+                journal.snapshot(parked);
+                journal.close();
+                journal = null;
+            }
+            state = SessionState.PARKED;
+            setWatchable(false);
+            ParkedSessions.getInstance().park(parked, streams);
+            logger.info(session + "Player " + lost + " lost the connection, game " + gameId
+                    + " parked until they come back");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seats a player who lost the connection, and may not even know it yet,
+     * back in this session, and sends them the position. A read waiting on
+     * their old connection moves on to the new one.
+     *
+     * @param token   the player's resume token.
+     * @param socket  the player's new connection.
+     * @param version the protocol version negotiated on it.
+     * @return false if the game was parked or ended meanwhile.
+     * @throws IOException if the connection cannot be used.
+     */
+    boolean rejoin(ResumeToken token, Socket socket, int version) throws IOException {
+        lock.lock();
+        try {
+            if (state != SessionState.IN_PROGRESS)
+                return false;
+            PlayerSeat seat = token.equals(tokenOne) ? PlayerSeat.ONE : PlayerSeat.TWO;
+            Player player = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+            ((StreamSessionChannel) channel).attach(seat, socket, version);
+            send(seat, snapshot(turn, spentMillis()).stateFor(player.getColor(), 0));
+            logger.info(session + "Player " + seat + " is back");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a spectator to a game in progress, and sends them the position.
+     * The spectator's connection must be past the protocol handshake.
+     *
+     * @param request names one of the players, or none for any game.
+     * @param socket  the spectator's connection.
+     * @return false if there is no such game.
+     * @throws IOException if the connection cannot be used.
+     */
+    public static boolean watch(SpectateRequest request, Socket socket) throws IOException {
+        ServerGameManager game;
+        if (request.getEmail().isEmpty())
+            game = watchable.values().stream().findAny().orElse(null);
+        else
+            game = watchable.get(request.getEmail());
+        return game != null && game.addSpectator(socket);
+    }
+
+    private boolean addSpectator(Socket socket) throws IOException {
+        lock.lock();
+        try {
+            if (state != SessionState.IN_PROGRESS)
+                return false;
+            if (spectators == null)
+                spectators = new SpectatorFeed(session);
+            ResumeState position = snapshot(turn, spentMillis()).stateFor(null, 0);
+            spectators.add(socket, FogOfWar.redact(position, null, revealed, false));
+            logger.info(session + "A spectator joins, " + spectators.size() + " watching");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setWatchable(boolean listed) {
+        for (Player player : new Player[] { playerOne, playerTwo }) {
+            if (player == null || player.getEmail() == null)
+                continue;
+            if (listed)
+                watchable.put(player.getEmail(), this);
+            else
+                watchable.remove(player.getEmail(), this);
+        }
+        if (!listed && spectators != null)
+            spectators.close();
+    }
+
+    /**
+     * Queues a message for the spectators, if there are any.
+     */
+    private void broadcast(Object message) {
+        if (spectators == null)
+            return;
+        Object view = FogOfWar.redact(message, null, revealed, false);
+        if (view != message)
+            logger.severe(session + "Hid pieces the spectators may not see in " + message);
+        spectators.broadcast(view);
+    }
+
+    private long spentMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - turnStartedAt);
+    }
+
+    /**
+     * Handles game abandonment with different status options
+     * 
+     * @param status the abandonment reason (RED_DISCONNECTED, BLUE_DISCONNECTED, or
+     *               DISCONNECTED)
+     */
+    public void abandonGame(GameStatus status) {
+        // Only the first caller gets through, and not after the game ended.
+        // No monitor is held while the sockets are written, so a session
+        // running on a virtual thread never pins its carrier thread here.
+        if (state == SessionState.FINISHED || state == SessionState.PARKED
+                || !gameAbandoned.compareAndSet(false, true)) {
+            return;
+        }
+
+        logger.info(session + "Game abandoned with status: " + status);
+
+        try {
+            // Record the result based on abandonment reason
+            recordGameResult(status);
+
+            // Send abandonment status to both players
+            broadcast(status);
+            send(PlayerSeat.ONE, status);
+            send(PlayerSeat.TWO, status);
+
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, session + "Error sending abandon status", e);
+        } finally {
+            resetServerBoard();
+            finish();
+        }
+    }
+
+    /**
+     * Handles game abandonment when called without specific status (defaults to
+     * DISCONNECTED)
+     */
+    public void abandonGame() {
+        abandonGame(GameStatus.DISCONNECTED);
+    }
+
+    /**
+     * Hands the outcome of the game to the write-behind store, which saves
+     * the game and rates both players without blocking this thread. The
+     * store updates the leaderboard once the new ratings are committed.
+     * 
+     * @param winCondition the game status that determines the winner
+     */
+    private void recordGameResult(GameStatus winCondition) {
+        // Determinar el color ganador
+        PieceColor winnerColor;
+
+        switch (winCondition) {
+            case RED_NO_MOVES:
+            case RED_CAPTURED:
+            case RED_DISCONNECTED:
+            case RED_TIMED_OUT:
+                winnerColor = PieceColor.BLUE;
+                break;
+
+            case BLUE_NO_MOVES:
+            case BLUE_CAPTURED:
+            case BLUE_DISCONNECTED:
+            case BLUE_TIMED_OUT:
+                winnerColor = PieceColor.RED;
+                break;
+
+            default:
+                logger.warning(session + "Unknown win condition: " + winCondition);
+                return;
+        }
+
+        boolean abandoned = winCondition == GameStatus.RED_DISCONNECTED
+                || winCondition == GameStatus.BLUE_DISCONNECTED;
+
+        Player winner = (playerOne.getColor() == winnerColor) ? playerOne : playerTwo;
+        Player loser = (winner == playerOne) ? playerTwo : playerOne;
+
+        resultWriter.submit(new GameResult(gameId, winner.getEmail(), loser.getEmail(),
+                winnerColor == PieceColor.RED, abandoned, startTime, LocalDateTime.now()));
+
+        logger.info(session + String.format(
+                "Recorded %s %s winner: %s, loser: %s",
+                abandoned ? "abandoned game," : "game,",
+                winnerColor,
+                winner.getEmail(),
+                loser.getEmail()));
+    }
+
+    /**
+     * Plays one turn.
+     * Processes the move received from the player in turn, checks for a win
+     * condition, and sends the result back to both players before handing the
+     * turn to the opponent.
+     *
+     * @param received the move sent by the player in turn.
+     */
+    private void playMove(Move received) {
+        try {
+            if (received == null || !isOnBoard(received.getStart()) || !isOnBoard(received.getEnd())) {
+                rejectMove(MoveRejection.MALFORMED);
+                return;
+            }
+
+            // Rotate the move coordinates for Player One to match the internal board
+            move = received;
+            if (playerOne.getColor() == turn) {
+                move.setStart(CoordinateUtils.rotate180(move.getStart()));
+                move.setEnd(CoordinateUtils.rotate180(move.getEnd()));
+            }
+
+            MoveRejection rejection = validate(move);
+            if (rejection != null) {
+                rejectMove(rejection);
+                return;
+            }
+
+            // A move that arrives after the clock ran out, but before the
+            // timeout fired, still loses on time
+            if (!chargeClock()) {
+                endOnTime(timedOutStatus(turn));
+                return;
+            }
+
+            // Initialize the moves that will be sent to each player
+            Move moveToPlayerOne = new Move();
+            Move moveToPlayerTwo = new Move();
+
+            // Register move on the board
+            int from = ByteBoard.square(move.getStart().x, move.getStart().y);
+            int to = ByteBoard.square(move.getEnd().x, move.getEnd().y);
+            Piece mover = gameRules.getPiece(move.getStart().x, move.getStart().y);
+            Piece defender = gameRules.getPiece(move.getEnd().x, move.getEnd().y);
+            boolean attack = defender != null;
+            gameRules.processMove(move, moveToPlayerOne, moveToPlayerTwo);
+            revealed.played(from, to, attack, gameRules.getPiece(to / 10, to % 10) != null);
+            movesPlayed++;
+            recordMove(move);
+
+            // Check if someone has won the game
+            GameStatus winCondition = checkWinCondition();
+
+            // If game is over, update points and send final status
+            if (winCondition != GameStatus.IN_PROGRESS) {
+                recordGameResult(winCondition);
+                sendMoveToPlayers(moveToPlayerOne, moveToPlayerTwo, mover, defender, winCondition);
+                revealBoard();
+                finish();
+                return;
+            }
+
+            // Send updated moves and game status to both players
+            sendMoveToPlayers(moveToPlayerOne, moveToPlayerTwo, mover, defender, winCondition);
+
+            // Change turn color
+            turn = (turn == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+            sendTurn();
+
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, session + "Error occurred during network I/O", e);
+            // If there's an IO error, treat it as abandonment
+            abandonGame(GameStatus.DISCONNECTED);
+        }
+    }
+
+    /**
+     * Checks a move, already in board coordinates, against the rules.
+     *
+     * @param candidate the move sent by the player in turn.
+     * @return null if the move is legal, otherwise why it is not.
+     */
+    private MoveRejection validate(Move candidate) {
+        if (candidate.getMoveColor() != turn)
+            return MoveRejection.WRONG_COLOR;
+
+        Piece piece = gameRules.getPiece(candidate.getStart().x, candidate.getStart().y);
+        if (piece == null || piece.getPieceColor() != turn)
+            return MoveRejection.NOT_YOUR_PIECE;
+
+        if (!legalMoves.contains(candidate.getStart(), candidate.getEnd()))
+            return MoveRejection.ILLEGAL_MOVE;
+        return null;
+    }
+
+    /**
+     * Tells the player in turn that the move was not played. The turn does
+     * not change, so the next message expected is another move from the same
+     * player.
+     */
+    private void rejectMove(MoveRejection rejection) throws IOException {
+        rejectedMoves++;
+        logger.warning(session + "Rejected move from " + turn + ": " + rejection);
+        send(seatOf(turn), rejection);
+    }
+
+    /**
+     * Adds a played move to the journal, or a new snapshot every
+     * {@link GameJournal#SNAPSHOT_INTERVAL} moves.
+     */
+    private void recordMove(Move played) {
+        if (journal == null)
+            return;
+        if (movesPlayed % GameJournal.SNAPSHOT_INTERVAL == 0)
+            journal.snapshot(snapshot((turn == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED, 0));
+        else
+            journal.move(played.getStart(), played.getEnd());
+    }
+
+    /**
+     * @param next        the player who moves next.
+     * @param spentMillis time the player has spent on the move so far.
+     * @return the state of the game, for the journal or to resume it.
+     */
+    private SessionSnapshot snapshot(PieceColor next, long spentMillis) {
+        return new SessionSnapshot(gameId, playerOne, playerTwo, next, movesPlayed, startTime, gameRules, tokenOne,
+                tokenTwo, redClockMillis, blueClockMillis, spentMillis, revealed);
+    }
+
+    private static boolean isOnBoard(Point square) {
+        return square != null && square.x >= 0 && square.x < 10 && square.y >= 0 && square.y < 10;
+    }
+
+    /**
+     * @return the number of moves rejected in this session.
+     */
+    public int getRejectedMoves() {
+        return rejectedMoves;
+    }
+
+    /**
+     * Shows both players the whole board, after the final status. Every piece
+     * counts as seen from here on, so the position goes through
+     * {@link FogOfWar} whole. Only clients on
+     * {@link BinaryProtocol#FOG_VERSION} wait for it.
+     */
+    private void revealBoard() {
+        revealed.revealAll();
+        SessionSnapshot end = snapshot(turn, 0);
+        try {
+            if (channel.getVersion(PlayerSeat.ONE) >= BinaryProtocol.FOG_VERSION)
+                send(PlayerSeat.ONE, end.stateFor(playerOne.getColor(), 0));
+            if (channel.getVersion(PlayerSeat.TWO) >= BinaryProtocol.FOG_VERSION)
+                send(PlayerSeat.TWO, end.stateFor(playerTwo.getColor(), 0));
+        } catch (IOException e) {
+            logger.log(Level.FINE, session + "Could not show the final board", e);
+        }
+    }
+
+    /**
+     * Marks the game as over, drops its journal and releases the connections.
+     */
+    private void finish() {
+        state = SessionState.FINISHED;
+        setWatchable(false);
+        cancelDeadline();
+        if (tokenOne != null)
+            ParkedSessions.getInstance().unregister(tokenOne, this);
+        if (tokenTwo != null)
+            ParkedSessions.getInstance().unregister(tokenTwo, this);
+        if (journal != null)
+            journal.finish();
+        if (rejectedMoves > 0)
+            logger.info(session + rejectedMoves + " moves were rejected during the game.");
+        closeConnections();
+    }
+
+    /**
+     * Evaluates the current game state to determine if there is a win condition.
+     * Checks if either player has no available moves or if their flag has been
+     * captured.
+     * 
+     * @return GameStatus representing the current status of the game.
+     */
+    GameStatus checkWinCondition() {
+        if (!gameRules.hasAvailableMoves(PieceColor.RED))
+            return GameStatus.RED_NO_MOVES;
+
+        else if (isCaptured(PieceColor.RED))
+            return GameStatus.RED_CAPTURED;
+
+        if (!gameRules.hasAvailableMoves(PieceColor.BLUE))
+            return GameStatus.BLUE_NO_MOVES;
+
+        else if (isCaptured(PieceColor.BLUE))
+            return GameStatus.BLUE_CAPTURED;
+
+        return GameStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Checks whether a player's flag has been captured.
+     *
+     * @param inColor The color of the player to check.
+     * @return true if the flag is no longer present, false otherwise.
+     */
+    private boolean isCaptured(PieceColor inColor) {
+        if (playerOne.getColor() == inColor) {
+            if (gameRules.getPiece(playerOneFlag.x, playerOneFlag.y).getPieceType() != PieceType.FLAG)
+                return true;
+        }
+        if (playerTwo.getColor() == inColor) {
+            if (gameRules.getPiece(playerTwoFlag.x, playerTwoFlag.y).getPieceType() != PieceType.FLAG)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Lists the legal moves of the player in turn and sends the turn color to
+     * both players. The player in turn answers with a move, which arrives
+     * through {@link #onMessage(PlayerSeat, Object)}.
+     *
+     * @throws IOException
+     */
+    private void sendTurn() throws IOException {
+        legalMoves.compute(gameRules, turn);
+        turnStartedAt = System.nanoTime();
+        armDeadline(timeControl.turnLimit(clockOf(turn)), this::turnExpired);
+        send(PlayerSeat.ONE, turn);
+        send(PlayerSeat.TWO, turn);
+        if (spectators != null) {
+            spectators.broadcast(turn);
+            spectators.catchUp(() -> snapshot(turn, 0).stateFor(null, 0));
+        }
+    }
+
+    /**
+     * Schedules a deadline for the session, replacing the current one.
+     *
+     * @param millis  time left, or 0 for no deadline.
+     * @param expired what to do if the deadline passes. Runs holding the
+     *                session's lock, and only if the deadline was not replaced
+     *                or cancelled meanwhile.
+     */
+    private void armDeadline(long millis, Runnable expired) {
+        cancelDeadline();
+        if (millis <= 0)
+            return;
+        int number = ++deadlineNumber;
+        deadline = deadlines.schedule(() -> channel.execute(() -> onDeadline(number, expired)), millis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelDeadline() {
+        deadlineNumber++;
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+    }
+
+    private void onDeadline(int number, Runnable expired) {
+        lock.lock();
+        try {
+            // The timeout may have been on its way while the move arrived
+            if (number != deadlineNumber || state == SessionState.FINISHED || state == SessionState.PARKED)
+                return;
+            deadline = null;
+            expired.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The setup deadline passed: whoever has not sent a setup loses. If
+     * neither player has, the game is abandoned without a winner.
+     */
+    private void setupExpired() {
+        if (setupBoardOne == null && setupBoardTwo == null)
+            abandonGame(GameStatus.DISCONNECTED);
+        else
+            endOnTime(timedOutStatus((setupBoardOne == null) ? playerOne.getColor() : playerTwo.getColor()));
+    }
+
+    private void turnExpired() {
+        endOnTime(timedOutStatus(turn));
+    }
+
+    /**
+     * Ends the game because a player ran out of time. The status goes to both
+     * players in place of the message they are waiting for.
+     */
+    private void endOnTime(GameStatus status) {
+        logger.info(session + "Time is up: " + status);
+        recordGameResult(status);
+        broadcast(status);
+        try {
+            send(PlayerSeat.ONE, status);
+            send(PlayerSeat.TWO, status);
+            // Nothing to show if the time ran out during the setup
+            if (state == SessionState.IN_PROGRESS)
+                revealBoard();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, session + "Error sending the timeout status", e);
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Takes the time the player in turn spent from their clock and adds the
+     * increment.
+     *
+     * @return false if the player ran out of time.
+     */
+    private boolean chargeClock() {
+        cancelDeadline();
+        long spent = spentMillis();
+        long moveMillis = timeControl.getMoveMillis();
+        if (moveMillis > 0 && spent > moveMillis)
+            return false;
+        if (timeControl.getTotalMillis() <= 0)
+            return true;
+
+        long left = clockOf(turn) - spent;
+        if (left <= 0)
+            return false;
+        left += timeControl.getIncrementMillis();
+        if (turn == PieceColor.RED)
+            redClockMillis = left;
+        else
+            blueClockMillis = left;
+        return true;
+    }
+
+    private long clockOf(PieceColor color) {
+        return (color == PieceColor.RED) ? redClockMillis : blueClockMillis;
+    }
+
+    private static GameStatus timedOutStatus(PieceColor color) {
+        return (color == PieceColor.RED) ? GameStatus.RED_TIMED_OUT : GameStatus.BLUE_TIMED_OUT;
+    }
+
+    /**
+     * @param message an object received from a player.
+     * @return true if the player is abandoning the game.
+     */
+    private boolean isAbandonSignal(Object message) {
+        return message instanceof String && ((String) message).equals("ABANDON");
+    }
+
+    /**
+     * Checks a setup before it goes on the board: 40 pieces of the player's
+     * color, as many of each type as {@link PieceType#getCount()} says, so
+     * exactly one flag.
+     *
+     * @param setup the setup a player sent.
+     * @param color the player's color.
+     * @return what is wrong with the setup, or null if it is valid.
+     */
+    private static String checkSetup(SetupBoard setup, PieceColor color) {
+        if (setup == null)
+            return "no setup";
+        int[] counts = new int[PieceType.values().length];
+        for (int row = 0; row < 4; ++row) {
+            for (int col = 0; col < 10; ++col) {
+                Piece piece = setup.getPiece(row, col);
+                if (piece == null || piece.getPieceType() == null)
+                    return "no piece on " + row + "," + col;
+                if (piece.getPieceColor() != color)
+                    return piece.getPieceColor() + " piece on " + row + "," + col;
+                counts[piece.getPieceType().ordinal()]++;
+            }
+        }
+        for (PieceType type : PieceType.values()) {
+            if (counts[type.ordinal()] != type.getCount())
+                return counts[type.ordinal()] + " of " + type + " instead of " + type.getCount();
+        }
+        return null;
+    }
+
+    /**
+     * Determines the abandonment status caused by the player in the given seat.
+     *
+     * @param seat the player leaving the game.
+     * @return RED_DISCONNECTED or BLUE_DISCONNECTED, or DISCONNECTED if colors
+     *         have not been assigned yet.
+     */
+    private GameStatus disconnectStatus(PlayerSeat seat) {
+        Player player = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+        if (player == null || player.getColor() == null)
+            return GameStatus.DISCONNECTED;
+        return (player.getColor() == PieceColor.RED) ? GameStatus.RED_DISCONNECTED
+                : GameStatus.BLUE_DISCONNECTED;
+    }
+
+    /**
+     * @param color a player's color.
+     * @return the seat of the player with the given color.
+     */
+    private PlayerSeat seatOf(PieceColor color) {
+        return (playerOne.getColor() == color) ? PlayerSeat.ONE : PlayerSeat.TWO;
+    }
+
+    /**
+     * Sends a message to one of the players through the session channel. If
+     * the player could come back to the game, a failed send detaches them
+     * instead of failing: the game goes on until it needs their move. A
+     * message that would show the player a piece they have not seen goes out
+     * with the piece hidden, and the slip is logged.
+     */
+    private void send(PlayerSeat seat, Object message) throws IOException {
+        Player player = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+        PieceColor viewer = (player == null) ? null : player.getColor();
+        Object view = FogOfWar.redact(message, viewer, revealed, seat == PlayerSeat.ONE);
+        if (view != message)
+            logger.severe(session + "Hid pieces player " + seat + " may not see in " + message);
+        try {
+            channel.send(seat, view);
+        } catch (IOException e) {
+            if (state != SessionState.IN_PROGRESS || tokenOf(seat) == null)
+                throw e;
+            logger.warning(session + "Lost the connection to player " + seat + ": " + e.getMessage());
+            ((StreamSessionChannel) channel).detach(seat);
+        }
+    }
+
+    /**
+     * Sends the processed move and current game status to both players, each
+     * seeing only the pieces they know (see {@link FogOfWar}).
+     *
+     * @param moveToPlayerOne Move object to send to Player One.
+     * @param moveToPlayerTwo Move object to send to Player Two.
+     * @param mover           the piece that moved.
+     * @param defender        the piece it attacked, or null.
+     * @param winCondition    Current game status to send to both players.
+     * @throws IOException
+     */
+    private void sendMoveToPlayers(Move moveToPlayerOne, Move moveToPlayerTwo, Piece mover, Piece defender,
+            GameStatus winCondition) throws IOException {
+        // Seen in an attack, before or by this move
+        boolean known = revealed.contains(ByteBoard.square(moveToPlayerTwo.getEnd().x, moveToPlayerTwo.getEnd().y));
+        broadcast(FogOfWar.moveFor(moveToPlayerTwo, mover, defender, null, known, true));
+        broadcast(winCondition);
+        send(PlayerSeat.ONE, FogOfWar.moveFor(moveToPlayerOne, mover, defender, playerOne.getColor(), known,
+                channel.getVersion(PlayerSeat.ONE) >= BinaryProtocol.FOG_VERSION));
+        send(PlayerSeat.TWO, FogOfWar.moveFor(moveToPlayerTwo, mover, defender, playerTwo.getColor(), known,
+                channel.getVersion(PlayerSeat.TWO) >= BinaryProtocol.FOG_VERSION));
+
+        send(PlayerSeat.ONE, winCondition);
+        send(PlayerSeat.TWO, winCondition);
+    }
+
+}
@@ -0,0 +1,363 @@
+package edu.asu.stratego.game;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.gameRules.GameRules;
+import edu.asu.stratego.game.pieces.OriginalPieceFactory;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceFactory;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.net.ResumeToken;
+
+/**
+ * Everything needed to continue a game in progress: who plays which color,
+ * whose turn it is and one byte per square (see {@link ByteBoard}), and what
+ * lets the players come back to it: their resume tokens, their clocks and
+ * which pieces have been revealed.
+ *
+ * <p>
+ * The server board is rotated for player one, so the squares are in the
+ * server's orientation. A snapshot is immutable and a few hundred bytes, in
+ * memory and in its binary form ({@link #encode(ByteBuffer)}). Snapshots
+ * written before resume tokens existed decode without them.
+ * </p>
+ */
+public final class SessionSnapshot {
+
+    private final String gameId;
+    private final String nicknameOne;
+    private final String emailOne;
+    private final String nicknameTwo;
+    private final String emailTwo;
+    private final PieceColor colorOne;
+    private final PieceColor turn;
+    private final int moves;
+    private final long startSeconds;
+    private final byte[] squares;
+
+    // Trailing fields, absent from older snapshots
+    private final ResumeToken tokenOne;
+    private final ResumeToken tokenTwo;
+    private final long redClockMillis;
+    private final long blueClockMillis;
+    private final long spentMillis;
+    private final long revealedLow;
+    private final long revealedHigh;
+
+    private static final int RESUME_FIELDS_SIZE = 2 * ResumeToken.LENGTH + 5 * 8;
+
+    /**
+     * @param tokenOne    player one's resume token, or null.
+     * @param tokenTwo    player two's resume token, or null.
+     * @param redClock    red's time left, in milliseconds.
+     * @param blueClock   blue's time left, in milliseconds.
+     * @param spentMillis time the player in turn has already spent on the move.
+     * @param revealed    the pieces their opponents have seen.
+     */
+    SessionSnapshot(String gameId, Player playerOne, Player playerTwo, PieceColor turn, int moves,
+            LocalDateTime startTime, GameRules rules, ResumeToken tokenOne, ResumeToken tokenTwo, long redClock,
+            long blueClock, long spentMillis, RevealedSquares revealed) {
+        this(gameId, playerOne.getNickname(), playerOne.getEmail(), playerTwo.getNickname(), playerTwo.getEmail(),
+                playerOne.getColor(), turn, moves, startTime.toEpochSecond(ZoneOffset.UTC), squaresOf(rules),
+                tokenOne, tokenTwo, redClock, blueClock, spentMillis, revealed.getLow(), revealed.getHigh());
+    }
+
+    private SessionSnapshot(String gameId, String nicknameOne, String emailOne, String nicknameTwo,
+            String emailTwo, PieceColor colorOne, PieceColor turn, int moves, long startSeconds, byte[] squares,
+            ResumeToken tokenOne, ResumeToken tokenTwo, long redClockMillis, long blueClockMillis,
+            long spentMillis, long revealedLow, long revealedHigh) {
+        this.gameId = gameId;
+        this.nicknameOne = nicknameOne;
+        this.emailOne = emailOne;
+        this.nicknameTwo = nicknameTwo;
+        this.emailTwo = emailTwo;
+        this.colorOne = colorOne;
+        this.turn = turn;
+        this.moves = moves;
+        this.startSeconds = startSeconds;
+        this.squares = squares;
+        this.tokenOne = tokenOne;
+        this.tokenTwo = tokenTwo;
+        this.redClockMillis = redClockMillis;
+        this.blueClockMillis = blueClockMillis;
+        this.spentMillis = spentMillis;
+        this.revealedLow = revealedLow;
+        this.revealedHigh = revealedHigh;
+    }
+
+    private static byte[] squaresOf(GameRules rules) {
+        ByteBoard position = new ByteBoard();
+        for (int square = 0; square < ByteBoard.SQUARES; ++square)
+            position.set(square, rules.getPiece(square / ByteBoard.SIZE, square % ByteBoard.SIZE));
+
+        byte[] squares = new byte[ByteBoard.SQUARES];
+        for (int square = 0; square < ByteBoard.SQUARES; ++square)
+            squares[square] = position.get(square);
+        return squares;
+    }
+
+    /**
+     * @return the game this snapshot belongs to, unique across server
+     *         restarts.
+     */
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getEmailOne() {
+        return emailOne;
+    }
+
+    public String getEmailTwo() {
+        return emailTwo;
+    }
+
+    public PieceColor getTurn() {
+        return turn;
+    }
+
+    /**
+     * @return the number of moves played before the snapshot.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    public LocalDateTime getStartTime() {
+        return LocalDateTime.ofEpochSecond(startSeconds, 0, ZoneOffset.UTC);
+    }
+
+    public ResumeToken getTokenOne() {
+        return tokenOne;
+    }
+
+    public ResumeToken getTokenTwo() {
+        return tokenTwo;
+    }
+
+    /**
+     * @param color a player's color.
+     * @return the player's time left when the snapshot was taken, in
+     *         milliseconds.
+     */
+    public long getClockMillis(PieceColor color) {
+        return (color == PieceColor.RED) ? redClockMillis : blueClockMillis;
+    }
+
+    /**
+     * @return the time the player in turn had spent on the move when the
+     *         snapshot was taken, in milliseconds.
+     */
+    public long getSpentMillis() {
+        return spentMillis;
+    }
+
+    /**
+     * @return the pieces their opponents have seen.
+     */
+    RevealedSquares getRevealed() {
+        return new RevealedSquares(revealedLow, revealedHigh);
+    }
+
+    /**
+     * @return the color of seat one.
+     */
+    public PieceColor getColorOne() {
+        return colorOne;
+    }
+
+    /**
+     * @return the position as the player of the given color may see it:
+     *         in their orientation, with the opponent's unrevealed pieces
+     *         hidden, and the clocks as they stood. With no color, the
+     *         position a spectator may see (see {@link ResumeState}).
+     * @param color         the player's color, or null.
+     * @param elapsedMillis time the player in turn spent since the snapshot,
+     *                      also taken from their clock.
+     */
+    public ResumeState stateFor(PieceColor color, long elapsedMillis) {
+        RevealedSquares revealed = getRevealed();
+        boolean rotate = color == colorOne; // El tablero del servidor está girado para el jugador uno
+        byte[] view = new byte[ByteBoard.SQUARES];
+        ByteBoard position = new ByteBoard();
+        for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+            position.set(square, squares[square]);
+            byte code = squares[square];
+            if (!position.isEmpty(square) && position.colorAt(square) != color && !revealed.contains(square))
+                code = ByteBoard.hidden(position.colorAt(square));
+            view[rotate ? ByteBoard.SQUARES - 1 - square : square] = code;
+        }
+        PieceColor first = (color == null) ? PieceColor.RED : color;
+        return new ResumeState(color, turn, moves, clockLeft(first, elapsedMillis),
+                clockLeft(other(first), elapsedMillis), view);
+    }
+
+    private long clockLeft(PieceColor color, long elapsedMillis) {
+        long left = getClockMillis(color) - ((color == turn) ? spentMillis + elapsedMillis : 0);
+        return (getClockMillis(color) <= 0) ? 0 : Math.max(left, 1);
+    }
+
+    /**
+     * @return a new Player for seat one, color included.
+     */
+    public Player createPlayerOne() {
+        return player(nicknameOne, emailOne, colorOne);
+    }
+
+    /**
+     * @return a new Player for seat two, color included.
+     */
+    public Player createPlayerTwo() {
+        return player(nicknameTwo, emailTwo, other(colorOne));
+    }
+
+    private static Player player(String nickname, String email, PieceColor color) {
+        Player player = new Player();
+        player.setNickname(nickname);
+        player.setEmail(email);
+        player.setColor(color);
+        return player;
+    }
+
+    /**
+     * @param square a board square, as {@code row * 10 + col}.
+     * @return the piece code on the square, or {@link ByteBoard#EMPTY}.
+     */
+    public byte getSquare(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Places the snapshot's pieces on an empty board.
+     *
+     * @param rules the rules of the board.
+     */
+    public void restoreTo(GameRules rules) {
+        PieceFactory pieceFactory = new OriginalPieceFactory();
+        ByteBoard position = new ByteBoard();
+        for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+            position.set(square, squares[square]);
+            PieceType type = position.typeAt(square);
+            if (type != null) {
+                Piece piece = pieceFactory.createOriginalPiece(type, position.colorAt(square), false);
+                rules.setPiece(square / ByteBoard.SIZE, square % ByteBoard.SIZE, piece);
+            }
+        }
+    }
+
+    /**
+     * @param rules    the board after the moves.
+     * @param played   the number of moves played since this snapshot.
+     * @param revealed the pieces revealed after the moves.
+     * @return a snapshot of the same game after the moves. The clocks are
+     *         the ones of this snapshot.
+     */
+    SessionSnapshot advance(GameRules rules, int played, RevealedSquares revealed) {
+        PieceColor next = (played % 2 == 0) ? turn : other(turn);
+        return new SessionSnapshot(gameId, nicknameOne, emailOne, nicknameTwo, emailTwo, colorOne, next,
+                moves + played, startSeconds, squaresOf(rules), tokenOne, tokenTwo, redClockMillis,
+                blueClockMillis, (played == 0) ? spentMillis : 0, revealed.getLow(), revealed.getHigh());
+    }
+
+    private static PieceColor other(PieceColor color) {
+        return (color == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+    }
+
+    /**
+     * Writes the snapshot in its binary form.
+     */
+    public void encode(ByteBuffer out) {
+        putString(out, gameId);
+        putString(out, nicknameOne);
+        putString(out, emailOne);
+        putString(out, nicknameTwo);
+        putString(out, emailTwo);
+        out.put((byte) colorOne.ordinal());
+        out.put((byte) turn.ordinal());
+        out.putInt(moves);
+        out.putLong(startSeconds);
+        out.put(squares);
+        putToken(out, tokenOne);
+        putToken(out, tokenTwo);
+        out.putLong(redClockMillis);
+        out.putLong(blueClockMillis);
+        out.putLong(spentMillis);
+        out.putLong(revealedLow);
+        out.putLong(revealedHigh);
+    }
+
+    /**
+     * @return the number of bytes {@link #encode(ByteBuffer)} writes.
+     */
+    public int encodedSize() {
+        return stringSize(gameId) + stringSize(nicknameOne) + stringSize(emailOne) + stringSize(nicknameTwo)
+                + stringSize(emailTwo) + 2 + 4 + 8 + ByteBoard.SQUARES + RESUME_FIELDS_SIZE;
+    }
+
+    /**
+     * Reads a snapshot written by {@link #encode(ByteBuffer)}.
+     *
+     * @throws IllegalArgumentException if the bytes are not a snapshot.
+     */
+    public static SessionSnapshot decode(ByteBuffer in) {
+        try {
+            String gameId = getString(in);
+            String nicknameOne = getString(in);
+            String emailOne = getString(in);
+            String nicknameTwo = getString(in);
+            String emailTwo = getString(in);
+            PieceColor colorOne = PieceColor.values()[in.get()];
+            PieceColor turn = PieceColor.values()[in.get()];
+            int moves = in.getInt();
+            long startSeconds = in.getLong();
+            byte[] squares = new byte[ByteBoard.SQUARES];
+            in.get(squares);
+            if (in.remaining() < RESUME_FIELDS_SIZE)
+                return new SessionSnapshot(gameId, nicknameOne, emailOne, nicknameTwo, emailTwo, colorOne, turn,
+                        moves, startSeconds, squares, null, null, 0, 0, 0, 0, 0);
+            return new SessionSnapshot(gameId, nicknameOne, emailOne, nicknameTwo, emailTwo, colorOne, turn, moves,
+                    startSeconds, squares, getToken(in), getToken(in), in.getLong(), in.getLong(), in.getLong(),
+                    in.getLong(), in.getLong());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt session snapshot", e);
+        }
+    }
+
+    // A token of zeros stands for no token
+    private static void putToken(ByteBuffer out, ResumeToken token) {
+        out.put((token == null) ? new byte[ResumeToken.LENGTH] : token.getBytes());
+    }
+
+    private static ResumeToken getToken(ByteBuffer in) {
+        byte[] bytes = new byte[ResumeToken.LENGTH];
+        in.get(bytes);
+        for (byte b : bytes) {
+            if (b != 0)
+                return new ResumeToken(bytes);
+        }
+        return null;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = (value == null) ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(String value) {
+        return 2 + ((value == null) ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+}
@@ -0,0 +1,88 @@
+package edu.asu.stratego.game;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time limits of a game, enforced by the server.
+ *
+ * <ul>
+ * <li>{@code -Dstratego.clock.setup=<seconds>}: time to send the setup,
+ * counted from the moment both players have joined. The default leaves 30
+ * seconds over the client's own five minute setup timer.</li>
+ * <li>{@code -Dstratego.clock.move=<seconds>}: longest time a single move may
+ * take.</li>
+ * <li>{@code -Dstratego.clock=<seconds>+<increment>}: each player's total
+ * thinking time for the game, and the seconds added to it after every
+ * move.</li>
+ * </ul>
+ *
+ * A limit of 0 turns that limit off.
+ */
+public final class TimeControl {
+
+    private final long setupMillis;
+    private final long moveMillis;
+    private final long totalMillis;
+    private final long incrementMillis;
+
+    public TimeControl(long setupMillis, long moveMillis, long totalMillis, long incrementMillis) {
+        this.setupMillis = setupMillis;
+        this.moveMillis = moveMillis;
+        this.totalMillis = totalMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Reads the time control from the system properties, with defaults of
+     * 330 seconds for the setup, 2 minutes per move and 30 minutes per player
+     * plus 5 seconds per move.
+     */
+    public static TimeControl fromSystemProperties() {
+        String clock = System.getProperty("stratego.clock", "1800+5");
+        int plus = clock.indexOf('+');
+        long total = Long.parseLong((plus < 0) ? clock.trim() : clock.substring(0, plus).trim());
+        long increment = (plus < 0) ? 0 : Long.parseLong(clock.substring(plus + 1).trim());
+
+        return new TimeControl(
+                TimeUnit.SECONDS.toMillis(Long.getLong("stratego.clock.setup", 330)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("stratego.clock.move", 120)),
+                TimeUnit.SECONDS.toMillis(total),
+                TimeUnit.SECONDS.toMillis(increment));
+    }
+
+    public long getSetupMillis() {
+        return setupMillis;
+    }
+
+    public long getMoveMillis() {
+        return moveMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * @param remainingMillis what is left of the player's total time.
+     * @return how long the player may think about the next move, or 0 for no
+     *         limit.
+     */
+    long turnLimit(long remainingMillis) {
+        if (totalMillis <= 0)
+            return moveMillis;
+        if (moveMillis <= 0)
+            return Math.max(remainingMillis, 1);
+        return Math.max(Math.min(moveMillis, remainingMillis), 1);
+    }
+
+    @Override
+    public String toString() {
+        return "setup " + setupMillis / 1000 + " s, " + moveMillis / 1000 + " s per move, "
+                + totalMillis / 1000 + "+" + incrementMillis / 1000 + " s per player";
+    }
+
+}
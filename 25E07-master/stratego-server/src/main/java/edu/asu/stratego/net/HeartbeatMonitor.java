@@ -0,0 +1,155 @@
+package edu.asu.stratego.net;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.util.PeriodicTasks;
+
+/**
+ * Dead peer detection for the game sessions.
+ *
+ * <p>
+ * A client that crashes, or whose network drops without closing the
+ * connection, simply stops sending, and the session waiting for its next
+ * message would hold its sockets, its thread and its board forever. Peers
+ * that negotiated {@link BinaryProtocol#HEARTBEAT_VERSION} send a heartbeat
+ * at least every {@link BinaryProtocol#HEARTBEAT_INTERVAL_MILLIS}, so one
+ * that has sent nothing for {@code -Dstratego.heartbeat.timeout=<seconds>}
+ * (20 by default) is taken for dead. Its session is reaped as if it had
+ * disconnected: the opponent wins and everything the session held is freed.
+ * Peers on older versions are never timed out.
+ * </p>
+ *
+ * <p>
+ * In the blocking server modes this monitor sends the heartbeats of every
+ * session, each write on its own virtual thread so a peer that stops reading
+ * holds up no one else, and the read timeout of the socket the session
+ * thread waits on finds the dead peer. In event loop mode every loop sends the heartbeats of
+ * its own connections and checks them (see {@link NioSessionServer}). Both
+ * report what they reaped here, and the counters are logged every minute
+ * when they change.
+ * </p>
+ */
+public final class HeartbeatMonitor {
+
+    private static final Logger logger = Logger.getLogger(HeartbeatMonitor.class.getName());
+
+    /** Silence after which a peer that sends heartbeats is dead. */
+    public static final long TIMEOUT_MILLIS = TimeUnit.SECONDS
+            .toMillis(Long.getLong("stratego.heartbeat.timeout", 20));
+
+    private static final long METRICS_PERIOD_SECONDS = 60;
+
+    private static final HeartbeatMonitor SHARED = new HeartbeatMonitor();
+
+    private final Set<StreamSessionChannel> channels = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong reapedSessions = new AtomicLong();
+    private final AtomicLong closedSockets = new AtomicLong();
+    private final AtomicLong freedThreads = new AtomicLong();
+    private long loggedSockets = 0;
+
+    private ScheduledExecutorService scheduler;
+
+    private HeartbeatMonitor() {
+        /* Singleton */ }
+
+    public static HeartbeatMonitor getInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Starts sending the heartbeats of the blocking sessions and logging the
+     * counters.
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stratego-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(
+                PeriodicTasks.logged(logger, "Error while sending heartbeats.", this::sendHeartbeats),
+                BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS, BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::logMetrics, METRICS_PERIOD_SECONDS, METRICS_PERIOD_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * Sends heartbeats to the players of a blocking session until it closes.
+     */
+    void watch(StreamSessionChannel channel) {
+        channels.add(channel);
+    }
+
+    void unwatch(StreamSessionChannel channel) {
+        channels.remove(channel);
+    }
+
+    /**
+     * Records a session reaped because one of its players went silent.
+     * Called before the session is closed, so that the channel still holds
+     * what the reaping frees.
+     *
+     * @param channel the channel of the session.
+     */
+    public void sessionReaped(SessionChannel channel) {
+        reapedSessions.incrementAndGet();
+        closedSockets.addAndGet(channel.connections());
+        freedThreads.addAndGet(channel.threads());
+    }
+
+    /**
+     * Records a connection closed because its peer stopped reading.
+     */
+    public void socketReaped() {
+        closedSockets.incrementAndGet();
+    }
+
+    /**
+     * @return the number of sessions reaped since the server started.
+     */
+    public long getReapedSessions() {
+        return reapedSessions.get();
+    }
+
+    /**
+     * @return the number of connections closed by the reaping.
+     */
+    public long getClosedSockets() {
+        return closedSockets.get();
+    }
+
+    /**
+     * @return the number of session threads the reaping gave back.
+     */
+    public long getFreedThreads() {
+        return freedThreads.get();
+    }
+
+    private void sendHeartbeats() {
+        for (StreamSessionChannel channel : channels)
+            channel.sendHeartbeats();
+    }
+
+    private void logMetrics() {
+        long sockets = closedSockets.get();
+        if (sockets == loggedSockets)
+            return;
+        loggedSockets = sockets;
+        logger.info("Dead peers: " + reapedSessions.get() + " sessions reaped, " + sockets + " sockets closed, "
+                + freedThreads.get() + " threads freed");
+    }
+
+}
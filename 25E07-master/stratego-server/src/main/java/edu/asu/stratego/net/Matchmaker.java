@@ -0,0 +1,272 @@
+package edu.asu.stratego.net;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Queue of players waiting for an opponent, paired by points.
+ * 
+ * <p>
+ * Waiting players are kept in a tree ordered by points, so inserting a player
+ * and finding the closest opponent are both O(log n). A newcomer is matched
+ * immediately if someone is within the base window. Otherwise it waits, and
+ * {@link #pairWaitingPlayers()}, run periodically by a scheduler, retries
+ * the waiting players with a window that widens the longer they have waited.
+ * </p>
+ *
+ * <p>
+ * A player's window widens once per second of waiting, so a pass only
+ * retries the players whose window has widened since they were last tried,
+ * found in a second tree ordered by when that happens. A player whose window
+ * has not changed could only be matched with a newcomer, and newcomers are
+ * tried on arrival.
+ * </p>
+ *
+ * @param <T> the waiting connection handed to the match handler.
+ */
+public class Matchmaker<T> {
+
+    private static final long WIDEN_STEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int baseWindow;
+    private final int widenPerSecond;
+    private final BiConsumer<T, T> onMatch;
+
+    private final TreeSet<Ticket<T>> byPoints = new TreeSet<>(
+            Comparator.<Ticket<T>>comparingInt(t -> t.points).thenComparingLong(t -> t.sequence));
+    // Ordered by the next time each player's window widens
+    private final TreeSet<Ticket<T>> byWidening = new TreeSet<>(
+            Comparator.<Ticket<T>>comparingLong(t -> t.widensAt).thenComparingLong(t -> t.sequence));
+    private final LinkedHashSet<Ticket<T>> byArrival = new LinkedHashSet<>();
+    private final Map<T, Ticket<T>> tickets = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextSequence = 0;
+
+    private long matches = 0;
+    private long totalWaitNanos = 0;
+
+    /**
+     * A player in the queue.
+     */
+    private static final class Ticket<T> {
+        private final T player;
+        private final int points;
+        private final long sequence;
+        private final long enqueuedAt;
+        // Only changed while the ticket is out of byWidening
+        private long widensAt;
+
+        Ticket(T player, int points, long sequence) {
+            this.player = player;
+            this.points = points;
+            this.sequence = sequence;
+            this.enqueuedAt = System.nanoTime();
+            this.widensAt = enqueuedAt + WIDEN_STEP_NANOS;
+        }
+    }
+
+    /**
+     * Creates a new instance of Matchmaker.
+     * 
+     * @param baseWindow     largest points difference accepted right away.
+     * @param widenPerSecond points added to the window per second of waiting.
+     * @param onMatch        receives every pair of matched players. Called
+     *                       without holding the queue lock.
+     */
+    public Matchmaker(int baseWindow, int widenPerSecond, BiConsumer<T, T> onMatch) {
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.onMatch = onMatch;
+    }
+
+    /**
+     * Adds a player to the queue, or matches them at once with the closest
+     * waiting player within the base window.
+     * 
+     * @param player the waiting connection.
+     * @param points the player's points.
+     */
+    public void enqueue(T player, int points) {
+        Ticket<T> opponent;
+        Ticket<T> ticket;
+
+        lock.lock();
+        try {
+            ticket = new Ticket<>(player, points, nextSequence++);
+            opponent = closest(ticket, baseWindow);
+            if (opponent == null) {
+                byPoints.add(ticket);
+                byWidening.add(ticket);
+                byArrival.add(ticket);
+                tickets.put(player, ticket);
+                return;
+            }
+            remove(opponent);
+            recordMatch(opponent, System.nanoTime());
+            recordMatch(ticket, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+
+        onMatch.accept(opponent.player, ticket.player);
+    }
+
+    /**
+     * Takes a player out of the queue, for instance because their connection
+     * dropped while they waited.
+     *
+     * @param player the waiting connection.
+     * @return false if the player was not waiting, because they have been
+     *         matched already.
+     */
+    public boolean remove(T player) {
+        lock.lock();
+        try {
+            Ticket<T> ticket = tickets.get(player);
+            if (ticket == null)
+                return false;
+            remove(ticket);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retries, longest waiting first, the waiting players whose window has
+     * widened since they were last tried.
+     */
+    public void pairWaitingPlayers() {
+        List<Ticket<T>> pairs = new ArrayList<>();
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            List<Ticket<T>> widened = new ArrayList<>();
+            while (!byWidening.isEmpty() && byWidening.first().widensAt - now <= 0)
+                widened.add(byWidening.pollFirst());
+            widened.sort(Comparator.comparingLong(t -> t.sequence));
+
+            for (Ticket<T> ticket : widened) {
+                if (!byArrival.contains(ticket))
+                    continue; // Already matched during this pass
+
+                Ticket<T> opponent = closest(ticket, windowFor(ticket, now));
+                if (opponent == null) {
+                    long waitedSteps = (now - ticket.enqueuedAt) / WIDEN_STEP_NANOS;
+                    ticket.widensAt = ticket.enqueuedAt + (waitedSteps + 1) * WIDEN_STEP_NANOS;
+                    byWidening.add(ticket);
+                    continue;
+                }
+
+                remove(ticket);
+                remove(opponent);
+                recordMatch(ticket, now);
+                recordMatch(opponent, now);
+                pairs.add(ticket);
+                pairs.add(opponent);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (int i = 0; i < pairs.size(); i += 2)
+            onMatch.accept(pairs.get(i).player, pairs.get(i + 1).player);
+    }
+
+    /**
+     * @return the number of players waiting for an opponent.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return byArrival.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how long the longest waiting player has been waiting, in
+     *         milliseconds.
+     */
+    public long getLongestWaitMillis() {
+        lock.lock();
+        try {
+            if (byArrival.isEmpty())
+                return 0;
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - byArrival.iterator().next().enqueuedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of players matched so far.
+     */
+    public long getMatchedPlayers() {
+        lock.lock();
+        try {
+            return matches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the average time matched players spent in the queue, in
+     *         milliseconds.
+     */
+    public long getAverageWaitMillis() {
+        lock.lock();
+        try {
+            return (matches == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / matches);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int windowFor(Ticket<T> ticket, long now) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - ticket.enqueuedAt);
+        return (int) Math.min(Integer.MAX_VALUE, baseWindow + waitedSeconds * widenPerSecond);
+    }
+
+    /**
+     * Finds the waiting player with the points closest to the ticket's,
+     * within the given window. Ties go to the player with fewer points.
+     */
+    private Ticket<T> closest(Ticket<T> ticket, int window) {
+        Ticket<T> lower = byPoints.lower(ticket);
+        Ticket<T> higher = byPoints.higher(ticket);
+
+        long lowerDistance = (lower == null) ? Long.MAX_VALUE : (long) ticket.points - lower.points;
+        long higherDistance = (higher == null) ? Long.MAX_VALUE : (long) higher.points - ticket.points;
+
+        if (lowerDistance <= higherDistance && lowerDistance <= window)
+            return lower;
+        if (higherDistance <= window)
+            return higher;
+        return null;
+    }
+
+    private void remove(Ticket<T> ticket) {
+        byPoints.remove(ticket);
+        byWidening.remove(ticket);
+        byArrival.remove(ticket);
+        tickets.remove(ticket.player);
+    }
+
+    private void recordMatch(Ticket<T> ticket, long now) {
+        matches++;
+        totalWaitNanos += now - ticket.enqueuedAt;
+    }
+
+}
@@ -0,0 +1,349 @@
+package edu.asu.stratego.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.game.GameStatus;
+import edu.asu.stratego.game.ParkedSessions;
+import edu.asu.stratego.game.Player;
+import edu.asu.stratego.game.ServerGameManager;
+import edu.asu.stratego.util.PeriodicTasks;
+import services.PlayerService;
+import services.RatingEngine;
+
+/**
+ * Blocking server mode that pairs players through a {@link Matchmaker}
+ * instead of in the order they connect.
+ * 
+ * <p>
+ * Every accepted connection enters a lobby task that completes the protocol
+ * handshake and reads the player's information. The player then waits in the
+ * matchmaking queue until an opponent with a similar rating shows up. The
+ * rating is the one stored for the player's email, not the one the client
+ * sends. Matched pairs become a ServerGameManager that runs on the worker
+ * pool.
+ * </p>
+ *
+ * <p>
+ * While the player waits, their lobby task keeps reading the connection, so
+ * a player who closes the client, or whose client stops sending heartbeats,
+ * leaves the queue instead of being matched with someone. The task checks
+ * four times a second whether the player has been matched, and only then
+ * hands the connection over to the session. A player whose
+ * opponent turns out to be gone at that point goes back to the queue. Lobby
+ * tasks always run on virtual threads, whatever the worker pool, so tens of
+ * thousands of waiting players hold no platform thread each.
+ * </p>
+ */
+public class MatchmakingServer {
+
+    private static final Logger logger = Logger.getLogger(MatchmakingServer.class.getName());
+
+    private static final int LOBBY_TIMEOUT_MILLIS = 30_000;
+    private static final int BASE_WINDOW = 100;
+    private static final int WIDEN_PER_SECOND = 50;
+    private static final long PAIRING_PERIOD_MILLIS = 250;
+    private static final long METRICS_PERIOD_SECONDS = 60;
+    private static final int WATCH_POLL_MILLIS = 250;
+    private static final long HEARTBEAT_TIMEOUT_NANOS = TimeUnit.MILLISECONDS
+            .toNanos(HeartbeatMonitor.TIMEOUT_MILLIS);
+
+    private final int port;
+    private final ExecutorService workers;
+    private final ExecutorService lobby = Executors.newVirtualThreadPerTaskExecutor();
+    private final PlayerService players = new PlayerService();
+    private final Matchmaker<LobbyConnection> matchmaker;
+    private final AtomicInteger sessionNumber = new AtomicInteger(1);
+    private final AtomicLong leftQueue = new AtomicLong();
+
+    /**
+     * A player that finished the handshake and waits for an opponent.
+     */
+    private static final class LobbyConnection {
+        private final Socket socket;
+        private final Player player;
+        private final int version;
+        private final int points;
+        // Lets the lobby task wait for a frame without taking any of it
+        private final PushbackInputStream peek;
+        private final FrameInputStream in;
+
+        // Set when the player is matched; the lobby task then stops reading
+        private volatile boolean matched;
+        private volatile boolean alive = true;
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        LobbyConnection(Socket socket, Player player, int version, int points) throws IOException {
+            this.socket = socket;
+            this.player = player;
+            this.version = version;
+            this.points = points;
+            this.peek = new PushbackInputStream(socket.getInputStream(), 1);
+            this.in = new FrameInputStream(peek);
+        }
+
+        /**
+         * Waits until the lobby task has stopped reading the connection.
+         *
+         * @return whether the player is still connected.
+         */
+        boolean release() {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return alive;
+        }
+    }
+
+    /**
+     * Creates a new instance of MatchmakingServer.
+     * 
+     * @param port    port to listen on.
+     * @param workers runs the game sessions.
+     */
+    public MatchmakingServer(int port, ExecutorService workers) {
+        this.port = port;
+        this.workers = workers;
+        this.matchmaker = new Matchmaker<>(BASE_WINDOW, WIDEN_PER_SECOND, this::startSession);
+    }
+
+    /**
+     * Accepts connections on the calling thread. This method never returns
+     * normally.
+     * 
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void start() throws IOException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stratego-matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(
+                PeriodicTasks.logged(logger, "Error while pairing waiting players.", matchmaker::pairWaitingPlayers),
+                PAIRING_PERIOD_MILLIS, PAIRING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::logMetrics, METRICS_PERIOD_SECONDS, METRICS_PERIOD_SECONDS,
+                TimeUnit.SECONDS);
+
+        try (ServerSocket listener = new ServerSocket(port)) {
+            while (true) {
+                Socket socket = listener.accept();
+                lobby.execute(() -> admit(socket));
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Lobby task: handshake, player information, then the matchmaking queue.
+     * A player who sends a resume token instead goes back to their game, and
+     * a spectator starts watching one. A client older than
+     * {@link BinaryProtocol#MIN_VERSION} is told the game is off.
+     */
+    private void admit(Socket socket) {
+        LobbyConnection connection;
+        try {
+            socket.setSoTimeout(LOBBY_TIMEOUT_MILLIS);
+            FrameInputStream in = new FrameInputStream(socket.getInputStream());
+            Object message = in.readObject();
+
+            int version = 0;
+            if (message instanceof ProtocolHello) {
+                int offered = ((ProtocolHello) message).getVersion();
+                if (!BinaryProtocol.isSupported(offered)) {
+                    logger.info("Turning away a client on protocol version " + offered);
+                    new FrameOutputStream(socket.getOutputStream()).writeObject(GameStatus.DISCONNECTED);
+                    closeQuietly(socket);
+                    return;
+                }
+                version = BinaryProtocol.negotiate(offered);
+                new FrameOutputStream(socket.getOutputStream()).writeObject(new ProtocolHello(version));
+                message = in.readObject();
+            }
+
+            if (message instanceof ResumeToken) {
+                socket.setSoTimeout(0);
+                ServerGameManager manager = ParkedSessions.getInstance().resume((ResumeToken) message, socket,
+                        version, sessionNumber.getAndIncrement());
+                if (manager != null)
+                    workers.execute(manager::run);
+                return;
+            }
+            if (message instanceof SpectateRequest) {
+                socket.setSoTimeout(0);
+                if (!ServerGameManager.watch((SpectateRequest) message, socket)) {
+                    new FrameOutputStream(socket.getOutputStream()).writeObject(GameStatus.DISCONNECTED);
+                    closeQuietly(socket);
+                }
+                return;
+            }
+
+            Player player = (Player) message;
+            int points = ratingOf(player.getEmail());
+            player.setPoints(points);
+            connection = new LobbyConnection(socket, player, version, points);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.log(Level.WARNING, "Dropping connection that did not join the lobby: " + e);
+            closeQuietly(socket);
+            return;
+        }
+        queue(connection);
+    }
+
+    /**
+     * @return the rating stored for a player, so no client picks its own
+     *         bracket. A player not stored yet, or a database that cannot be
+     *         reached, gets the initial rating.
+     */
+    private int ratingOf(String email) {
+        if (email == null)
+            return RatingEngine.INITIAL_RATING;
+        try {
+            models.Player stored = players.findByEmail(email);
+            if (stored != null && stored.getPoints() != null)
+                return stored.getPoints();
+        } catch (RuntimeException | LinkageError e) {
+            logger.log(Level.WARNING, "Could not look up the rating of " + email + ": " + e);
+        }
+        return RatingEngine.INITIAL_RATING;
+    }
+
+    /**
+     * Puts a player in the matchmaking queue and watches their connection
+     * until they are matched.
+     */
+    private void queue(LobbyConnection connection) {
+        matchmaker.enqueue(connection, connection.points);
+        waitForOpponent(connection);
+    }
+
+    /**
+     * Lobby task while the player waits: reads the heartbeats their client
+     * sends, and takes the player out of the queue if the connection closes,
+     * the heartbeats stop or anything else arrives. Returns once the player
+     * is matched, between two frames, so that the session reads the
+     * connection from a clean start.
+     */
+    private void waitForOpponent(LobbyConnection connection) {
+        try {
+            connection.socket.setSoTimeout(WATCH_POLL_MILLIS);
+            long lastHeard = System.nanoTime();
+            while (!connection.matched) {
+                try {
+                    int next = connection.peek.read();
+                    if (next < 0)
+                        throw new EOFException("Connection closed");
+                    connection.peek.unread(next);
+                    lastHeard = System.nanoTime();
+                    // Skips the heartbeat, then times out waiting for the next frame
+                    Object message = connection.in.readObject();
+                    throw new IOException("Unexpected " + message + " while waiting for an opponent");
+                } catch (SocketTimeoutException e) {
+                    if (connection.version >= BinaryProtocol.HEARTBEAT_VERSION
+                            && System.nanoTime() - lastHeard > HEARTBEAT_TIMEOUT_NANOS)
+                        throw new IOException("No heartbeat for " + HeartbeatMonitor.TIMEOUT_MILLIS + " ms");
+                }
+            }
+            connection.socket.setSoTimeout(0);
+        } catch (IOException | ClassNotFoundException e) {
+            connection.alive = false;
+            if (matchmaker.remove(connection)) {
+                leftQueue.incrementAndGet();
+                logger.info(connection.player.getNickname() + " left the matchmaking queue: " + e.getMessage());
+            }
+            closeQuietly(connection.socket);
+        } finally {
+            connection.released.countDown();
+        }
+    }
+
+    /**
+     * Called by the Matchmaker with every matched pair. The first player is
+     * the one who has been waiting longer. The session starts on the worker
+     * pool once both lobby tasks have let go of their connections.
+     */
+    private void startSession(LobbyConnection one, LobbyConnection two) {
+        one.matched = true;
+        two.matched = true;
+        lobby.execute(() -> beginSession(one, two));
+    }
+
+    private void beginSession(LobbyConnection one, LobbyConnection two) {
+        boolean oneAlive = one.release();
+        boolean twoAlive = two.release();
+        if (!oneAlive || !twoAlive) {
+            // Uno de los dos se fue justo al emparejarlos: el otro vuelve a la cola
+            requeue(oneAlive ? one : null);
+            requeue(twoAlive ? two : null);
+            return;
+        }
+
+        int number = sessionNumber.getAndIncrement();
+        ServerGameManager manager;
+        try {
+            StreamSessionChannel channel = new StreamSessionChannel(one.socket, two.socket);
+            channel.useProtocol(PlayerSeat.ONE, one.version);
+            channel.useProtocol(PlayerSeat.TWO, two.version);
+            manager = new ServerGameManager(channel, number);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Session " + number + ": Error establishing communication streams.", e);
+            closeQuietly(one.socket);
+            closeQuietly(two.socket);
+            return;
+        }
+
+        logger.info("Session " + number + ": " + one.player.getNickname() + " (" + one.player.getPoints()
+                + ") vs " + two.player.getNickname() + " (" + two.player.getPoints() + ")");
+        workers.execute(() -> {
+            manager.onMessage(PlayerSeat.ONE, one.player);
+            manager.onMessage(PlayerSeat.TWO, two.player);
+            manager.run();
+        });
+    }
+
+    private void requeue(LobbyConnection connection) {
+        if (connection == null)
+            return;
+        logger.info(connection.player.getNickname() + " goes back to the queue, the opponent left");
+        try {
+            queue(new LobbyConnection(connection.socket, connection.player, connection.version,
+                    connection.points));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Dropping " + connection.player.getNickname() + ": " + e);
+            closeQuietly(connection.socket);
+        }
+    }
+
+    private void logMetrics() {
+        logger.info("Matchmaking: " + matchmaker.getQueueDepth() + " waiting (longest "
+                + matchmaker.getLongestWaitMillis() + " ms), " + matchmaker.getMatchedPlayers()
+                + " matched (average wait " + matchmaker.getAverageWaitMillis() + " ms), " + leftQueue.get()
+                + " left the queue, " + ParkedSessions.getInstance().size() + " games parked");
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error while closing a lobby connection.", e);
+        }
+    }
+
+}
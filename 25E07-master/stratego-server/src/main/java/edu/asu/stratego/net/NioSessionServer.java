@@ -0,0 +1,415 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.asu.stratego.game.ServerGameManager;
+
+/**
+ * Event loop server mode. Instead of dedicating a thread to every session, a
+ * small pool of selector threads multiplexes all the connections. Both
+ * connections of a session are registered on the same event loop, which
+ * delivers its messages and disconnects. The loop is not the only thread that
+ * drives a session, though: timing-wheel deadlines, rejoining players and
+ * spectators reach its ServerGameManager from other threads, so the manager
+ * takes its own ReentrantLock on every entry point.
+ *
+ * <p>
+ * Every heartbeat interval each loop sweeps its connections: it sends the
+ * heartbeats, reaps the sessions of peers that went silent and closes the
+ * connections of finished games whose peer stopped reading (see
+ * {@link HeartbeatMonitor}).
+ * </p>
+ */
+public class NioSessionServer {
+
+    private static final Logger logger = Logger.getLogger(NioSessionServer.class.getName());
+
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(HeartbeatMonitor.TIMEOUT_MILLIS);
+
+    private final int port;
+    private final EventLoop[] eventLoops;
+    private int nextLoop = 0;
+    private int sessionNumber = 1;
+
+    /**
+     * Creates a new instance of NioSessionServer.
+     * 
+     * @param port       port to listen on.
+     * @param eventLoops number of selector threads.
+     * @throws IOException if a selector cannot be opened
+     */
+    public NioSessionServer(int port, int eventLoops) throws IOException {
+        this.port = port;
+        this.eventLoops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; ++i)
+            this.eventLoops[i] = new EventLoop();
+    }
+
+    /**
+     * Starts the event loops and accepts connections on the calling thread.
+     * Every two connections form a game session. This method never returns
+     * normally.
+     * 
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void start() throws IOException {
+        for (int i = 0; i < eventLoops.length; ++i) {
+            Thread loop = new Thread(eventLoops[i], "stratego-loop-" + i);
+            loop.setDaemon(true);
+            loop.start();
+        }
+
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(port));
+            logger.info("Event loop server listening on port " + port + " with " + eventLoops.length
+                    + " event loops");
+
+            SocketChannel waiting = null;
+            while (true) {
+                SocketChannel client = listener.accept();
+
+                if (waiting == null || !waiting.isOpen()) {
+                    waiting = client;
+                    logger.info("Session " + sessionNumber + ": Player 1 has joined the session");
+                    continue;
+                }
+
+                logger.info("Session " + sessionNumber + ": Player 2 has joined the session");
+                EventLoop loop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+                loop.register(waiting, client, sessionNumber++);
+                waiting = null;
+            }
+        }
+    }
+
+    /**
+     * A selector thread serving the connections of many sessions.
+     */
+    private static final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Hands a pair of connections over to this loop. Called from the
+         * acceptor thread.
+         */
+        void register(SocketChannel one, SocketChannel two, int sessionNum) {
+            execute(() -> openSession(one, two, sessionNum));
+        }
+
+        /**
+         * Runs a task on this loop's thread. Safe to call from any thread.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long nextSweep = System.nanoTime();
+            while (true) {
+                try {
+                    selector.select(BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS);
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null)
+                        task.run();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isValid() && key.isReadable())
+                            connection.onReadable();
+                        if (key.isValid() && key.isWritable())
+                            connection.onWritable();
+                    }
+
+                    long now = System.nanoTime();
+                    if (now - nextSweep >= 0) {
+                        nextSweep = now + TimeUnit.MILLISECONDS.toNanos(BinaryProtocol.HEARTBEAT_INTERVAL_MILLIS);
+                        sweep(now);
+                    }
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Event loop error", e);
+                } catch (RuntimeException e) {
+                    // A faulty session must not take down every other session on this loop
+                    logger.log(Level.SEVERE, "Unexpected error while handling a session", e);
+                }
+            }
+        }
+
+        private void sweep(long now) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid())
+                    ((Connection) key.attachment()).sweep(now);
+            }
+        }
+
+        private void openSession(SocketChannel one, SocketChannel two, int sessionNum) {
+            NioSessionChannel channel = new NioSessionChannel(this);
+            ServerGameManager manager = new ServerGameManager(channel, sessionNum);
+            try {
+                channel.playerOne = new Connection(one, PlayerSeat.ONE, manager, channel);
+                channel.playerTwo = new Connection(two, PlayerSeat.TWO, manager, channel);
+                channel.playerOne.register(selector);
+                channel.playerTwo.register(selector);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Session " + sessionNum + ": Error registering connections.", e);
+                manager.onDisconnect(PlayerSeat.ONE);
+            }
+        }
+    }
+
+    /**
+     * SessionChannel that queues frames on the two non-blocking connections of
+     * a session.
+     */
+    private static final class NioSessionChannel implements SessionChannel {
+
+        private final EventLoop loop;
+        private Connection playerOne;
+        private Connection playerTwo;
+
+        NioSessionChannel(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public void send(PlayerSeat seat, Object message) throws IOException {
+            Connection connection = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+            if (connection == null)
+                throw new IOException("Connection for player " + seat + " is not open.");
+            connection.send(Frames.encode(message, connection.binary));
+        }
+
+        @Override
+        public void useProtocol(PlayerSeat seat, int version) {
+            Connection connection = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+            if (connection != null) {
+                connection.version = version;
+                connection.binary = version >= 1;
+                connection.heartbeats = version >= BinaryProtocol.HEARTBEAT_VERSION;
+            }
+        }
+
+        @Override
+        public int getVersion(PlayerSeat seat) {
+            Connection connection = (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+            return (connection == null) ? 0 : connection.version;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            loop.execute(task);
+        }
+
+        @Override
+        public int connections() {
+            return ((playerOne != null && playerOne.socket.isOpen()) ? 1 : 0)
+                    + ((playerTwo != null && playerTwo.socket.isOpen()) ? 1 : 0);
+        }
+
+        @Override
+        public void close() {
+            if (playerOne != null)
+                playerOne.closeAfterFlush();
+            if (playerTwo != null)
+                playerTwo.closeAfterFlush();
+        }
+    }
+
+    /**
+     * One client connection: reassembles inbound frames and buffers outbound
+     * frames until the socket can take them.
+     */
+    private static final class Connection {
+
+        private final SocketChannel socket;
+        private final PlayerSeat seat;
+        private final ServerGameManager manager;
+        private final NioSessionChannel channel;
+
+        private SelectionKey key;
+
+        private final ByteBuffer header = ByteBuffer.allocate(Frames.HEADER_SIZE);
+        private ByteBuffer body;
+
+        private final Queue<ByteBuffer> pending = new ArrayDeque<>();
+        private boolean closeWhenFlushed = false;
+        private int version = 0;
+        private boolean binary = false;
+        private boolean heartbeats = false;
+
+        // Last time the peer sent anything, or since the connection is closing
+        private long lastHeard = System.nanoTime();
+        private long closingSince;
+
+        Connection(SocketChannel socket, PlayerSeat seat, ServerGameManager manager, NioSessionChannel channel)
+                throws IOException {
+            this.socket = socket;
+            this.seat = seat;
+            this.manager = manager;
+            this.channel = channel;
+            socket.configureBlocking(false);
+        }
+
+        void register(Selector selector) throws IOException {
+            key = socket.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        /**
+         * Reads as many complete frames as are available and delivers them to
+         * the session.
+         */
+        void onReadable() {
+            try {
+                while (!manager.isFinished()) {
+                    ByteBuffer target = (body == null) ? header : body;
+                    int read = socket.read(target);
+                    if (read < 0) {
+                        disconnected();
+                        return;
+                    }
+                    if (read > 0)
+                        lastHeard = System.nanoTime();
+                    if (target.hasRemaining())
+                        return;
+
+                    if (body == null) {
+                        header.flip();
+                        int length = header.getInt();
+                        header.clear();
+                        Frames.checkLength(length);
+                        body = ByteBuffer.allocate(length);
+                    } else {
+                        byte[] payload = body.array();
+                        body = null;
+                        if (!BinaryProtocol.isHeartbeat(payload))
+                            manager.onMessage(seat, Frames.decode(payload));
+                    }
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                logger.log(Level.WARNING, "Connection of player " + seat + " failed", e);
+                disconnected();
+            }
+        }
+
+        void onWritable() {
+            try {
+                flush();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Connection of player " + seat + " failed", e);
+                disconnected();
+            }
+        }
+
+        void send(ByteBuffer frame) throws IOException {
+            if (!socket.isOpen())
+                throw new IOException("Connection of player " + seat + " is closed.");
+            pending.add(frame);
+            flush();
+        }
+
+        /**
+         * Writes queued frames until the queue is empty or the socket buffer is
+         * full, in which case the loop is asked to report writability.
+         */
+        private void flush() throws IOException {
+            ByteBuffer frame;
+            while ((frame = pending.peek()) != null) {
+                socket.write(frame);
+                if (frame.hasRemaining()) {
+                    if (key != null && key.isValid())
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pending.poll();
+            }
+            if (key != null && key.isValid())
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeWhenFlushed)
+                closeNow();
+        }
+
+        void closeAfterFlush() {
+            if (!closeWhenFlushed)
+                closingSince = System.nanoTime();
+            closeWhenFlushed = true;
+            if (pending.isEmpty())
+                closeNow();
+        }
+
+        /**
+         * Periodic check from the event loop: sends a heartbeat, or reaps the
+         * session if the peer has been silent for too long.
+         */
+        void sweep(long now) {
+            if (closeWhenFlushed) {
+                // The peer of a finished game stopped reading its last frames
+                if (now - closingSince > TIMEOUT_NANOS) {
+                    logger.info("Closing connection of player " + seat + " with unread frames");
+                    HeartbeatMonitor.getInstance().socketReaped();
+                    pending.clear();
+                    closeNow();
+                }
+                return;
+            }
+            if (!heartbeats)
+                return;
+
+            if (now - lastHeard > TIMEOUT_NANOS) {
+                logger.warning("Player " + seat + " stopped responding, reaping the session");
+                HeartbeatMonitor.getInstance().sessionReaped(channel);
+                disconnected();
+                return;
+            }
+            try {
+                send(Frames.heartbeat());
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Connection of player " + seat + " failed", e);
+                disconnected();
+            }
+        }
+
+        private void disconnected() {
+            pending.clear();
+            if (!manager.isFinished())
+                manager.onDisconnect(seat);
+            closeNow();
+        }
+
+        private void closeNow() {
+            try {
+                if (key != null)
+                    key.cancel();
+                socket.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error while closing connection of player " + seat, e);
+            }
+        }
+    }
+
+}
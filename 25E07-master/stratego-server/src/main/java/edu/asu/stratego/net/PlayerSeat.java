@@ -0,0 +1,17 @@
+package edu.asu.stratego.net;
+
+/**
+ * Identifies one of the two connections that make up a game session, in the
+ * order in which the players joined it.
+ */
+public enum PlayerSeat {
+    ONE,
+    TWO;
+
+    /**
+     * @return the seat of the other player in the session
+     */
+    public PlayerSeat other() {
+        return (this == ONE) ? TWO : ONE;
+    }
+}
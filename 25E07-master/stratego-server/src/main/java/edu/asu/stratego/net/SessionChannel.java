@@ -0,0 +1,83 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+
+/**
+ * Outbound side of a game session. The ServerGameManager only decides what to
+ * send to each player; the channel decides how the frames reach the sockets,
+ * whether through blocking streams or a selector event loop.
+ */
+public interface SessionChannel {
+
+    /**
+     * Sends a message to the player sitting in the given seat.
+     * 
+     * @param seat    the recipient
+     * @param message the object to send
+     * @throws IOException if the connection is broken
+     */
+    void send(PlayerSeat seat, Object message) throws IOException;
+
+    /**
+     * Applies the protocol version agreed with a player: from version 1 the
+     * messages that have a binary form are sent with the binary protocol, and
+     * from {@link BinaryProtocol#HEARTBEAT_VERSION} the player gets heartbeats
+     * and is taken for dead when it stops sending them.
+     * 
+     * @param seat    the player who completed the handshake
+     * @param version the negotiated version
+     */
+    void useProtocol(PlayerSeat seat, int version);
+
+    /**
+     * @param seat a player
+     * @return the protocol version agreed with the player, 0 if they never
+     *         sent a handshake or are not connected
+     */
+    int getVersion(PlayerSeat seat);
+
+    /**
+     * Tells whether the player in the given seat could come back to the game
+     * on a new connection after losing this one (see
+     * {@link BinaryProtocol#RESUME_VERSION}). Channels that cannot take a
+     * player back say no, and a lost connection ends their game.
+     * 
+     * @param seat a player
+     * @return true if the game may wait for the player to come back
+     */
+    default boolean canResume(PlayerSeat seat) {
+        return false;
+    }
+
+    /**
+     * Runs a task for the session on the thread that delivers its messages,
+     * so the task never races with them. Blocking channels have no such
+     * thread and run the task right away.
+     * 
+     * @param task the task, for example a timeout
+     */
+    default void execute(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * @return the number of player connections the channel has open.
+     */
+    int connections();
+
+    /**
+     * @return the number of threads the session holds while it waits on
+     *         this channel: one for a blocking channel, read by its own
+     *         session thread, none for one served by an event loop.
+     */
+    default int threads() {
+        return 0;
+    }
+
+    /**
+     * Closes both connections of the session once any pending frames have
+     * been written.
+     */
+    void close();
+
+}
@@ -0,0 +1,262 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The spectators of one game, and the frames on their way to them.
+ *
+ * <p>
+ * Every message is encoded once, into a frame shared by all the spectators'
+ * queues and never modified afterwards. Each spectator has a writer of its
+ * own, on a virtual thread, so the game only ever adds frames to queues and
+ * never waits on a spectator's socket. A spectator whose queue fills up
+ * falls behind: it gets nothing more until the end of the turn, and then the
+ * position instead of the frames it missed. One whose socket takes longer
+ * than {@link #STALL_MILLIS} to accept a frame is dropped. Once the feed is
+ * closed the spectators have {@link #STALL_MILLIS} to take their last
+ * frames, and the ones still writing are then dropped too.
+ * </p>
+ *
+ * <p>
+ * The queue holds {@code -Dstratego.spectator.queue=<frames>} frames, 64 by
+ * default, about 20 turns.
+ * </p>
+ */
+public class SpectatorFeed {
+
+    private static final Logger logger = Logger.getLogger(SpectatorFeed.class.getName());
+
+    static final int QUEUE_FRAMES = Integer.getInteger("stratego.spectator.queue", 64);
+
+    /** Longest time a write to a spectator may block before it is dropped. */
+    public static final long STALL_MILLIS = 10_000;
+
+    // Marks the end of the feed: the writer closes the socket when it gets here
+    private static final byte[] END = new byte[0];
+
+    private static final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final String label;
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed;
+
+    /**
+     * One spectator's connection and the frames it has yet to receive.
+     */
+    private final class Spectator implements Runnable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_FRAMES);
+        // When the write in progress started, or 0
+        private volatile long writingSince;
+        // Guarded by the feed's lock
+        private boolean behind;
+
+        Spectator(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] frame;
+                while ((frame = queue.take()) != END) {
+                    writingSince = System.nanoTime() | 1;
+                    out.write(frame);
+                    out.flush();
+                    writingSince = 0;
+                }
+            } catch (IOException e) {
+                logger.log(Level.FINE, label + "Lost a spectator", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                spectators.remove(this);
+                close();
+            }
+        }
+
+        boolean stalled(long now) {
+            long since = writingSince;
+            return since != 0 && now - since > TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS);
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, label + "Error while closing a spectator connection.", e);
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance of SpectatorFeed.
+     *
+     * @param label prefix for the log messages, usually the session's.
+     */
+    public SpectatorFeed(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Adds a spectator. The connection must be past the protocol handshake.
+     *
+     * @param socket   the spectator's connection.
+     * @param position the first message the spectator gets.
+     * @throws IOException if the connection cannot be used, or the feed is
+     *                     closed.
+     */
+    public void add(Socket socket, Object position) throws IOException {
+        Spectator spectator = new Spectator(socket);
+        lock.lock();
+        try {
+            if (closed)
+                throw new IOException("The game is over");
+            spectator.queue.add(encode(position));
+            spectators.add(spectator);
+        } finally {
+            lock.unlock();
+        }
+        writers.execute(spectator);
+    }
+
+    /**
+     * Queues a message for every spectator that is not behind.
+     */
+    public void broadcast(Object message) {
+        if (spectators.isEmpty())
+            return;
+
+        lock.lock();
+        try {
+            byte[] frame = encode(message);
+            dropStalled();
+            for (Spectator spectator : spectators) {
+                if (!spectator.behind && !spectator.queue.offer(frame)) {
+                    spectator.behind = true;
+                    spectator.queue.clear();
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, label + "Could not encode " + message + " for the spectators", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called at the end of every turn: the spectators that fell behind skip
+     * to the position.
+     *
+     * @param position the position to send them, built only if someone needs
+     *                 it.
+     */
+    public void catchUp(Supplier<?> position) {
+        if (spectators.isEmpty())
+            return;
+
+        lock.lock();
+        try {
+            byte[] frame = null;
+            for (Spectator spectator : spectators) {
+                if (!spectator.behind)
+                    continue;
+                if (frame == null)
+                    frame = encode(position.get());
+                spectator.queue.clear();
+                spectator.queue.add(frame);
+                spectator.behind = false;
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, label + "Could not encode the position for the spectators", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the feed. Each spectator gets the frames queued for it, and then
+     * its connection is closed. A spectator that already stopped reading is
+     * dropped now, and one still writing after {@link #STALL_MILLIS} is
+     * dropped then, so no writer is left blocked on a socket.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            dropStalled();
+            for (Spectator spectator : spectators) {
+                if (!spectator.queue.offer(END)) {
+                    spectator.queue.clear();
+                    spectator.queue.add(END);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!spectators.isEmpty())
+            writers.execute(this::dropRemaining);
+    }
+
+    /**
+     * Drops the spectators whose write has been blocked for longer than
+     * {@link #STALL_MILLIS}. Called with the lock held.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Spectator spectator : spectators) {
+            if (spectator.stalled(now)) {
+                logger.info(label + "Dropping a spectator that stopped reading");
+                spectators.remove(spectator);
+                spectator.close();
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #STALL_MILLIS} after the feed is closed and drops the
+     * spectators that have not taken their last frames yet. Closing the
+     * socket ends a write blocked on it.
+     */
+    private void dropRemaining() {
+        try {
+            Thread.sleep(STALL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Spectator spectator : spectators) {
+            logger.info(label + "Dropping a spectator that did not read the end of the game");
+            spectators.remove(spectator);
+            spectator.close();
+        }
+    }
+
+    /**
+     * @return the number of spectators.
+     */
+    public int size() {
+        return spectators.size();
+    }
+
+    private static byte[] encode(Object message) throws IOException {
+        // Frames.encode allocates the frame exactly, so the array is the frame
+        return Frames.encode(message, true).array();
+    }
+
+}
@@ -0,0 +1,263 @@
+package edu.asu.stratego.net;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SessionChannel backed by two blocking sockets. Used by the thread-per-session
+ * server mode, where the ServerGameManager thread pulls frames with
+ * {@link #receive(PlayerSeat)}.
+ *
+ * <p>
+ * A player who loses the connection can be {@link #detach(PlayerSeat)
+ * detached} while the game waits for them, and {@link #attach attached} again
+ * on the connection they come back with. Messages to a detached player are
+ * dropped: a returning player is sent the whole position instead.
+ * </p>
+ */
+public class StreamSessionChannel implements SessionChannel {
+
+    private static final Logger logger = Logger.getLogger(StreamSessionChannel.class.getName());
+
+    /**
+     * One player's socket and its streams.
+     */
+    private static final class Connection {
+        private final Socket socket;
+        private final FrameOutputStream out;
+        private final FrameInputStream in;
+        private volatile int version;
+        // Un latido en curso: el siguiente se salta
+        private final AtomicBoolean heartbeating = new AtomicBoolean();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new FrameOutputStream(socket.getOutputStream());
+            this.in = new FrameInputStream(socket.getInputStream());
+        }
+
+        void close() {
+            try {
+                out.close();
+                in.close();
+                socket.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error while closing connections.", e);
+            }
+        }
+    }
+
+    // Un peer que no lee bloquea su latido, no los del resto
+    private static final ExecutorService heartbeats = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile Connection playerOne;
+    private volatile Connection playerTwo;
+
+    /**
+     * Creates a new instance of StreamSessionChannel.
+     *
+     * @param socketOne socket connected to Player 1's client.
+     * @param socketTwo socket connected to Player 2's client.
+     * @throws IOException if the socket streams cannot be opened
+     */
+    public StreamSessionChannel(Socket socketOne, Socket socketTwo) throws IOException {
+        if (socketOne == null || socketTwo == null)
+            throw new IOException("One or both sockets are null.");
+        if (socketOne.isClosed() || socketTwo.isClosed())
+            throw new IOException("One or both sockets are already closed.");
+
+        this.playerOne = new Connection(socketOne);
+        this.playerTwo = new Connection(socketTwo);
+    }
+
+    /**
+     * Creates a channel with both players detached, for a game whose players
+     * have yet to come back to it.
+     */
+    public StreamSessionChannel() {
+        /* Players are attached as they return */ }
+
+    @Override
+    public void send(PlayerSeat seat, Object message) throws IOException {
+        Connection connection = connection(seat);
+        if (connection != null)
+            connection.out.writeObject(message);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * A player that sends heartbeats gets a read timeout, so a read from a
+     * dead peer fails with a SocketTimeoutException instead of blocking the
+     * session thread forever.
+     * </p>
+     */
+    @Override
+    public void useProtocol(PlayerSeat seat, int version) {
+        Connection connection = connection(seat);
+        if (connection == null)
+            return;
+        connection.version = version;
+        connection.out.setBinaryProtocol(version >= 1);
+        if (version < BinaryProtocol.HEARTBEAT_VERSION)
+            return;
+
+        try {
+            connection.socket.setSoTimeout((int) HeartbeatMonitor.TIMEOUT_MILLIS);
+        } catch (SocketException e) {
+            logger.log(Level.WARNING, "Could not set the read timeout of player " + seat, e);
+            return;
+        }
+        HeartbeatMonitor.getInstance().watch(this);
+    }
+
+    @Override
+    public int getVersion(PlayerSeat seat) {
+        Connection connection = connection(seat);
+        return (connection == null) ? 0 : connection.version;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * True for an attached player who negotiated
+     * {@link BinaryProtocol#RESUME_VERSION}.
+     * </p>
+     */
+    @Override
+    public boolean canResume(PlayerSeat seat) {
+        Connection connection = connection(seat);
+        return connection != null && connection.version >= BinaryProtocol.RESUME_VERSION;
+    }
+
+    /**
+     * Sends a heartbeat to each player that negotiated them, each on its own
+     * virtual thread, so a peer whose socket buffer is full cannot hold up
+     * the heartbeats of every other session. A player whose previous
+     * heartbeat is still being written is skipped. Called by the
+     * HeartbeatMonitor; a failed write is left for the session thread to
+     * find.
+     */
+    void sendHeartbeats() {
+        sendHeartbeat(playerOne);
+        sendHeartbeat(playerTwo);
+    }
+
+    private static void sendHeartbeat(Connection connection) {
+        if (connection == null || connection.version < BinaryProtocol.HEARTBEAT_VERSION)
+            return;
+        if (!connection.heartbeating.compareAndSet(false, true))
+            return;
+        heartbeats.execute(() -> {
+            try {
+                connection.out.writeHeartbeat();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Could not send a heartbeat", e);
+            } finally {
+                connection.heartbeating.set(false);
+            }
+        });
+    }
+
+    /**
+     * Blocks until the player in the given seat sends a message. If the
+     * player is attached on a new connection during the read, the read goes
+     * on from the new one.
+     *
+     * @param seat the sender
+     * @return the received message
+     * @throws IOException            if the connection is broken, or the
+     *                                player is detached
+     * @throws ClassNotFoundException if the class of the message is unknown
+     */
+    public Object receive(PlayerSeat seat) throws IOException, ClassNotFoundException {
+        while (true) {
+            Connection connection = connection(seat);
+            if (connection == null)
+                throw new IOException("Player " + seat + " is not connected");
+            try {
+                // Throws SocketTimeoutException if a player who sends heartbeats goes silent
+                return connection.in.readObject();
+            } catch (IOException e) {
+                if (connection(seat) == connection)
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * @return true if the player in the given seat is connected.
+     */
+    public boolean isAttached(PlayerSeat seat) {
+        return connection(seat) != null;
+    }
+
+    /**
+     * Closes a player's connection and drops the messages sent to them until
+     * they are attached again.
+     */
+    public void detach(PlayerSeat seat) {
+        Connection connection = connection(seat);
+        setConnection(seat, null);
+        if (connection != null)
+            connection.close();
+    }
+
+    /**
+     * Seats a returning player on a new connection, replacing the one they
+     * had, if any.
+     *
+     * @param seat    the player's seat
+     * @param socket  the new connection, past the protocol handshake
+     * @param version the protocol version negotiated on it
+     * @throws IOException if the socket streams cannot be opened
+     */
+    public void attach(PlayerSeat seat, Socket socket, int version) throws IOException {
+        Connection previous = connection(seat);
+        setConnection(seat, new Connection(socket));
+        if (previous != null)
+            previous.close();
+        useProtocol(seat, version);
+    }
+
+    @Override
+    public int connections() {
+        return ((playerOne != null) ? 1 : 0) + ((playerTwo != null) ? 1 : 0);
+    }
+
+    @Override
+    public int threads() {
+        return 1;
+    }
+
+    private Connection connection(PlayerSeat seat) {
+        return (seat == PlayerSeat.ONE) ? playerOne : playerTwo;
+    }
+
+    private void setConnection(PlayerSeat seat, Connection connection) {
+        if (seat == PlayerSeat.ONE)
+            playerOne = connection;
+        else
+            playerTwo = connection;
+    }
+
+    @Override
+    public void close() {
+        HeartbeatMonitor.getInstance().unwatch(this);
+        Connection one = playerOne;
+        Connection two = playerTwo;
+        if (one != null)
+            one.close();
+        if (two != null)
+            two.close();
+    }
+
+}
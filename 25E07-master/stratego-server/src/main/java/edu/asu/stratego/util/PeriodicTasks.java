@@ -0,0 +1,44 @@
+package edu.asu.stratego.util;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Error handling for the work of the server's periodic tasks.
+ *
+ * <p>
+ * A ScheduledExecutorService cancels a task the first time it throws, and
+ * says nothing about it: the heartbeats, the pairing or the expiry of parked
+ * games would just stop. Their work runs through here instead, so a failure
+ * is logged and the next run happens as planned.
+ * </p>
+ */
+public final class PeriodicTasks {
+
+    private PeriodicTasks() {
+        /* Utility class */ }
+
+    /**
+     * Runs {@code work}, logging instead of throwing the RuntimeException it
+     * may end with.
+     *
+     * @param logger  where to log a failure.
+     * @param failure the message logged with it.
+     * @param work    the work to run.
+     */
+    public static void runLogged(Logger logger, String failure, Runnable work) {
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, failure, e);
+        }
+    }
+
+    /**
+     * @return a task that runs {@code work} with {@link #runLogged}, for a
+     *         scheduler.
+     */
+    public static Runnable logged(Logger logger, String failure, Runnable work) {
+        return () -> runLogged(logger, failure, work);
+    }
+}
@@ -0,0 +1,276 @@
+package edu.asu.stratego.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel: a timer for a very large number of deadlines that are
+ * mostly cancelled before they expire, such as the clocks of every game on
+ * the server.
+ *
+ * <p>
+ * Time is cut in ticks, and a deadline goes into the bucket of the tick it
+ * expires on, modulo the size of the wheel, with the number of turns of the
+ * wheel still to wait. Scheduling and cancelling only add the timeout to a
+ * lock-free queue, so both are O(1) for the caller; a single worker thread
+ * moves new timeouts into their bucket, unlinks cancelled ones from theirs
+ * and, once per tick, expires one bucket. Deadlines are rounded up to the
+ * tick, which is the resolution of the wheel.
+ * </p>
+ *
+ * <p>
+ * Expired tasks are handed to an executor, so a slow task never delays the
+ * wheel.
+ * </p>
+ */
+public class TimingWheel {
+
+    private static final Logger logger = Logger.getLogger(TimingWheel.class.getName());
+
+    // New timeouts moved into the wheel per tick, so a burst cannot stall it
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final long startNanos = System.nanoTime();
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    // Only used by the worker thread
+    private long tick;
+
+    /**
+     * A scheduled task, which can be cancelled until it expires.
+     */
+    public static final class Timeout {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+                .newUpdater(Timeout.class, "state");
+
+        private final TimingWheel timer;
+        private final Runnable task;
+        private final long deadline;
+
+        private volatile int state = WAITING;
+
+        // Bucket links, only used by the worker thread
+        private long rounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        Timeout(TimingWheel timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         *
+         * @return true if the task will not run because of this call.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED))
+                return false;
+            timer.pending.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, WAITING, EXPIRED))
+                return;
+            timer.pending.decrementAndGet();
+            try {
+                timer.executor.execute(task);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Could not run an expired task", e);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts that expire on one slot of the wheel.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous != null)
+                timeout.previous.next = next;
+            if (next != null)
+                next.previous = timeout.previous;
+            if (timeout == head)
+                head = next;
+            if (timeout == tail)
+                tail = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Expires the timeouts due by the given time and takes a turn off the
+         * others.
+         */
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * Creates a timing wheel and starts its worker thread.
+     *
+     * @param name      name of the worker thread.
+     * @param tick      duration of a tick, the resolution of the timer.
+     * @param unit      unit of tick.
+     * @param wheelSize number of buckets, rounded up to a power of two.
+     * @param executor  runs the expired tasks.
+     */
+    public TimingWheel(String name, long tick, TimeUnit unit, int wheelSize, Executor executor) {
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.executor = executor;
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Runs a task once the delay has passed, unless it is cancelled first.
+     *
+     * @return the handle to cancel the task with.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startNanos + unit.toNanos(delay));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of tasks waiting to expire.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the worker thread. Tasks still waiting never run.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (!running)
+                return;
+
+            unlinkCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick.
+     *
+     * @return the end of the tick, relative to the start of the wheel.
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long sleep = deadline - (System.nanoTime() - startNanos);
+            if (sleep <= 0)
+                break;
+            LockSupport.parkNanos(this, sleep);
+        }
+        return deadline;
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null)
+                timeout.bucket.remove(timeout);
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+            Timeout timeout = added.poll();
+            if (timeout == null)
+                return;
+            if (timeout.isCancelled())
+                continue;
+
+            // Ticks already passed go into the current bucket
+            long expiresOn = Math.max((timeout.deadline + tickNanos - 1) / tickNanos - 1, tick);
+            timeout.rounds = (expiresOn - tick) / wheel.length;
+            wheel[(int) (expiresOn & mask)].add(timeout);
+        }
+    }
+
+}
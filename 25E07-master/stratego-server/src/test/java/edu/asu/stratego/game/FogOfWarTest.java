@@ -0,0 +1,393 @@
+package edu.asu.stratego.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.asu.stratego.game.board.ByteBoard;
+import edu.asu.stratego.game.pieces.OriginalPiece;
+import edu.asu.stratego.game.pieces.Piece;
+import edu.asu.stratego.game.pieces.PieceColor;
+import edu.asu.stratego.game.pieces.PieceType;
+import edu.asu.stratego.net.BinaryProtocol;
+import edu.asu.stratego.net.FrameInputStream;
+import edu.asu.stratego.net.FrameOutputStream;
+import edu.asu.stratego.net.MatchmakingServer;
+import edu.asu.stratego.net.ProtocolHello;
+import edu.asu.stratego.net.ResumeToken;
+import edu.asu.stratego.net.SpectateRequest;
+
+/**
+ * Plays a game on a local server between a client on the binary protocol
+ * and one on Java serialization, with a spectator of each kind, and checks
+ * that nothing any of them receives names a piece they may not know: the
+ * setup exchange, plain moves, attacks, the position on resuming and the
+ * position a spectator starts from.
+ *
+ * <p>
+ * Both setups are the piece types in declaration order, row by row from the
+ * front: eight scouts, then the miners from column 8 on. The first player's
+ * scout attacks the second player's miner, which wins and is then known.
+ * </p>
+ *
+ * <p>
+ * The server hides, and logs, anything that slips through on its way out;
+ * the test fails on any such log, so that the messages are right as built.
+ * </p>
+ */
+class FogOfWarTest {
+
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    private static int port;
+
+    // Kept here so that the logger, and its handler, are not collected
+    private static final Logger SERVER_LOGGER = Logger.getLogger("edu.asu.stratego");
+    private static final List<String> slips = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        SERVER_LOGGER.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.SEVERE && record.getMessage().toLowerCase().contains("hid pieces"))
+                    slips.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+                /* Nothing buffered */ }
+
+            @Override
+            public void close() {
+                /* Nothing to release */ }
+        });
+        ParkedSessions.getInstance().start(1);
+        Thread server = new Thread(() -> {
+            try {
+                new MatchmakingServer(port, Executors.newVirtualThreadPerTaskExecutor()).start();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "fog-of-war-test-server");
+        server.setDaemon(true);
+        server.start();
+
+        // Espera a que el servidor acepte conexiones
+        for (int attempt = 0;; ++attempt) {
+            try (Socket socket = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                if (attempt == 50)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @Test
+    void eachClientOnlyLearnsWhatItMayKnow() throws Exception {
+        Client binary = new Client("binary", BinaryProtocol.VERSION);
+        Client serialized = new Client("serialized", 0);
+        binary.open();
+        serialized.open();
+        binary.join("binary@fog.test");
+        serialized.join("serialized@fog.test");
+        binary.readOpponent();
+        serialized.readOpponent();
+
+        binary.out.writeObject(setup(binary.color));
+        serialized.out.writeObject(setup(serialized.color));
+        for (Client client : new Client[] { binary, serialized }) {
+            SetupBoard opponent = (SetupBoard) client.read();
+            int pieces = 0;
+            for (int row = 0; row < 4; ++row) {
+                for (int col = 0; col < 10; ++col) {
+                    Piece piece = opponent.getPiece(row, col);
+                    assertNotNull(piece, client + " misses a piece of the opponent's setup");
+                    assertNull(piece.getPieceType(), client + " was told a piece type in the opponent's setup");
+                    ++pieces;
+                }
+            }
+            assertEquals(40, pieces);
+            // Only clients that can come back get a token
+            Object message = client.read();
+            if (message instanceof ResumeToken) {
+                client.token = (ResumeToken) message;
+                message = client.read();
+            }
+            assertSame(GameStatus.IN_PROGRESS, message);
+        }
+        PieceColor turn = (PieceColor) binary.read();
+        assertSame(turn, serialized.read());
+        Client first = (turn == binary.color) ? binary : serialized;
+        Client second = (first == binary) ? serialized : binary;
+
+        // A plain move shows the piece to its owner only
+        Move[] seen = ply(first, second, 6, 0, 5, 0);
+        assertSame(PieceType.SCOUT, seen[0].getEndPiece().getPieceType());
+        assertHidden(seen[1].getEndPiece(), first.color);
+        seen = ply(second, first, 6, 9, 5, 9);
+        assertSame(PieceType.MINER, seen[0].getEndPiece().getPieceType());
+        assertHidden(seen[1].getEndPiece(), second.color);
+
+        // The scout attacks the miner: a version 5 client gets both pieces,
+        // a client without the handshake the piece left on the square
+        seen = ply(first, second, 5, 0, 4, 0);
+        for (int i = 0; i < 2; ++i) {
+            Client client = (i == 0) ? first : second;
+            Move attack = seen[i];
+            assertTrue(attack.isAttackMove() && attack.isDefendWin(), client + " got " + attack);
+            if (client == binary) {
+                assertSame(PieceType.SCOUT, attack.getStartPiece().getPieceType());
+                assertSame(PieceType.MINER, attack.getEndPiece().getPieceType());
+            } else {
+                assertNull(attack.getStartPiece());
+                assertSame(PieceType.MINER, attack.getEndPiece().getPieceType());
+                assertSame(second.color, attack.getEndPiece().getPieceColor());
+            }
+        }
+
+        // The miner has been seen and shows as it moves on; a piece nobody
+        // has seen stays hidden
+        seen = ply(second, first, 5, 9, 4, 9);
+        assertSame(PieceType.MINER, seen[1].getEndPiece().getPieceType());
+        seen = ply(first, second, 6, 1, 5, 1);
+        assertHidden(seen[1].getEndPiece(), first.color);
+
+        // Spectators start from a position showing only the miner
+        for (int version : new int[] { 0, BinaryProtocol.VERSION }) {
+            Client spectator = new Client("spectator", version);
+            spectator.open();
+            spectator.out.writeObject(new SpectateRequest("binary@fog.test"));
+            ResumeState position = assertInstanceOf(ResumeState.class, spectator.read());
+            assertNull(position.getColor());
+            assertOnlyKnown(position, null, PieceType.MINER, second.color);
+            spectator.close();
+        }
+
+        // The binary client gets back in while the serialized one is to move
+        if (binary == second)
+            ply(second, first, 6, 8, 5, 8);
+        assertNotNull(binary.token);
+        ResumeState position = binary.rejoin();
+        assertSame(binary.color, position.getColor());
+        assertSame(serialized.color, position.getTurn());
+        if (binary == first)
+            assertOnlyKnown(position, binary.color, PieceType.MINER, second.color);
+        else
+            assertOnlyKnown(position, binary.color, null, null);
+
+        serialized.out.writeObject("ABANDON");
+        binary.close();
+        serialized.close();
+        assertEquals(List.of(), slips, "the server had to hide pieces it was about to send");
+    }
+
+    @Test
+    void clientsBeforeFogOfWarAreTurnedAway() throws Exception {
+        Client old = new Client("old", BinaryProtocol.FOG_VERSION - 1);
+        old.socket = new Socket("localhost", port);
+        old.socket.setSoTimeout(TIMEOUT_MILLIS);
+        old.out = new FrameOutputStream(old.socket.getOutputStream());
+        old.in = new FrameInputStream(old.socket.getInputStream());
+        old.out.writeObject(new ProtocolHello(old.version));
+        assertSame(GameStatus.DISCONNECTED, old.read());
+        old.close();
+    }
+
+    @Test
+    void redactHidesWhatTheViewerMayNotKnow() {
+        RevealedSquares none = new RevealedSquares();
+        Move leak = new Move();
+        leak.setStart(6, 0);
+        leak.setEnd(5, 0);
+        leak.setMoveColor(PieceColor.RED);
+        leak.setEndPiece(new OriginalPiece(PieceType.MARSHAL, PieceColor.RED, false));
+        assertFalse(isSafe(leak, PieceColor.BLUE, none, false));
+        assertFalse(isSafe(leak, null, none, false));
+        assertTrue(isSafe(leak, PieceColor.RED, none, false));
+        Move redacted = (Move) FogOfWar.redact(leak, PieceColor.BLUE, none, false);
+        assertHidden(redacted.getEndPiece(), PieceColor.RED);
+        assertSame(PieceType.MARSHAL, leak.getEndPiece().getPieceType(), "redact changed the original");
+
+        RevealedSquares marshal = new RevealedSquares();
+        marshal.played(ByteBoard.square(6, 0), ByteBoard.square(5, 0), true, true);
+        assertTrue(isSafe(leak, PieceColor.BLUE, marshal, false));
+        assertFalse(isSafe(leak, PieceColor.BLUE, marshal, true));
+
+        assertFalse(isSafe(setup(PieceColor.RED), PieceColor.BLUE, none, false));
+        assertTrue(isSafe(setup(PieceColor.RED), PieceColor.RED, none, false));
+        assertTrue(isSafe(FogOfWar.setupFor(setup(PieceColor.RED)), PieceColor.BLUE, none, false));
+
+        // Once the game is over the whole board goes through
+        byte[] squares = new byte[ByteBoard.SQUARES];
+        squares[ByteBoard.square(0, 0)] = ByteBoard.code(PieceColor.RED, PieceType.FLAG);
+        squares[ByteBoard.square(9, 9)] = ByteBoard.code(PieceColor.BLUE, PieceType.FLAG);
+        ResumeState board = new ResumeState(PieceColor.BLUE, PieceColor.RED, 10, 0, 0, squares);
+        ResumeState view = (ResumeState) FogOfWar.redact(board, PieceColor.BLUE, none, false);
+        assertTrue(view.toBoard().isHidden(ByteBoard.square(0, 0)));
+        assertSame(PieceType.FLAG, view.toBoard().typeAt(ByteBoard.square(9, 9)));
+        RevealedSquares over = new RevealedSquares();
+        over.revealAll();
+        assertTrue(isSafe(board, PieceColor.BLUE, over, false));
+        assertTrue(isSafe(board, null, over, true));
+    }
+
+    /**
+     * Plays a move given in the mover's orientation.
+     *
+     * @return the move as the mover and as the other player received it.
+     */
+    private static Move[] ply(Client mover, Client other, int startRow, int startCol, int endRow, int endCol)
+            throws Exception {
+        Move move = new Move();
+        move.setStart(startRow, startCol);
+        move.setEnd(endRow, endCol);
+        move.setMoveColor(mover.color);
+        mover.out.writeObject(move);
+
+        Move[] seen = { assertInstanceOf(Move.class, mover.read()), assertInstanceOf(Move.class, other.read()) };
+        assertSame(GameStatus.IN_PROGRESS, mover.read());
+        assertSame(GameStatus.IN_PROGRESS, other.read());
+        assertSame(other.color, mover.read());
+        assertSame(other.color, other.read());
+        return seen;
+    }
+
+    /**
+     * @return false if {@link FogOfWar#redact} would hide something in the
+     *         message.
+     */
+    private static boolean isSafe(Object message, PieceColor viewer, RevealedSquares revealed, boolean rotated) {
+        return FogOfWar.redact(message, viewer, revealed, rotated) == message;
+    }
+
+    private static void assertHidden(Piece piece, PieceColor color) {
+        assertNotNull(piece);
+        assertNull(piece.getPieceType(), "piece type given away");
+        assertSame(color, piece.getPieceColor());
+    }
+
+    /**
+     * Checks that a position shows the viewer's own pieces and, of the
+     * others, at most one known piece.
+     */
+    private static void assertOnlyKnown(ResumeState position, PieceColor viewer, PieceType known,
+            PieceColor knownColor) {
+        ByteBoard board = position.toBoard();
+        int shown = 0;
+        for (int square = 0; square < ByteBoard.SQUARES; ++square) {
+            if (board.isEmpty(square))
+                continue;
+            if (board.colorAt(square) == viewer) {
+                assertFalse(board.isHidden(square), "own piece hidden on square " + square);
+            } else if (!board.isHidden(square)) {
+                assertSame(known, board.typeAt(square), "square " + square + " given away");
+                assertSame(knownColor, board.colorAt(square));
+                ++shown;
+            }
+        }
+        assertEquals((known == null) ? 0 : 1, shown);
+    }
+
+    private static SetupBoard setup(PieceColor color) {
+        SetupBoard setup = new SetupBoard();
+        int square = 0;
+        for (PieceType type : PieceType.values()) {
+            for (int n = 0; n < type.getCount(); ++n, ++square)
+                setup.setPiece(new OriginalPiece(type, color, false), square / 10, square % 10);
+        }
+        return setup;
+    }
+
+    /**
+     * One connection to the test server. Version 0 skips the handshake, as a
+     * client started with {@code -Dstratego.protocol=serialized} does.
+     */
+    private static final class Client {
+        private final String name;
+        private final int version;
+        private Socket socket;
+        private FrameOutputStream out;
+        private FrameInputStream in;
+        private PieceColor color;
+        private ResumeToken token;
+
+        Client(String name, int version) {
+            this.name = name;
+            this.version = version;
+        }
+
+        void open() throws Exception {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            out = new FrameOutputStream(socket.getOutputStream());
+            in = new FrameInputStream(socket.getInputStream());
+            if (version > 0) {
+                out.writeObject(new ProtocolHello(version));
+                ProtocolHello reply = assertInstanceOf(ProtocolHello.class, in.readObject());
+                out.setBinaryProtocol(reply.getVersion() >= 1);
+            }
+        }
+
+        void join(String email) throws Exception {
+            Player player = new Player();
+            player.setNickname(name);
+            player.setEmail(email);
+            out.writeObject(player);
+        }
+
+        void readOpponent() throws Exception {
+            Player opponent = (Player) read();
+            color = (opponent.getColor() == PieceColor.RED) ? PieceColor.BLUE : PieceColor.RED;
+        }
+
+        /**
+         * Takes the seat back on a new connection; the server drops the old
+         * one.
+         */
+        ResumeState rejoin() throws Exception {
+            Socket old = socket;
+            open();
+            out.writeObject(token);
+            old.close();
+            return assertInstanceOf(ResumeState.class, read());
+        }
+
+        Object read() throws Exception {
+            return in.readObject();
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + color + ")";
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package edu.asu.stratego.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sets random ratings on a few hundred players, many of them tied, and
+ * checks the ranking against the same players sorted from scratch: the
+ * whole order, and the first few players at each checkpoint.
+ */
+class RankingTreeTest {
+
+    private static final int PLAYERS = 500;
+    private static final int UPDATES = 20_000;
+    private static final int CHECK_EVERY = 1_000;
+
+    @Test
+    void matchesASortedList() {
+        Random random = new Random(42);
+        RankingTree tree = new RankingTree();
+        Map<String, Integer> points = new HashMap<>();
+
+        for (int i = 1; i <= UPDATES; ++i) {
+            String email = "player" + random.nextInt(PLAYERS) + "@stratego";
+            // A narrow range, so that ties are broken by email often
+            int rating = 900 + random.nextInt(200);
+            tree.put(email, (random.nextInt(4) == 0) ? null : "nick" + i, rating);
+            points.put(email, rating);
+
+            if (i % CHECK_EVERY == 0) {
+                List<String> sorted = new ArrayList<>(points.keySet());
+                sorted.sort(Comparator.comparing((String e) -> -points.get(e)).thenComparing(e -> e));
+
+                assertEquals(sorted.size(), tree.size());
+                assertEquals(sorted, emails(tree.top(Integer.MAX_VALUE)));
+                int n = random.nextInt(20) + 1;
+                assertEquals(sorted.subList(0, Math.min(n, sorted.size())), emails(tree.top(n)));
+                for (RankingTree.Node node : tree.top(Integer.MAX_VALUE)) {
+                    assertEquals(points.get(node.email).intValue(), node.points, node.email);
+                }
+            }
+        }
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertEquals(List.of(), tree.top(10));
+    }
+
+    private static List<String> emails(List<RankingTree.Node> nodes) {
+        List<String> emails = new ArrayList<>(nodes.size());
+        for (RankingTree.Node node : nodes) {
+            emails.add(node.email);
+        }
+        return emails;
+    }
+}